@@ -0,0 +1,39 @@
+package com.chess_client.benchmarks;
+
+import com.chess_client.models.Board;
+
+/**
+ * Bộ thế cờ dùng chung cho các benchmark: trung cuộc nhiều quân (nhiều nước,
+ * nhiều tia trượt) và tàn cuộc ít quân (vua/tốt chiếm phần lớn thời gian).
+ */
+final class Positions {
+
+    static final String[] MIDDLEGAME = {
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 8",
+    };
+
+    static final String[] ENDGAME = {
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1",
+        "8/5k2/8/3R4/8/2K5/5r2/8 w - - 0 1",
+        "4k3/1P6/8/8/8/8/K7/8 w - - 0 1",
+    };
+
+    private Positions() {
+    }
+
+    /**
+     * @param set "middlegame" hoặc "endgame"
+     */
+    static Board[] load(String set) {
+        String[] fens = "endgame".equals(set) ? ENDGAME : MIDDLEGAME;
+        Board[] boards = new Board[fens.length];
+        for (int i = 0; i < fens.length; i++) {
+            boards[i] = Board.fromFen(fens[i]);
+        }
+        return boards;
+    }
+}
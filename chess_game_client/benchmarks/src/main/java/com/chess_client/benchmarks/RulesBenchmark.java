@@ -0,0 +1,165 @@
+package com.chess_client.benchmarks;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+import com.chess_client.services.GameStateChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark các đường nóng của luật cờ trên bộ thế cờ trung cuộc / tàn cuộc.
+ *
+ * Mỗi lần gọi xử lý một phần tử kế tiếp (thế cờ hoặc nước đi) theo vòng tròn,
+ * nên điểm số là số thao tác mỗi giây. Chạy kèm {@code -prof gc} (mặc định khi
+ * dùng BenchmarkRunner) để có thêm tốc độ cấp phát (gc.alloc.rate.norm = byte/thao tác).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({ "middlegame", "endgame" })
+    public String positionSet;
+
+    private Board[] boards;
+    private GameLogic[] logics;
+    private GameStateChecker[] checkers;
+
+    // Ứng viên cho isValidMove: mọi cặp (quân của bên đi, ô đích), cả hợp lệ lẫn không
+    private Move[] candidates;
+    private int[] candidateBoard;
+
+    // Bàn cờ riêng cho movePiece/undoMove, cùng danh sách nước hợp lệ của từng bàn
+    private Board[] playBoards;
+    private int[][] playMoves;
+
+    // Danh sách dùng lại cho generateMoves (không cấp phát theo nước)
+    private final MoveList moveList = new MoveList();
+
+    private int positionCursor;
+    private int candidateCursor;
+    private int playCursor;
+    private int playMoveCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boards = Positions.load(positionSet);
+        logics = new GameLogic[boards.length];
+        checkers = new GameStateChecker[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            logics[i] = new GameLogic(boards[i]);
+            checkers[i] = new GameStateChecker(boards[i], logics[i]);
+        }
+
+        List<Move> candidateList = new ArrayList<>();
+        List<Integer> candidateOwners = new ArrayList<>();
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            for (int from = 0; from < 64; from++) {
+                Piece piece = board.getPiece(from / 8, from % 8);
+                if (piece == null || piece.getColor() != board.getSideToMove()) {
+                    continue;
+                }
+                for (int to = 0; to < 64; to++) {
+                    candidateList.add(new Move(from / 8, from % 8, to / 8, to % 8, piece));
+                    candidateOwners.add(i);
+                }
+            }
+        }
+        candidates = candidateList.toArray(new Move[0]);
+        candidateBoard = candidateOwners.stream().mapToInt(Integer::intValue).toArray();
+
+        playBoards = Positions.load(positionSet);
+        playMoves = new int[playBoards.length][];
+        for (int i = 0; i < playBoards.length; i++) {
+            MoveList moves = new MoveList();
+            new GameLogic(playBoards[i]).generateMoves(playBoards[i].getSideToMove(), moves);
+            playMoves[i] = new int[moves.size()];
+            for (int j = 0; j < moves.size(); j++) {
+                playMoves[i][j] = moves.get(j);
+            }
+        }
+    }
+
+    private int nextPosition() {
+        int index = positionCursor;
+        positionCursor = index + 1 == boards.length ? 0 : index + 1;
+        return index;
+    }
+
+    // ===================== BENCHMARKS =====================
+
+    @Benchmark
+    public boolean isValidMove() {
+        int index = candidateCursor;
+        candidateCursor = index + 1 == candidates.length ? 0 : index + 1;
+        Board board = boards[candidateBoard[index]];
+        return logics[candidateBoard[index]].isValidMove(candidates[index], board.getSideToMove());
+    }
+
+    @Benchmark
+    public boolean isKingInCheck() {
+        int index = nextPosition();
+        return logics[index].isKingInCheck(boards[index], boards[index].getSideToMove());
+    }
+
+    @Benchmark
+    public List<Move> getAllValidMoves() {
+        int index = nextPosition();
+        return logics[index].getAllValidMoves(boards[index].getSideToMove());
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        int index = nextPosition();
+        moveList.clear();
+        logics[index].generateMoves(boards[index].getSideToMove(), moveList);
+        return moveList.size();
+    }
+
+    @Benchmark
+    public GameStateChecker.GameStateResult checkGameState() {
+        int index = nextPosition();
+        return checkers[index].checkGameState(boards[index].getSideToMove());
+    }
+
+    @Benchmark
+    public Board copy() {
+        return boards[nextPosition()].copy();
+    }
+
+    @Benchmark
+    public long movePieceUndoMove() {
+        Board board = playBoards[playCursor];
+        int[] moves = playMoves[playCursor];
+        board.movePiece(moves[playMoveCursor]);
+        long key = board.getZobristKey();
+        board.undoMove();
+
+        if (++playMoveCursor == moves.length) {
+            playMoveCursor = 0;
+            playCursor = playCursor + 1 == playBoards.length ? 0 : playCursor + 1;
+        }
+        return key;
+    }
+}
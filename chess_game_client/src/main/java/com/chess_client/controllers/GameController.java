@@ -8,9 +8,13 @@ import com.chess_client.services.AIPlayer;
 import com.chess_client.services.GameLogic;
 import com.chess_client.services.GameService;
 import com.chess_client.services.GameStateChecker;
+import com.chess_client.services.engine.EngineExecutor;
+import com.chess_client.services.engine.FrameTimeStats;
 import com.chess_client.ui.BoardView;
 import com.chess_client.ui.ChatManager;
 import com.chess_client.ui.UIGameInfoUpdater;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -20,14 +24,20 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 
+import java.io.IOException;
 import java.net.Socket;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 
 public class GameController {
 
+    // Thời gian tối thiểu trước khi AI đi (cho tự nhiên, kể cả khi đi theo sách/ponder)
+    private static final long COMPUTER_MOVE_DELAY_MILLIS = 600;
+
     // ===================== UI COMPONENTS - BOARD =====================
     
     @FXML
@@ -95,6 +105,10 @@ public class GameController {
     
     private PeerNetworkHandler peerNetworkHandler;  // Xử lý giao tiếp P2P với đối thủ
     private AIPlayer aiPlayer;                      // AI player (nếu chơi với máy)
+    private EngineExecutor.Game engineGame;         // Hàng đợi và giới hạn tìm kiếm của ván với máy
+    private FrameTimeStats frameStats;              // Thời gian khung hình (chỉ khi có -Dchess.ui.frameReport)
+    private AnimationTimer frameMonitor;
+    private EngineExecutor.Task pendingComputerMove; // Lần tìm nước của AI đang chờ kết quả
     private GameStateChecker gameStateChecker;      // Kiểm tra trạng thái game
     private GameActionHandler gameActionHandler;    // Xử lý các hành động game (hòa, đầu hàng)
     private UIGameInfoUpdater uiUpdater;            // Cập nhật thông tin UI
@@ -193,6 +207,8 @@ public class GameController {
             ? Piece.Color.BLACK 
             : Piece.Color.WHITE;
         this.aiPlayer = new AIPlayer(board, gameLogic, computerColor, difficulty);
+        this.engineGame = EngineExecutor.getShared().openGame("vs-computer-" + difficulty);
+        startFrameMonitor();
 
         // Chơi với máy thì không cho cầu hòa
         if (drawButton != null) {
@@ -378,16 +394,15 @@ public class GameController {
             boardView.refreshBoard();
         }
 
-        // Nếu đang chơi với máy và đến lượt AI -> AI tự động đi sau một khoảng trễ
+        // Máy vừa đi -> ponder trong lúc người chơi nghĩ
+        if (aiPlayer != null && currentPlayer != aiPlayer.getAiColor()) {
+            aiPlayer.startPondering();
+        }
+
+        // Nếu đang chơi với máy và đến lượt AI -> AI tìm nước trên luồng nền
         if (aiPlayer != null && currentPlayer == aiPlayer.getAiColor()) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(600); // Delay ~0.6s cho tự nhiên
-                } catch (InterruptedException ignored) {
-                    // Ignore
-                }
-                Platform.runLater(this::makeComputerMove);
-            }).start();
+            aiPlayer.opponentMoved(); // Người chơi đi khác nước đoán -> dừng ponder ngay
+            makeComputerMove();
         }
     }
 
@@ -439,6 +454,9 @@ public class GameController {
      * @param winner Người thắng (null nếu hòa)
      */
     private void endGame(Piece.Color winner) {
+        // Dừng máy (kể cả ponder đang chạy nền)
+        stopComputer();
+
         // Vô hiệu hóa tương tác với bàn cờ
         if (boardView != null) {
             boardView.setCurrentPlayer(null);
@@ -474,6 +492,7 @@ public class GameController {
      * Quay về màn hình Home.
      */
     private void returnToHome() {
+        stopComputer();
         try {
             javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/com/chess_client/fxml/home.fxml"));
@@ -500,17 +519,56 @@ public class GameController {
     // ===================== COMPUTER PLAYER =====================
     
     /**
-     * AI player thực hiện nước đi.
-     * Được gọi tự động khi đến lượt AI.
+     * Gửi lần tìm nước của AI vào hàng đợi của ván trên EngineExecutor dùng chung.
+     * Được gọi tự động khi đến lượt AI (trên JavaFX Application Thread).
+     * AI tìm trên bản sao bàn cờ nên luồng UI vẫn vẽ và xử lý sự kiện bình thường;
+     * kết quả được đưa về luồng UI qua Platform.runLater.
      */
     private void makeComputerMove() {
         if (aiPlayer == null) {
             return;
         }
+        cancelComputerMove();
+
+        AIPlayer ai = aiPlayer;
+        Board snapshot = board.copy();
+        long positionKey = snapshot.getZobristKey();
+        long requestedAt = System.nanoTime();
+        EngineExecutor.Task[] task = new EngineExecutor.Task[1];
+        task[0] = engineGame.submit(
+                (stop, timeBudgetMillis, nodeBudget) -> ai.makeMove(snapshot, stop, timeBudgetMillis, nodeBudget),
+                chosen -> Platform.runLater(() -> deliverComputerMove(task[0], positionKey, requestedAt, chosen)),
+                ai::cancel);
+        pendingComputerMove = task[0];
+    }
+
+    /**
+     * Nhận nước của AI trên luồng UI. Nước trả về sớm hơn {@link #COMPUTER_MOVE_DELAY_MILLIS}
+     * được giữ lại cho đủ (trễ cho tự nhiên) bằng PauseTransition, không chặn luồng nào.
+     */
+    private void deliverComputerMove(EngineExecutor.Task task, long positionKey, long requestedAt, Move chosen) {
+        long elapsed = (System.nanoTime() - requestedAt) / 1_000_000L;
+        if (elapsed < COMPUTER_MOVE_DELAY_MILLIS) {
+            PauseTransition pause = new PauseTransition(Duration.millis(COMPUTER_MOVE_DELAY_MILLIS - elapsed));
+            pause.setOnFinished(e -> applyComputerMove(task, positionKey, chosen));
+            pause.play();
+        } else {
+            applyComputerMove(task, positionKey, chosen);
+        }
+    }
+
+    /**
+     * AI player thực hiện nước đi đã tìm được.
+     * Bỏ qua nếu lần tìm đã bị huỷ (đầu hàng, hòa, rời ván) hoặc thế cờ đã đổi.
+     */
+    private void applyComputerMove(EngineExecutor.Task task, long positionKey, Move chosen) {
+        if (aiPlayer == null || task.isCancelled() || task != pendingComputerMove
+                || board.getZobristKey() != positionKey) {
+            return;
+        }
+        pendingComputerMove = null;
 
         try {
-            Move chosen = aiPlayer.makeMove();
-            
             // Nếu không còn nước đi hợp lệ -> kiểm tra chiếu hết / hòa
             if (chosen == null) {
                 Piece.Color aiColor = aiPlayer.getAiColor();
@@ -529,6 +587,75 @@ public class GameController {
         }
     }
 
+    /**
+     * Huỷ lần tìm nước đang chờ/đang chạy của AI (nếu có).
+     */
+    private void cancelComputerMove() {
+        if (pendingComputerMove != null) {
+            pendingComputerMove.cancel();
+            pendingComputerMove = null;
+        }
+    }
+
+    /**
+     * Huỷ lần tìm đang chạy, ponder và giải phóng các luồng tìm kiếm của máy
+     * (gọi khi kết thúc hoặc rời ván).
+     */
+    private void stopComputer() {
+        cancelComputerMove();
+        if (engineGame != null) {
+            engineGame.close();
+        }
+        if (aiPlayer != null) {
+            aiPlayer.shutdown();
+        }
+        stopFrameMonitor();
+    }
+
+    /**
+     * Đo khoảng cách giữa các khung hình trong suốt ván với máy, để so sánh
+     * tìm kiếm trong tiến trình với tìm kiếm ở JVM con (-Dchess.engine.outOfProcess=true).
+     * Chỉ chạy khi có -Dchess.ui.frameReport=<file CSV>; ván thường không đo gì.
+     */
+    private void startFrameMonitor() {
+        String report = System.getProperty("chess.ui.frameReport");
+        if (report == null || report.isBlank()) {
+            return;
+        }
+        frameStats = new FrameTimeStats();
+        frameMonitor = new AnimationTimer() {
+            private long lastFrame;
+
+            @Override
+            public void handle(long now) {
+                if (lastFrame != 0) {
+                    frameStats.record(now - lastFrame);
+                }
+                lastFrame = now;
+            }
+        };
+        frameMonitor.start();
+    }
+
+    /**
+     * Dừng đo, in kết quả và ghi thêm vào file CSV của -Dchess.ui.frameReport.
+     */
+    private void stopFrameMonitor() {
+        if (frameMonitor == null) {
+            return;
+        }
+        frameMonitor.stop();
+        frameMonitor = null;
+        String mode = aiPlayer != null && aiPlayer.isOutOfProcess() ? "out-of-process" : "in-process";
+        System.out.println(frameStats.format(mode));
+        try {
+            frameStats.appendCsv(Path.of(System.getProperty("chess.ui.frameReport")), mode);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        frameStats = null;
+    }
+
     // ===================== FILE TRANSFER =====================
 
     /**
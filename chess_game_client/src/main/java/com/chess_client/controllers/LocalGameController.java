@@ -264,24 +264,12 @@ public class LocalGameController {
             return;
         }
 
-        // Reset game và replay tất cả moves trừ move cuối
-        initializeGame();
-        List<Move> tempHistory = new ArrayList<>(moveHistory);
-        moveHistory.clear();
-        moveHistoryBox.getChildren().clear();
-        
-        currentPlayer = Piece.Color.WHITE;
-        
-        // Replay moves
-        for (int i = 0; i < tempHistory.size() - 1; i++) {
-            Move move = tempHistory.get(i);
-            board.movePiece(move);
-            moveHistory.add(move);
-            updateMoveHistory(move);
-            currentPlayer = (currentPlayer == Piece.Color.WHITE) 
-                ? Piece.Color.BLACK 
-                : Piece.Color.WHITE;
-        }
+        // Lùi đúng một nước trên bàn cờ hiện tại (khôi phục cả phong cấp, nhập thành, en passant)
+        Move move = moveHistory.remove(moveHistory.size() - 1);
+        board.undoMove(move);
+        moveHistoryBox.getChildren().remove(moveHistoryBox.getChildren().size() - 1);
+        currentPlayer = board.getSideToMove();
+        statusLabel.setText("");
         
         // Cập nhật UI
         if (!moveHistory.isEmpty()) {
@@ -0,0 +1,287 @@
+package com.chess_client.models;
+
+import java.util.Arrays;
+
+/**
+ * Các bảng tra tấn công dạng bitboard dùng chung cho Board và GameLogic.
+ *
+ * Ô được đánh số sq = row * 8 + col (0 = a8, 63 = h1), khớp với toạ độ
+ * (row, col) mà Board và UI đang dùng. Bit thứ sq của một số long bật
+ * nghĩa là ô đó thuộc tập hợp.
+ *
+ * Tấn công của xe/tượng/hậu được tra bằng magic bitboard: với mỗi ô,
+ * phần occupancy liên quan được nhân với một số magic rồi dịch phải để
+ * ra chỉ số trong bảng tấn công đã tính sẵn.
+ */
+public final class Bitboards {
+
+    // ===================== CONSTANTS =====================
+
+    private static final int[][] ROOK_DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+    private static final int[][] BISHOP_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+    private static final int[][] KNIGHT_OFFSETS = {
+            { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 } };
+    private static final int[][] KING_OFFSETS = {
+            { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
+
+    // ===================== LOOKUP TABLES =====================
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64]; // [màu][ô]
+    private static final long[][] BETWEEN = new long[64][64];      // Các ô nằm giữa hai ô thẳng hàng
+    private static final long[][] LINE = new long[64][64];         // Cả đường thẳng đi qua hai ô
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        initLeaperTables();
+        initBetweenTable();
+
+        // Seed cố định để bảng magic giống nhau giữa các lần chạy
+        long[] seed = { 0x2545F4914F6CDD1DL };
+        for (int sq = 0; sq < 64; sq++) {
+            initMagic(sq, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE, seed);
+            initMagic(sq, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE, seed);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    // ===================== SQUARE HELPERS =====================
+
+    public static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Chỉ số của một loại quân trong mảng 12 bitboard: màu * 6 + loại.
+     */
+    public static int pieceIndex(Piece.Type type, Piece.Color color) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    // ===================== ATTACK QUERIES =====================
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Các ô mà một quân tốt màu {@code color} đứng ở {@code square} có thể ăn chéo.
+     */
+    public static long pawnAttacks(Piece.Color color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[square][index];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Các ô nằm giữa hai ô (không bao gồm hai đầu).
+     * Trả về 0 nếu hai ô không cùng hàng, cột hoặc đường chéo.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Toàn bộ hàng, cột hoặc đường chéo đi qua cả hai ô (kể cả hai ô đó).
+     * Trả về 0 nếu hai ô không thẳng hàng. Dùng để giới hạn nước đi của quân bị ghim.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    // ===================== TABLE INITIALIZATION =====================
+
+    private static void initLeaperTables() {
+        for (int sq = 0; sq < 64; sq++) {
+            int r = row(sq);
+            int c = col(sq);
+            KNIGHT_ATTACKS[sq] = offsets(r, c, KNIGHT_OFFSETS);
+            KING_ATTACKS[sq] = offsets(r, c, KING_OFFSETS);
+            // Trắng đi lên (hàng giảm), đen đi xuống (hàng tăng)
+            PAWN_ATTACKS[Piece.Color.WHITE.ordinal()][sq] = offsets(r, c, new int[][] { { -1, -1 }, { -1, 1 } });
+            PAWN_ATTACKS[Piece.Color.BLACK.ordinal()][sq] = offsets(r, c, new int[][] { { 1, -1 }, { 1, 1 } });
+        }
+    }
+
+    private static long offsets(int r, int c, int[][] offsets) {
+        long result = 0L;
+        for (int[] d : offsets) {
+            int rr = r + d[0];
+            int cc = c + d[1];
+            if (rr >= 0 && rr < 8 && cc >= 0 && cc < 8) {
+                result |= bit(square(rr, cc));
+            }
+        }
+        return result;
+    }
+
+    private static void initBetweenTable() {
+        int[][] allDirections = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 },
+                { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+        for (int from = 0; from < 64; from++) {
+            for (int[] d : allDirections) {
+                long fullLine = bit(from) | ray(from, d[0], d[1]) | ray(from, -d[0], -d[1]);
+                long between = 0L;
+                int rr = row(from) + d[0];
+                int cc = col(from) + d[1];
+                while (rr >= 0 && rr < 8 && cc >= 0 && cc < 8) {
+                    int to = square(rr, cc);
+                    BETWEEN[from][to] = between;
+                    LINE[from][to] = fullLine;
+                    between |= bit(to);
+                    rr += d[0];
+                    cc += d[1];
+                }
+            }
+        }
+    }
+
+    private static long ray(int from, int dRow, int dCol) {
+        long ray = 0L;
+        int rr = row(from) + dRow;
+        int cc = col(from) + dCol;
+        while (rr >= 0 && rr < 8 && cc >= 0 && cc < 8) {
+            ray |= bit(square(rr, cc));
+            rr += dRow;
+            cc += dCol;
+        }
+        return ray;
+    }
+
+    /**
+     * Tấn công của quân trượt tính bằng cách đi từng ô (chỉ dùng khi dựng bảng).
+     */
+    private static long slidingAttacks(int sq, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] d : directions) {
+            int rr = row(sq) + d[0];
+            int cc = col(sq) + d[1];
+            while (rr >= 0 && rr < 8 && cc >= 0 && cc < 8) {
+                long b = bit(square(rr, cc));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                rr += d[0];
+                cc += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Các ô có thể chặn đường của quân trượt (bỏ ô ở mép bàn cờ vì ô đó
+     * không ảnh hưởng tới kết quả tấn công).
+     */
+    private static long relevantMask(int sq, int[][] directions) {
+        long mask = 0L;
+        for (int[] d : directions) {
+            int rr = row(sq) + d[0];
+            int cc = col(sq) + d[1];
+            while (rr + d[0] >= 0 && rr + d[0] < 8 && cc + d[1] >= 0 && cc + d[1] < 8) {
+                mask |= bit(square(rr, cc));
+                rr += d[0];
+                cc += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagic(int sq, int[][] directions, long[] masks, long[] magics,
+            int[] shifts, long[][] tables, long[] seed) {
+        long mask = relevantMask(sq, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // Liệt kê mọi tập con của mask (Carry-Rippler) cùng tấn công tương ứng
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        int n = 0;
+        do {
+            occupancies[n] = subset;
+            attacks[n] = slidingAttacks(sq, subset, directions);
+            n++;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        long[] table = new long[size];
+        int shift = 64 - bits;
+        while (true) {
+            long magic = nextRandom(seed) & nextRandom(seed) & nextRandom(seed);
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+
+            // Tấn công của quân trượt không bao giờ rỗng nên 0 nghĩa là ô trống
+            Arrays.fill(table, 0L);
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (table[index] == 0L) {
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+
+            if (!collision) {
+                masks[sq] = mask;
+                magics[sq] = magic;
+                shifts[sq] = shift;
+                tables[sq] = table;
+                return;
+            }
+        }
+    }
+
+    private static long nextRandom(long[] seed) {
+        // xorshift64*
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -1,16 +1,85 @@
 package com.chess_client.models;
 
+import java.util.Arrays;
+
 /**
  * Đại diện cho bàn cờ vua 8x8.
  * Quản lý việc đặt quân, di chuyển quân, và các thao tác đặc biệt
  * như nhập thành, en passant, phong cấp.
+ *
+ * Ngoài mảng Piece[8][8] dùng cho UI, bàn cờ còn duy trì song song
+ * 12 bitboard (mỗi loại quân của mỗi màu một bitboard) và các mask
+ * occupancy để GameLogic tra cứu nước đi bằng phép toán bit.
+ * Mọi thay đổi quân cờ đều đi qua setPiece nên hai biểu diễn luôn khớp nhau.
+ * setPiece cũng cập nhật ô vua, danh sách ô có quân của từng bên và bộ đếm
+ * vật chất / giai đoạn ván cờ / điểm theo ô (PieceSquareTables), nên các
+ * thông tin này có ngay với chi phí O(1).
+ *
+ * Bàn cờ cũng giữ khoá Zobrist 64-bit của thế cờ (quân, quyền nhập thành,
+ * cột en passant, lượt đi), cập nhật O(1) trong setPiece, movePiece và undoMove.
+ *
+ * movePiece / undoMove là một cặp make/unmake chính xác: mỗi nước đi đẩy vào
+ * ngăn xếp phần trạng thái không suy ra lại được (quân bị ăn, quyền nhập thành,
+ * ô en passant, đồng hồ 50 nước, khoá Zobrist), nên tìm kiếm, hoàn
+ * tác và kiểm tra nước đi có thể đi/lùi trên cùng một bàn cờ thay vì copy().
+ *
+ * Quân cờ là đối tượng bất biến dùng chung (Piece.of); quyền nhập thành và
+ * quân phong cấp là trạng thái của bàn cờ, nên copy() chỉ sao chép mảng.
  */
 public class Board {
     
     // ===================== FIELDS =====================
     
-    private Piece[][] board;    // Mảng 2 chiều 8x8 lưu trữ các quân cờ
-    private Move lastMove;      // Nước đi cuối cùng (dùng cho en passant)
+    private final Piece[] squares;    // 64 ô (sq = row * 8 + col), mỗi ô một quân dùng chung hoặc null
+    private int lastMove = PackedMove.NONE;   // Nước đi cuối cùng (PackedMove)
+
+    // Các mảng được cấp trong constructor (không ở đây) để copy() chỉ cấp mỗi mảng một lần
+    private final long[] pieceBitboards;    // Bitboard theo loại quân, chỉ số = màu * 6 + loại
+    private final long[] colorBitboards;    // Tất cả quân của từng màu
+    private long occupied;                  // Tất cả quân trên bàn cờ
+
+    private final int[] kingSquares;        // Ô vua của từng màu, -1 nếu không có
+    private final int[][] pieceLists;       // Các ô có quân của từng màu (không theo thứ tự)
+    private final int[] pieceListSizes;
+    private final int[] pieceListIndex;     // Vị trí của ô trong danh sách của màu quân đứng đó
+    private final int[] material;           // Tổng giá trị quân (không tính vua)
+    private int phase;                      // Tổng trọng số giai đoạn của cả hai bên
+    private final int[] midgameSquareScore; // Tổng PST trung cuộc của từng màu
+    private final int[] endgameSquareScore; // Tổng PST tàn cuộc của từng màu
+
+    private Piece.Color sideToMove = Piece.Color.WHITE;     // Bên đến lượt đi
+    private int castlingRights = Zobrist.ALL_CASTLING;      // Các bit quyền nhập thành (xem Zobrist)
+    private int enPassantSquare = -1;                       // Ô tốt đi qua khi vừa tiến 2 ô, -1 nếu không có
+    private int enPassantFile = -1;                         // Cột en passant đưa vào khoá (chỉ khi ăn được)
+    private long zobristKey = Zobrist.castling(Zobrist.ALL_CASTLING) ^ Zobrist.whiteToMove();
+    private int halfmoveClock;                              // Số nửa nước từ lần ăn quân / đi tốt gần nhất
+    private int fullmoveNumber = 1;                         // Số nước đầy đủ, tăng sau mỗi nước của Đen
+
+    // Ngăn xếp trạng thái trước mỗi nước đi để undoMove khôi phục, một phần tử mỗi nước
+    private int[] historyMove;          // Nước đã đi (PackedMove)
+    private int[] historyState;         // Trạng thái nén, xem packState
+    private long[] historyKey;          // Khoá Zobrist trước nước đi
+    private Piece[] historyCaptured;    // Quân bị ăn (null nếu không)
+    private int historySize;
+
+    private static final int HISTORY_CAPACITY = 128;
+
+    // Bố cục historyState: bit 0-3 quyền nhập thành, 4-10 ô en passant + 1,
+    // 11-14 cột en passant + 1, 15-31 đồng hồ 50 nước
+    private static final int STATE_HALFMOVE_SHIFT = 15;
+
+    // Các bit quyền nhập thành còn giữ lại khi có quân đi từ/đến mỗi ô
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, Zobrist.ALL_CASTLING);
+        CASTLING_MASK[Bitboards.square(7, 4)] &= ~(Zobrist.WHITE_KINGSIDE | Zobrist.WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(7, 7)] &= ~Zobrist.WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(7, 0)] &= ~Zobrist.WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(0, 4)] &= ~(Zobrist.BLACK_KINGSIDE | Zobrist.BLACK_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(0, 7)] &= ~Zobrist.BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(0, 0)] &= ~Zobrist.BLACK_QUEENSIDE;
+    }
 
     // ===================== CONSTRUCTOR =====================
     
@@ -18,10 +87,75 @@ public class Board {
      * Tạo bàn cờ mới với các quân cờ ở vị trí ban đầu.
      */
     public Board() {
-        board = new Piece[8][8];
+        this(new Piece[64]);
         initializeBoard();
     }
 
+    /**
+     * Tạo bàn cờ trống (dùng nội bộ cho fromFen để không phải dựng lại đội hình ban đầu).
+     */
+    private Board(Piece[] squares) {
+        this.squares = squares;
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        kingSquares = new int[] { -1, -1 };
+        pieceLists = new int[2][64];
+        pieceListSizes = new int[2];
+        pieceListIndex = new int[64];
+        material = new int[2];
+        midgameSquareScore = new int[2];
+        endgameSquareScore = new int[2];
+        historyMove = new int[HISTORY_CAPACITY];
+        historyState = new int[HISTORY_CAPACITY];
+        historyKey = new long[HISTORY_CAPACITY];
+        historyCaptured = new Piece[HISTORY_CAPACITY];
+    }
+
+    /**
+     * Bản sao của {@code source} (dùng cho copy): mỗi mảng được cấp đúng một lần bằng
+     * clone, lịch sử chỉ sao chép phần đã dùng.
+     */
+    private Board(Board source) {
+        squares = source.squares.clone();
+
+        // Sao chép bitboard thay vì tính lại từng ô
+        pieceBitboards = source.pieceBitboards.clone();
+        colorBitboards = source.colorBitboards.clone();
+        occupied = source.occupied;
+
+        // Sao chép ô vua, danh sách quân và bộ đếm
+        kingSquares = source.kingSquares.clone();
+        pieceLists = new int[][] { source.pieceLists[0].clone(), source.pieceLists[1].clone() };
+        pieceListSizes = source.pieceListSizes.clone();
+        pieceListIndex = source.pieceListIndex.clone();
+        material = source.material.clone();
+        phase = source.phase;
+        midgameSquareScore = source.midgameSquareScore.clone();
+        endgameSquareScore = source.endgameSquareScore.clone();
+
+        // Sao chép trạng thái thế cờ và lịch sử để undoMove trên bản sao vẫn đúng
+        sideToMove = source.sideToMove;
+        castlingRights = source.castlingRights;
+        enPassantSquare = source.enPassantSquare;
+        enPassantFile = source.enPassantFile;
+        zobristKey = source.zobristKey;
+        halfmoveClock = source.halfmoveClock;
+        fullmoveNumber = source.fullmoveNumber;
+        historySize = source.historySize;
+        int capacity = Math.max(historySize, HISTORY_CAPACITY);
+        historyMove = new int[capacity];
+        historyState = new int[capacity];
+        historyKey = new long[capacity];
+        historyCaptured = new Piece[capacity];
+        System.arraycopy(source.historyMove, 0, historyMove, 0, historySize);
+        System.arraycopy(source.historyState, 0, historyState, 0, historySize);
+        System.arraycopy(source.historyKey, 0, historyKey, 0, historySize);
+        System.arraycopy(source.historyCaptured, 0, historyCaptured, 0, historySize);
+
+        // Sao chép nước đi cuối cùng
+        lastMove = source.lastMove;
+    }
+
     // ===================== INITIALIZATION =====================
     
     /**
@@ -32,35 +166,35 @@ public class Board {
     private void initializeBoard() {
         // ===== QUÂN ĐEN (hàng 0, 1) =====
         // Hàng sau (hàng 0): Xe, Mã, Tượng, Hậu, Vua, Tượng, Mã, Xe
-        board[0][0] = new Piece(Piece.Type.ROOK, Piece.Color.BLACK);
-        board[0][1] = new Piece(Piece.Type.KNIGHT, Piece.Color.BLACK);
-        board[0][2] = new Piece(Piece.Type.BISHOP, Piece.Color.BLACK);
-        board[0][3] = new Piece(Piece.Type.QUEEN, Piece.Color.BLACK);
-        board[0][4] = new Piece(Piece.Type.KING, Piece.Color.BLACK);
-        board[0][5] = new Piece(Piece.Type.BISHOP, Piece.Color.BLACK);
-        board[0][6] = new Piece(Piece.Type.KNIGHT, Piece.Color.BLACK);
-        board[0][7] = new Piece(Piece.Type.ROOK, Piece.Color.BLACK);
+        setPiece(0, 0, Piece.of(Piece.Type.ROOK, Piece.Color.BLACK));
+        setPiece(0, 1, Piece.of(Piece.Type.KNIGHT, Piece.Color.BLACK));
+        setPiece(0, 2, Piece.of(Piece.Type.BISHOP, Piece.Color.BLACK));
+        setPiece(0, 3, Piece.of(Piece.Type.QUEEN, Piece.Color.BLACK));
+        setPiece(0, 4, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+        setPiece(0, 5, Piece.of(Piece.Type.BISHOP, Piece.Color.BLACK));
+        setPiece(0, 6, Piece.of(Piece.Type.KNIGHT, Piece.Color.BLACK));
+        setPiece(0, 7, Piece.of(Piece.Type.ROOK, Piece.Color.BLACK));
 
         // Hàng tốt (hàng 1): 8 quân tốt đen
         for (int col = 0; col < 8; col++) {
-            board[1][col] = new Piece(Piece.Type.PAWN, Piece.Color.BLACK);
+            setPiece(1, col, Piece.of(Piece.Type.PAWN, Piece.Color.BLACK));
         }
 
         // ===== QUÂN TRẮNG (hàng 6, 7) =====
         // Hàng tốt (hàng 6): 8 quân tốt trắng
         for (int col = 0; col < 8; col++) {
-            board[6][col] = new Piece(Piece.Type.PAWN, Piece.Color.WHITE);
+            setPiece(6, col, Piece.of(Piece.Type.PAWN, Piece.Color.WHITE));
         }
 
         // Hàng sau (hàng 7): Xe, Mã, Tượng, Hậu, Vua, Tượng, Mã, Xe
-        board[7][0] = new Piece(Piece.Type.ROOK, Piece.Color.WHITE);
-        board[7][1] = new Piece(Piece.Type.KNIGHT, Piece.Color.WHITE);
-        board[7][2] = new Piece(Piece.Type.BISHOP, Piece.Color.WHITE);
-        board[7][3] = new Piece(Piece.Type.QUEEN, Piece.Color.WHITE);
-        board[7][4] = new Piece(Piece.Type.KING, Piece.Color.WHITE);
-        board[7][5] = new Piece(Piece.Type.BISHOP, Piece.Color.WHITE);
-        board[7][6] = new Piece(Piece.Type.KNIGHT, Piece.Color.WHITE);
-        board[7][7] = new Piece(Piece.Type.ROOK, Piece.Color.WHITE);
+        setPiece(7, 0, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
+        setPiece(7, 1, Piece.of(Piece.Type.KNIGHT, Piece.Color.WHITE));
+        setPiece(7, 2, Piece.of(Piece.Type.BISHOP, Piece.Color.WHITE));
+        setPiece(7, 3, Piece.of(Piece.Type.QUEEN, Piece.Color.WHITE));
+        setPiece(7, 4, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        setPiece(7, 5, Piece.of(Piece.Type.BISHOP, Piece.Color.WHITE));
+        setPiece(7, 6, Piece.of(Piece.Type.KNIGHT, Piece.Color.WHITE));
+        setPiece(7, 7, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
     }
 
     // ===================== BASIC OPERATIONS =====================
@@ -74,13 +208,14 @@ public class Board {
      */
     public Piece getPiece(int row, int col) {
         if (isValidPosition(row, col)) {
-            return board[row][col];
+            return squares[Bitboards.square(row, col)];
         }
         return null;
     }
 
     /**
      * Đặt quân cờ tại vị trí chỉ định.
+     * Cập nhật luôn các bitboard tương ứng.
      * 
      * @param row   Hàng (0-7)
      * @param col   Cột (0-7)
@@ -88,7 +223,58 @@ public class Board {
      */
     public void setPiece(int row, int col, Piece piece) {
         if (isValidPosition(row, col)) {
-            board[row][col] = piece;
+            int square = Bitboards.square(row, col);
+            long squareBit = Bitboards.bit(square);
+
+            // Gỡ quân cũ khỏi bitboard
+            Piece old = squares[square];
+            if (old != null) {
+                pieceBitboards[Bitboards.pieceIndex(old.getType(), old.getColor())] &= ~squareBit;
+                colorBitboards[old.getColor().ordinal()] &= ~squareBit;
+                occupied &= ~squareBit;
+                zobristKey ^= Zobrist.piece(old.getType(), old.getColor(), square);
+                removeFromCounters(old, square);
+            }
+
+            // Thêm quân mới vào bitboard
+            squares[square] = piece;
+            if (piece != null) {
+                pieceBitboards[Bitboards.pieceIndex(piece.getType(), piece.getColor())] |= squareBit;
+                colorBitboards[piece.getColor().ordinal()] |= squareBit;
+                occupied |= squareBit;
+                zobristKey ^= Zobrist.piece(piece.getType(), piece.getColor(), square);
+                addToCounters(piece, square);
+            }
+        }
+    }
+
+    private void addToCounters(Piece piece, int square) {
+        int side = piece.getColor().ordinal();
+        pieceListIndex[square] = pieceListSizes[side];
+        pieceLists[side][pieceListSizes[side]++] = square;
+        material[side] += piece.getType().getValue();
+        phase += piece.getType().getPhase();
+        midgameSquareScore[side] += PieceSquareTables.midgame(piece.getType(), piece.getColor(), square);
+        endgameSquareScore[side] += PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        if (piece.getType() == Piece.Type.KING) {
+            kingSquares[side] = square;
+        }
+    }
+
+    private void removeFromCounters(Piece piece, int square) {
+        int side = piece.getColor().ordinal();
+        // Đưa ô cuối danh sách vào chỗ trống
+        int last = pieceLists[side][--pieceListSizes[side]];
+        pieceLists[side][pieceListIndex[square]] = last;
+        pieceListIndex[last] = pieceListIndex[square];
+        material[side] -= piece.getType().getValue();
+        phase -= piece.getType().getPhase();
+        midgameSquareScore[side] -= PieceSquareTables.midgame(piece.getType(), piece.getColor(), square);
+        endgameSquareScore[side] -= PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        if (piece.getType() == Piece.Type.KING && kingSquares[side] == square) {
+            // Bàn cờ tự dựng có thể có nhiều vua: lấy vua còn lại nếu có
+            long kings = pieceBitboards[Bitboards.pieceIndex(Piece.Type.KING, piece.getColor())];
+            kingSquares[side] = kings != 0 ? Long.numberOfTrailingZeros(kings) : -1;
         }
     }
 
@@ -112,97 +298,510 @@ public class Board {
      * @param move Nước đi cần thực hiện
      */
     public void movePiece(Move move) {
-        Piece piece = getPiece(move.getFromRow(), move.getFromCol());
+        if (getPiece(move.getFromRow(), move.getFromCol()) == null) {
+            return;
+        }
+        // Lưu quân bị ăn (nếu có). Với en passant ô đích trống,
+        // quân bị ăn là tốt đứng cạnh nên undoMove mới trả lại được
+        Piece captured = move.isEnPassant()
+            ? getPiece(move.getFromRow(), move.getToCol())
+            : getPiece(move.getToRow(), move.getToCol());
+        move.setPieceCaptured(captured);
+        movePiece(PackedMove.fromMove(move));
+    }
 
-        if (piece != null) {
-            // Lưu quân bị ăn (nếu có)
-            Piece captured = getPiece(move.getToRow(), move.getToCol());
-            move.setPieceCaptured(captured);
+    /**
+     * Thực hiện một nước đi đã mã hoá (PackedMove), không tạo đối tượng nào.
+     * Dùng cho tìm kiếm và perft; kết quả giống hệt movePiece(Move).
+     *
+     * @param move Nước đi dạng int
+     */
+    public void movePiece(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int fromRow = Bitboards.row(from);
+        int fromCol = Bitboards.col(from);
+        int toRow = Bitboards.row(to);
+        int toCol = Bitboards.col(to);
+        Piece piece = squares[from];
+        if (piece == null) {
+            return;
+        }
+        Piece captured = PackedMove.isEnPassant(move) ? squares[Bitboards.square(fromRow, toCol)] : squares[to];
+        boolean resetsClock = captured != null || piece.getType() == Piece.Type.PAWN;
+        pushHistory(move, captured);
 
-            // Di chuyển quân từ vị trí cũ sang vị trí mới
-            setPiece(move.getToRow(), move.getToCol(), piece);
-            setPiece(move.getFromRow(), move.getFromCol(), null);
+        // Di chuyển quân từ vị trí cũ sang vị trí mới
+        setPiece(toRow, toCol, piece);
+        setPiece(fromRow, fromCol, null);
 
-            // Đánh dấu quân đã di chuyển (quan trọng cho nhập thành)
-            piece.setMoved(true);
+        // Xử lý en passant: ăn tốt qua đường (tốt bị ăn đứng cùng hàng ô đi)
+        if (PackedMove.isEnPassant(move)) {
+            setPiece(fromRow, toCol, null);
+        }
 
-            // Xử lý en passant: ăn tốt qua đường
-            if (move.isEnPassant()) {
-                int captureRow = move.getFromRow(); // Hàng của tốt bị ăn
-                setPiece(captureRow, move.getToCol(), null);
-            }
+        // Xử lý nhập thành: di chuyển cả vua và xe
+        if (PackedMove.isCastling(move)) {
+            // Xác định vị trí xe ban đầu và vị trí mới (bên cạnh vua)
+            int rookCol = toCol > fromCol ? 7 : 0;
+            int newRookCol = toCol > fromCol ? toCol - 1 : toCol + 1;
 
-            // Xử lý nhập thành: di chuyển cả vua và xe
-            if (move.isCastling()) {
-                // Xác định vị trí xe ban đầu
-                int rookCol = move.getToCol() > move.getFromCol() ? 7 : 0;
-                // Vị trí mới của xe (bên cạnh vua)
-                int newRookCol = move.getToCol() > move.getFromCol() 
-                    ? move.getToCol() - 1 
-                    : move.getToCol() + 1;
-
-                Piece rook = getPiece(move.getFromRow(), rookCol);
-                setPiece(move.getFromRow(), newRookCol, rook);
-                setPiece(move.getFromRow(), rookCol, null);
-                if (rook != null) {
-                    rook.setMoved(true);
-                }
-            }
+            setPiece(fromRow, newRookCol, getPiece(fromRow, rookCol));
+            setPiece(fromRow, rookCol, null);
+        }
 
-            // Xử lý phong cấp: tốt đến cuối bàn cờ thành hậu
-            if (move.isPromotion()) {
-                piece.setType(Piece.Type.QUEEN); // Mặc định phong hậu
-            }
+        // Xử lý phong cấp: tốt đến cuối bàn cờ thành quân được chọn
+        if (PackedMove.isPromotion(move)) {
+            setPiece(toRow, toCol, Piece.of(PackedMove.promotionType(move), piece.getColor()));
+        }
 
-            // Lưu nước đi cuối cùng (cần cho en passant)
-            lastMove = move;
+        // Cập nhật quyền nhập thành, ô en passant và lượt đi (kèm khoá Zobrist)
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+        if (piece.getType() == Piece.Type.PAWN && Math.abs(toRow - fromRow) == 2) {
+            setEnPassantSquare((from + to) / 2, piece.getColor());
+        } else {
+            setEnPassant(-1, -1);
+        }
+        setSideToMove(opposite(piece.getColor()));
+        halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+        if (piece.getColor() == Piece.Color.BLACK) {
+            fullmoveNumber++;
         }
+
+        // Lưu nước đi cuối cùng
+        lastMove = move;
     }
 
     /**
      * Hoàn tác một nước đi (undo move).
-     * Khôi phục lại trạng thái bàn cờ trước nước đi.
+     * {@code move} phải đúng là nước cuối cùng đã đi trên bàn cờ này.
      * 
      * @param move Nước đi cần hoàn tác
+     * @throws IllegalStateException nếu {@code move} không phải nước cuối cùng (bàn cờ không đổi)
      */
     public void undoMove(Move move) {
-        Piece piece = getPiece(move.getToRow(), move.getToCol());
-
-        if (piece != null) {
-            // Khôi phục vị trí quân cờ
-            setPiece(move.getFromRow(), move.getFromCol(), piece);
-            setPiece(move.getToRow(), move.getToCol(), move.getPieceCaptured());
-
-            // Xử lý hoàn tác en passant
-            if (move.isEnPassant()) {
-                int captureRow = move.getFromRow();
-                setPiece(captureRow, move.getToCol(), move.getPieceCaptured());
-                setPiece(move.getToRow(), move.getToCol(), null);
-            }
+        if (historySize == 0
+                || (historyMove[historySize - 1] & PackedMove.KEY_MASK) != (PackedMove.fromMove(move) & PackedMove.KEY_MASK)) {
+            throw new IllegalStateException("Nước cần hoàn tác không phải nước cuối cùng: " + move);
+        }
+        undoMove();
+    }
+
+    /**
+     * Hoàn tác nước đi cuối cùng (unmake), khôi phục chính xác thế cờ trước đó:
+     * vị trí quân, quân bị ăn, quân phong cấp trở lại tốt, quyền
+     * nhập thành, en passant, đồng hồ 50 nước, lượt đi, khoá Zobrist và lastMove.
+     * Không tạo đối tượng nào.
+     */
+    public void undoMove() {
+        if (historySize == 0) {
+            return;
+        }
+        int top = --historySize;
+        int move = historyMove[top];
+        int state = historyState[top];
+        Piece captured = historyCaptured[top];
+        historyCaptured[top] = null;
 
-            // Xử lý hoàn tác nhập thành
-            if (move.isCastling()) {
-                int rookCol = move.getToCol() > move.getFromCol() ? 7 : 0;
-                int newRookCol = move.getToCol() > move.getFromCol() 
-                    ? move.getToCol() - 1 
-                    : move.getToCol() + 1;
+        int fromRow = Bitboards.row(PackedMove.from(move));
+        int fromCol = Bitboards.col(PackedMove.from(move));
+        int toRow = Bitboards.row(PackedMove.to(move));
+        int toCol = Bitboards.col(PackedMove.to(move));
+        Piece piece = getPiece(toRow, toCol);
 
-                Piece rook = getPiece(move.getFromRow(), newRookCol);
-                setPiece(move.getFromRow(), rookCol, rook);
-                setPiece(move.getFromRow(), newRookCol, null);
-            }
+        // Quân phong cấp trở lại thành tốt
+        if (PackedMove.isPromotion(move)) {
+            piece = Piece.of(Piece.Type.PAWN, piece.getColor());
+        }
+
+        // Khôi phục vị trí quân đi và quân bị ăn
+        setPiece(fromRow, fromCol, piece);
+        if (PackedMove.isEnPassant(move)) {
+            setPiece(toRow, toCol, null);
+            setPiece(fromRow, toCol, captured);
+        } else {
+            setPiece(toRow, toCol, captured);
+        }
+
+        // Đưa xe nhập thành về góc
+        if (PackedMove.isCastling(move)) {
+            int rookCol = toCol > fromCol ? 7 : 0;
+            int newRookCol = toCol > fromCol ? toCol - 1 : toCol + 1;
+            setPiece(fromRow, rookCol, getPiece(fromRow, newRookCol));
+            setPiece(fromRow, newRookCol, null);
+        }
+
+        // Trạng thái không suy ra được lấy lại nguyên từ ngăn xếp
+        castlingRights = state & Zobrist.ALL_CASTLING;
+        enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        enPassantFile = ((state >>> 11) & 0xF) - 1;
+        halfmoveClock = state >>> STATE_HALFMOVE_SHIFT;
+        sideToMove = piece.getColor();
+        if (sideToMove == Piece.Color.BLACK) {
+            fullmoveNumber--;
+        }
+        zobristKey = historyKey[top];
+        lastMove = top > 0 ? historyMove[top - 1] : PackedMove.NONE;
+    }
+
+    // ===================== POSITION STATE =====================
+
+    private void pushHistory(int move, Piece captured) {
+        if (historySize == historyMove.length) {
+            int newLength = historySize * 2;
+            historyMove = Arrays.copyOf(historyMove, newLength);
+            historyState = Arrays.copyOf(historyState, newLength);
+            historyKey = Arrays.copyOf(historyKey, newLength);
+            historyCaptured = Arrays.copyOf(historyCaptured, newLength);
+        }
+        historyMove[historySize] = move;
+        historyState[historySize] = packState();
+        historyKey[historySize] = zobristKey;
+        historyCaptured[historySize] = captured;
+        historySize++;
+    }
+
+    private int packState() {
+        return castlingRights
+                | ((enPassantSquare + 1) << 4)
+                | ((enPassantFile + 1) << 11)
+                | (Math.min(halfmoveClock, 0xFFFF) << STATE_HALFMOVE_SHIFT);
+    }
+
+    private void setCastlingRights(int rights) {
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+    }
+
+    private void setEnPassant(int square, int file) {
+        zobristKey ^= Zobrist.enPassant(enPassantFile) ^ Zobrist.enPassant(file);
+        enPassantSquare = square;
+        enPassantFile = file;
+    }
+
+    /**
+     * Đặt ô en passant sau khi tốt {@code pawnColor} tiến 2 ô qua ô {@code passed}.
+     * Chỉ đưa cột en passant vào khoá khi có tốt địch thật sự ăn được.
+     */
+    private void setEnPassantSquare(int passed, Piece.Color pawnColor) {
+        boolean capturable = (Bitboards.pawnAttacks(pawnColor, passed)
+                & getPieces(Piece.Type.PAWN, opposite(pawnColor))) != 0;
+        setEnPassant(passed, capturable ? Bitboards.col(passed) : -1);
+    }
+
+    private void setSideToMove(Piece.Color color) {
+        if (color != sideToMove) {
+            zobristKey ^= Zobrist.whiteToMove();
+            sideToMove = color;
         }
     }
 
+    private static Piece.Color opposite(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+
     // ===================== GETTERS =====================
     
     /**
      * Lấy nước đi cuối cùng.
+     * Move được tạo mới từ nước đã mã hoá, quân đi lấy tại ô đến.
      * 
      * @return Nước đi cuối cùng, hoặc null nếu chưa có nước đi nào
      */
     public Move getLastMove() {
-        return lastMove;
+        return lastMove == PackedMove.NONE ? null : PackedMove.toMove(lastMove, this);
+    }
+
+    /**
+     * Lấy khoá Zobrist 64-bit của thế cờ hiện tại.
+     * Hai thế cờ giống nhau (quân, quyền nhập thành, en passant, lượt đi) có cùng khoá.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Bên đến lượt đi (đổi sau mỗi movePiece / undoMove).
+     */
+    public Piece.Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Các bit quyền nhập thành còn lại (Zobrist.WHITE_KINGSIDE, ...).
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Ô mà tốt vừa đi qua khi tiến 2 ô (sq = row * 8 + col), -1 nếu không có.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Số nửa nước kể từ lần ăn quân hoặc đi tốt gần nhất (luật 50 nước).
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Số nước đầy đủ (bắt đầu từ 1, tăng sau mỗi nước của Đen).
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Số nước đã đi trên bàn cờ này mà undoMove còn hoàn tác được.
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Lấy bitboard của một loại quân theo màu.
+     * 
+     * @param type  Loại quân
+     * @param color Màu quân
+     * @return Bitboard, bit sq = row * 8 + col bật nếu có quân tại đó
+     */
+    public long getPieces(Piece.Type type, Piece.Color color) {
+        return pieceBitboards[Bitboards.pieceIndex(type, color)];
+    }
+
+    /**
+     * Lấy bitboard tất cả quân của một màu.
+     */
+    public long getPieces(Piece.Color color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * Lấy bitboard tất cả các ô đang có quân.
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Ô của vua (sq = row * 8 + col), -1 nếu màu đó không còn vua.
+     */
+    public int getKingSquare(Piece.Color color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Số quân (kể cả vua) của một màu, dùng cùng {@link #getPieceSquare}.
+     */
+    public int getPieceCount(Piece.Color color) {
+        return pieceListSizes[color.ordinal()];
+    }
+
+    /**
+     * Ô của quân thứ {@code index} trong danh sách quân của một màu.
+     * Thứ tự không cố định, thay đổi khi có quân bị gỡ.
+     */
+    public int getPieceSquare(Piece.Color color, int index) {
+        return pieceLists[color.ordinal()][index];
+    }
+
+    /**
+     * Tổng giá trị vật chất (centipawn, không tính vua) của một màu.
+     */
+    public int getMaterial(Piece.Color color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * Giai đoạn ván cờ: tổng trọng số quân lớn/nhẹ còn lại của cả hai bên
+     * (24 khi đủ quân, 0 khi chỉ còn vua và tốt). Có thể vượt 24 sau phong cấp.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Tổng điểm theo ô trung cuộc (PieceSquareTables) của các quân một màu.
+     */
+    public int getMidgameSquareScore(Piece.Color color) {
+        return midgameSquareScore[color.ordinal()];
+    }
+
+    /**
+     * Tổng điểm theo ô tàn cuộc (PieceSquareTables) của các quân một màu.
+     */
+    public int getEndgameSquareScore(Piece.Color color) {
+        return endgameSquareScore[color.ordinal()];
+    }
+
+    // ===================== ATTACKS =====================
+
+    /**
+     * Ô {@code square} có bị quân màu {@code byColor} tấn công không.
+     * Nhìn ngược từ ô đó: bước mã, đường chéo tốt, ô quanh vua, rồi các tia
+     * trượt dừng ở quân chặn đầu tiên (tra bảng magic); trả về ngay khi gặp
+     * kẻ tấn công đầu tiên. Dùng cho kiểm tra chiếu, nhập thành qua ô bị
+     * chiếu và đánh giá an toàn vua.
+     *
+     * @param square  Ô cần kiểm tra (sq = row * 8 + col)
+     * @param byColor Màu bên tấn công
+     */
+    public boolean isSquareAttacked(int square, Piece.Color byColor) {
+        return isSquareAttacked(square, byColor, occupied);
+    }
+
+    /**
+     * Như {@link #isSquareAttacked(int, Piece.Color)} nhưng quân trượt dùng
+     * {@code occupancy} cho trước (ví dụ bỏ vua khỏi ô cũ khi xét ô vua đi qua).
+     */
+    public boolean isSquareAttacked(int square, Piece.Color byColor, long occupancy) {
+        int attacker = byColor.ordinal() * 6;
+        Piece.Color defender = opposite(byColor);
+        if ((Bitboards.pawnAttacks(defender, square) & pieceBitboards[attacker + Piece.Type.PAWN.ordinal()]) != 0
+                || (Bitboards.knightAttacks(square) & pieceBitboards[attacker + Piece.Type.KNIGHT.ordinal()]) != 0
+                || (Bitboards.kingAttacks(square) & pieceBitboards[attacker + Piece.Type.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieceBitboards[attacker + Piece.Type.QUEEN.ordinal()];
+        long diagonal = pieceBitboards[attacker + Piece.Type.BISHOP.ordinal()] | queens;
+        long straight = pieceBitboards[attacker + Piece.Type.ROOK.ordinal()] | queens;
+        // Chỉ tra tia trượt khi bên tấn công còn quân trượt hướng đó
+        return (diagonal != 0 && (Bitboards.bishopAttacks(square, occupancy) & diagonal) != 0)
+                || (straight != 0 && (Bitboards.rookAttacks(square, occupancy) & straight) != 0);
+    }
+
+    // ===================== FEN =====================
+
+    private static final String FEN_PIECES = "kqrbnp";
+
+    /**
+     * Tạo bàn cờ từ chuỗi FEN (Forsyth-Edwards Notation).
+     * Quyền nhập thành chỉ được giữ khi vua và xe tương ứng đứng đúng ô ban đầu.
+     * Hai trường đếm nước cuối (halfmove, fullmove) là tuỳ chọn, mặc định "0 1".
+     *
+     * @param fen Chuỗi FEN, ví dụ "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+     * @return Bàn cờ tương ứng
+     * @throws IllegalArgumentException nếu chuỗi FEN không hợp lệ
+     */
+    public static Board fromFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        String[] ranks = parts[0].split("/");
+        if (parts.length < 4 || ranks.length != 8) {
+            throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+        }
+
+        Board result = new Board(new Piece[64]);
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int index = FEN_PIECES.indexOf(Character.toLowerCase(c));
+                if (index < 0 || col > 7) {
+                    throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+                }
+                Piece.Color color = Character.isUpperCase(c) ? Piece.Color.WHITE : Piece.Color.BLACK;
+                result.setPiece(row, col++, Piece.of(Piece.Type.values()[index], color));
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+            }
+        }
+
+        result.setSideToMove("b".equals(parts[1]) ? Piece.Color.BLACK : Piece.Color.WHITE);
+
+        int rights = 0;
+        for (char c : parts[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> rights |= result.castlingRightIfPlaced(7, 7, Zobrist.WHITE_KINGSIDE);
+                case 'Q' -> rights |= result.castlingRightIfPlaced(7, 0, Zobrist.WHITE_QUEENSIDE);
+                case 'k' -> rights |= result.castlingRightIfPlaced(0, 7, Zobrist.BLACK_KINGSIDE);
+                case 'q' -> rights |= result.castlingRightIfPlaced(0, 0, Zobrist.BLACK_QUEENSIDE);
+                case '-' -> { }
+                default -> throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+            }
+        }
+        result.setCastlingRights(rights);
+
+        if (!"-".equals(parts[3])) {
+            int col = parts[3].charAt(0) - 'a';
+            int row = 8 - (parts[3].charAt(1) - '0');
+            if (!result.isValidPosition(row, col)) {
+                throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+            }
+            result.setEnPassantSquare(Bitboards.square(row, col), opposite(result.sideToMove));
+        }
+
+        try {
+            result.halfmoveClock = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+            result.fullmoveNumber = parts.length > 5 ? Integer.parseInt(parts[5]) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("FEN không hợp lệ: " + fen);
+        }
+        return result;
+    }
+
+    /**
+     * @return Bit quyền nhập thành {@code right} nếu vua và xe đúng vị trí ban đầu, 0 nếu không
+     */
+    private int castlingRightIfPlaced(int row, int rookCol, int right) {
+        Piece king = getPiece(row, 4);
+        Piece rook = getPiece(row, rookCol);
+        Piece.Color color = row == 7 ? Piece.Color.WHITE : Piece.Color.BLACK;
+        if (king == null || king.getType() != Piece.Type.KING || king.getColor() != color
+                || rook == null || rook.getType() != Piece.Type.ROOK || rook.getColor() != color) {
+            return 0;
+        }
+        return right;
+    }
+
+    /**
+     * Xuất thế cờ hiện tại ra chuỗi FEN.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = squares[Bitboards.square(row, col)];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = FEN_PIECES.charAt(piece.getType().ordinal());
+                fen.append(piece.getColor() == Piece.Color.WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(sideToMove == Piece.Color.WHITE ? " w " : " b ");
+        String castling = ((castlingRights & Zobrist.WHITE_KINGSIDE) != 0 ? "K" : "")
+                + ((castlingRights & Zobrist.WHITE_QUEENSIDE) != 0 ? "Q" : "")
+                + ((castlingRights & Zobrist.BLACK_KINGSIDE) != 0 ? "k" : "")
+                + ((castlingRights & Zobrist.BLACK_QUEENSIDE) != 0 ? "q" : "");
+        fen.append(castling.isEmpty() ? "-" : castling);
+        fen.append(' ');
+        if (enPassantSquare >= 0) {
+            fen.append((char) ('a' + Bitboards.col(enPassantSquare))).append(8 - Bitboards.row(enPassantSquare));
+        } else {
+            fen.append('-');
+        }
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
     }
 
     // ===================== UTILITY METHODS =====================
@@ -210,29 +809,11 @@ public class Board {
     /**
      * Tạo bản sao của bàn cờ hiện tại.
      * Dùng cho việc kiểm tra nước đi mà không ảnh hưởng đến bàn cờ gốc.
+     * Quân cờ là đối tượng bất biến dùng chung nên chỉ sao chép mảng, không tạo Piece mới.
      * 
      * @return Bản sao của bàn cờ
      */
     public Board copy() {
-        Board newBoard = new Board();
-        
-        // Sao chép tất cả các quân cờ
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = getPiece(row, col);
-                if (piece != null) {
-                    Piece newPiece = new Piece(piece.getType(), piece.getColor());
-                    newPiece.setMoved(piece.hasMoved());
-                    newBoard.setPiece(row, col, newPiece);
-                } else {
-                    newBoard.setPiece(row, col, null);
-                }
-            }
-        }
-        
-        // Sao chép nước đi cuối cùng
-        newBoard.lastMove = this.lastMove;
-        
-        return newBoard;
+        return new Board(this);
     }
 }
@@ -20,6 +20,7 @@ public class Move {
     private boolean isEnPassant;   // Có phải nước đi en passant không
     private boolean isCastling;    // Có phải nước đi nhập thành không
     private boolean isPromotion;    // Có phải nước đi phong cấp không
+    private Piece.Type promotionType = Piece.Type.QUEEN; // Quân được phong (mặc định hậu)
 
     // ===================== CONSTRUCTOR =====================
     
@@ -98,6 +99,14 @@ public class Move {
         this.isPromotion = promotion;
     }
 
+    public Piece.Type getPromotionType() {
+        return promotionType;
+    }
+
+    public void setPromotionType(Piece.Type promotionType) {
+        this.promotionType = promotionType;
+    }
+
     // ===================== UTILITY METHODS =====================
     
     @Override
@@ -0,0 +1,58 @@
+package com.chess_client.models;
+
+/**
+ * Danh sách nước đi dạng int (xem PackedMove) dùng lại được, không cấp phát
+ * khi thêm nước. Mỗi tầng tìm kiếm / perft giữ một MoveList riêng và gọi
+ * {@link #clear()} trước khi sinh nước mới.
+ */
+public final class MoveList {
+
+    /** Đủ cho mọi thế cờ hợp lệ (tối đa đã biết là 218 nước) */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public void swap(int i, int j) {
+        int tmp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = tmp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return Vị trí của nước đi (so theo PackedMove.KEY_MASK), -1 nếu không có
+     */
+    public int indexOf(int move) {
+        int key = move & PackedMove.KEY_MASK;
+        for (int i = 0; i < size; i++) {
+            if ((moves[i] & PackedMove.KEY_MASK) == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
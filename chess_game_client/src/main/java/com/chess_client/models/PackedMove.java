@@ -0,0 +1,149 @@
+package com.chess_client.models;
+
+/**
+ * Mã hoá một nước đi vào một số int để bộ sinh nước và bộ tìm kiếm
+ * không phải tạo đối tượng Move cho mỗi nước.
+ *
+ * <pre>
+ *   bit  0-5  : ô đi   (sq = row * 8 + col)
+ *   bit  6-11 : ô đến
+ *   bit 12-14 : quân được phong (ordinal của Piece.Type: 1 = hậu ... 4 = mã), 0 nếu không phong
+ *   bit 15    : ăn quân
+ *   bit 16    : en passant
+ *   bit 17    : nhập thành
+ *   bit 18    : tốt đi 2 ô
+ * </pre>
+ *
+ * Move vẫn được giữ cho UI và mạng; {@link #toMove} / {@link #fromMove} chuyển đổi qua lại.
+ */
+public final class PackedMove {
+
+    // ===================== FLAGS =====================
+
+    public static final int NONE = 0;   // Ô đi trùng ô đến nên không phải nước đi thật
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLING = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    /** Phần xác định nước đi (ô đi, ô đến, quân phong), bỏ các cờ phụ */
+    public static final int KEY_MASK = 0x7FFF;
+
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+
+    private PackedMove() {
+    }
+
+    // ===================== ENCODING =====================
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    /**
+     * Nước phong cấp thành {@code type} (hậu, xe, tượng hoặc mã).
+     */
+    public static int promotion(int from, int to, Piece.Type type, int flags) {
+        return from | (to << 6) | (type.ordinal() << 12) | flags;
+    }
+
+    // ===================== DECODING =====================
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 0x7000) != 0;
+    }
+
+    /**
+     * @return Quân được phong, hoặc null nếu không phải nước phong cấp
+     */
+    public static Piece.Type promotionType(int move) {
+        int type = (move >>> 12) & 0x7;
+        return type == 0 ? null : TYPES[type];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    // ===================== ADAPTERS =====================
+
+    /**
+     * Tạo Move cho UI/mạng từ nước đã mã hoá.
+     *
+     * @param board Bàn cờ chứa quân đi tại ô đi (hoặc ô đến, nếu nước đã được đi)
+     */
+    public static Move toMove(int move, Board board) {
+        int from = from(move);
+        int to = to(move);
+        Piece piece = board.getPiece(Bitboards.row(from), Bitboards.col(from));
+        if (piece == null) {
+            piece = board.getPiece(Bitboards.row(to), Bitboards.col(to));
+        }
+        Move result = new Move(Bitboards.row(from), Bitboards.col(from), Bitboards.row(to), Bitboards.col(to), piece);
+        result.setCastling(isCastling(move));
+        result.setEnPassant(isEnPassant(move));
+        if (isEnPassant(move)) {
+            result.setPieceCaptured(board.getPiece(Bitboards.row(from), Bitboards.col(to)));
+        }
+        if (isPromotion(move)) {
+            result.setPromotion(true);
+            result.setPromotionType(promotionType(move));
+        }
+        return result;
+    }
+
+    /**
+     * Mã hoá một Move (cờ ăn quân lấy theo pieceCaptured nếu đã có).
+     */
+    public static int fromMove(Move move) {
+        int from = Bitboards.square(move.getFromRow(), move.getFromCol());
+        int to = Bitboards.square(move.getToRow(), move.getToCol());
+        int flags = (move.isCastling() ? CASTLING : 0)
+                | (move.isEnPassant() ? EN_PASSANT | CAPTURE : 0)
+                | (move.getPieceCaptured() != null ? CAPTURE : 0);
+        if (move.isPromotion()) {
+            return promotion(from, to, move.getPromotionType(), flags);
+        }
+        return of(from, to, flags);
+    }
+
+    /**
+     * Ký hiệu UCI, ví dụ "e2e4", "e7e8q".
+     */
+    public static String toUci(int move) {
+        int from = from(move);
+        int to = to(move);
+        StringBuilder uci = new StringBuilder(5)
+                .append((char) ('a' + Bitboards.col(from))).append(8 - Bitboards.row(from))
+                .append((char) ('a' + Bitboards.col(to))).append(8 - Bitboards.row(to));
+        if (isPromotion(move)) {
+            uci.append("kqrbnp".charAt(promotionType(move).ordinal()));
+        }
+        return uci.toString();
+    }
+}
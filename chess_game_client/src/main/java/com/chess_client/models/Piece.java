@@ -3,8 +3,12 @@ package com.chess_client.models;
 /**
  * Đại diện cho một quân cờ trên bàn cờ.
  * Mỗi quân cờ có loại (Type) và màu (Color).
+ *
+ * Piece là bất biến và chỉ có 12 đối tượng dùng chung (flyweight), lấy qua
+ * {@link #of(Type, Color)}. Trạng thái phụ thuộc thế cờ (quyền nhập thành,
+ * quân phong cấp) do Board giữ, nên sao chép bàn cờ chỉ cần sao chép mảng.
  */
-public class Piece {
+public final class Piece {
     
     // ===================== ENUMS =====================
     
@@ -12,12 +16,28 @@ public class Piece {
      * Các loại quân cờ trong cờ vua.
      */
     public enum Type {
-        KING,    // Vua
-        QUEEN,   // Hậu
-        ROOK,    // Xe
-        BISHOP,  // Tượng
-        KNIGHT,  // Mã
-        PAWN     // Tốt
+        KING(0, 0),       // Vua
+        QUEEN(900, 4),    // Hậu
+        ROOK(500, 2),     // Xe
+        BISHOP(330, 1),   // Tượng
+        KNIGHT(320, 1),   // Mã
+        PAWN(100, 0);     // Tốt
+
+        private final int value;    // Giá trị vật chất (centipawn), vua không tính
+        private final int phase;    // Trọng số giai đoạn ván cờ (đủ quân = 24)
+
+        Type(int value, int phase) {
+            this.value = value;
+            this.phase = phase;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public int getPhase() {
+            return phase;
+        }
     }
 
     /**
@@ -30,46 +50,48 @@ public class Piece {
 
     // ===================== FIELDS =====================
     
-    private Type type;              // Loại quân cờ
-    private Color color;            // Màu quân cờ
-    private boolean hasMoved;       // Đánh dấu đã di chuyển (dùng cho nhập thành và en passant)
+    private final Type type;        // Loại quân cờ
+    private final Color color;      // Màu quân cờ
+
+    // 12 quân dùng chung, chỉ số = màu * 6 + loại (giống Bitboards.pieceIndex)
+    private static final Piece[] PIECES = new Piece[12];
+
+    static {
+        for (Color color : Color.values()) {
+            for (Type type : Type.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new Piece(type, color);
+            }
+        }
+    }
 
     // ===================== CONSTRUCTOR =====================
     
+    private Piece(Type type, Color color) {
+        this.type = type;
+        this.color = color;
+    }
+
     /**
-     * Tạo một quân cờ mới.
+     * Lấy quân cờ dùng chung theo loại và màu.
      * 
      * @param type  Loại quân cờ
      * @param color Màu quân cờ
+     * @return Đối tượng duy nhất cho cặp (loại, màu)
      */
-    public Piece(Type type, Color color) {
-        this.type = type;
-        this.color = color;
-        this.hasMoved = false;
+    public static Piece of(Type type, Color color) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
     }
 
-    // ===================== GETTERS & SETTERS =====================
+    // ===================== GETTERS =====================
     
     public Type getType() {
         return type;
     }
 
-    public void setType(Type type) {
-        this.type = type;
-    }
-
     public Color getColor() {
         return color;
     }
 
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-
-    public void setMoved(boolean moved) {
-        this.hasMoved = moved;
-    }
-
     // ===================== UTILITY METHODS =====================
     
     /**
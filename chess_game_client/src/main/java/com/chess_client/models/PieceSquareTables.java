@@ -0,0 +1,146 @@
+package com.chess_client.models;
+
+/**
+ * Bảng điểm theo ô (piece-square table) cho trung cuộc và tàn cuộc.
+ *
+ * Mỗi bảng viết theo góc nhìn quân Trắng, hàng đầu là hàng 8 (khớp
+ * sq = row * 8 + col với row 0 ở phía Đen); quân Đen dùng ô đối xứng
+ * {@code sq ^ 56}. Điểm là centipawn có lợi cho chính quân đó.
+ * Board cộng dồn các giá trị này trong setPiece giống khoá Zobrist, nên
+ * bộ đánh giá đọc được tổng PST của mỗi bên mà không phải duyệt 64 ô.
+ */
+public final class PieceSquareTables {
+
+    // ===================== TABLES (góc nhìn Trắng) =====================
+
+    private static final int[] PAWN_MG = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+        50,  50,  50,  50,  50,  50,  50,  50,
+        10,  10,  20,  30,  30,  20,  10,  10,
+         5,   5,  10,  25,  25,  10,   5,   5,
+         0,   0,   0,  20,  20,   0,   0,   0,
+         5,  -5, -10,   0,   0, -10,  -5,   5,
+         5,  10,  10, -20, -20,  10,  10,   5,
+         0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] PAWN_EG = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+        80,  80,  80,  80,  80,  80,  80,  80,
+        50,  50,  50,  50,  50,  50,  50,  50,
+        30,  30,  30,  30,  30,  30,  30,  30,
+        20,  20,  20,  20,  20,  20,  20,  20,
+        10,  10,  10,  10,  10,  10,  10,  10,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT = {
+       -50, -40, -30, -30, -30, -30, -40, -50,
+       -40, -20,   0,   0,   0,   0, -20, -40,
+       -30,   0,  10,  15,  15,  10,   0, -30,
+       -30,   5,  15,  20,  20,  15,   5, -30,
+       -30,   0,  15,  20,  20,  15,   0, -30,
+       -30,   5,  10,  15,  15,  10,   5, -30,
+       -40, -20,   0,   5,   5,   0, -20, -40,
+       -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP = {
+       -20, -10, -10, -10, -10, -10, -10, -20,
+       -10,   0,   0,   0,   0,   0,   0, -10,
+       -10,   0,   5,  10,  10,   5,   0, -10,
+       -10,   5,   5,  10,  10,   5,   5, -10,
+       -10,   0,  10,  10,  10,  10,   0, -10,
+       -10,  10,  10,  10,  10,  10,  10, -10,
+       -10,   5,   0,   0,   0,   0,   5, -10,
+       -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_MG = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+         5,  10,  10,  10,  10,  10,  10,   5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+         0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] ROOK_EG = {
+         5,   5,   5,   5,   5,   5,   5,   5,
+        10,  10,  10,  10,  10,  10,  10,  10,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0,
+         0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] QUEEN = {
+       -20, -10, -10,  -5,  -5, -10, -10, -20,
+       -10,   0,   0,   0,   0,   0,   0, -10,
+       -10,   0,   5,   5,   5,   5,   0, -10,
+        -5,   0,   5,   5,   5,   5,   0,  -5,
+         0,   0,   5,   5,   5,   5,   0,  -5,
+       -10,   5,   5,   5,   5,   5,   0, -10,
+       -10,   0,   5,   0,   0,   0,   0, -10,
+       -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MG = {
+       -30, -40, -40, -50, -50, -40, -40, -30,
+       -30, -40, -40, -50, -50, -40, -40, -30,
+       -30, -40, -40, -50, -50, -40, -40, -30,
+       -30, -40, -40, -50, -50, -40, -40, -30,
+       -20, -30, -30, -40, -40, -30, -30, -20,
+       -10, -20, -20, -20, -20, -20, -20, -10,
+        20,  20,   0,   0,   0,   0,  20,  20,
+        20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_EG = {
+       -50, -40, -30, -20, -20, -30, -40, -50,
+       -30, -20, -10,   0,   0, -10, -20, -30,
+       -30, -10,  20,  30,  30,  20, -10, -30,
+       -30, -10,  30,  40,  40,  30, -10, -30,
+       -30, -10,  30,  40,  40,  30, -10, -30,
+       -30, -10,  20,  30,  30,  20, -10, -30,
+       -30, -30,   0,   0,   0,   0, -30, -30,
+       -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // Theo thứ tự Piece.Type: KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN
+    private static final int[][] MIDGAME_BY_TYPE = { KING_MG, QUEEN, ROOK_MG, BISHOP, KNIGHT, PAWN_MG };
+    private static final int[][] ENDGAME_BY_TYPE = { KING_EG, QUEEN, ROOK_EG, BISHOP, KNIGHT, PAWN_EG };
+
+    // Bảng đã tra sẵn theo (màu, loại), chỉ số = Bitboards.pieceIndex
+    private static final int[][] MIDGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        for (Piece.Color color : Piece.Color.values()) {
+            for (Piece.Type type : Piece.Type.values()) {
+                int index = Bitboards.pieceIndex(type, color);
+                for (int sq = 0; sq < 64; sq++) {
+                    int whiteSquare = color == Piece.Color.WHITE ? sq : sq ^ 56;
+                    MIDGAME[index][sq] = MIDGAME_BY_TYPE[type.ordinal()][whiteSquare];
+                    ENDGAME[index][sq] = ENDGAME_BY_TYPE[type.ordinal()][whiteSquare];
+                }
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    public static int midgame(Piece.Type type, Piece.Color color, int square) {
+        return MIDGAME[Bitboards.pieceIndex(type, color)][square];
+    }
+
+    public static int endgame(Piece.Type type, Piece.Color color, int square) {
+        return ENDGAME[Bitboards.pieceIndex(type, color)][square];
+    }
+}
@@ -2,69 +2,482 @@ package com.chess_client.services;
 
 import com.chess_client.models.Board;
 import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
 import com.chess_client.models.Piece;
-import com.chess_client.services.GameLogic;
+import com.chess_client.services.engine.CpuGovernor;
+import com.chess_client.services.engine.DifficultyLevel;
+import com.chess_client.services.engine.EngineProcess;
+import com.chess_client.services.engine.LazySmpSearch;
+import com.chess_client.services.engine.OpeningBook;
+import com.chess_client.services.engine.SearchEngine;
+import com.chess_client.services.engine.Tablebase;
+import com.chess_client.services.engine.TranspositionTable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Xử lý logic cho AI/Computer player trong chế độ chơi với máy.
+ * Nước đi được chọn bằng tìm kiếm alpha-beta (iterative deepening, bảng băm riêng của ván,
+ * kích thước theo -Dchess.engine.hashMb), mức độ khó (DifficultyLevel) quyết định số nút
+ * và độ sâu tối đa cho mỗi nước, không theo thời gian.
+ * Mức dễ và trung bình có thêm nhiễu ở gốc để đi giống người (tắt bằng
+ * -Dchess.engine.evalNoise=false).
+ *
+ * Chế độ tìm, chọn bằng -Dchess.engine.reproducible:
+ * <ul>
+ *   <li>true (mặc định): mỗi nước tìm một luồng, bắt đầu từ bảng băm và killer/history
+ *       vừa xoá, nên cùng seed và cùng thế cờ thì cùng số nút, cùng nước đi trên mọi máy
+ *       và khi máy tải nặng.</li>
+ *   <li>false: Lazy SMP với -Dchess.engine.threads=N luồng (mặc định
+ *       LazySmpSearch.MAX_THREADS) và bảng băm giữ lại giữa các nước của ván: tìm sâu hơn
+ *       trong cùng thời gian nhưng nước đi không còn lặp lại được.</li>
+ * </ul>
+ * Khi thế cờ có trong sách khai cuộc (OpeningBook) thì đi ngay theo sách, không cần tìm;
+ * tàn cuộc còn tối đa 4 quân thì đi theo bảng tàn cuộc (Tablebase) nếu có.
+ *
+ * Pondering: sau khi máy đi, một luồng nền đoán nước trả lời của người chơi
+ * (nước tốt nhất trong bảng băm) và tìm trước thế cờ sau nước đó. Nếu người chơi
+ * đi đúng nước đoán (ponder hit), máy dùng luôn kết quả đã tìm (ở chế độ lặp lại được:
+ * cùng giới hạn số nút, cùng trạng thái ban đầu, nên cùng nước như khi tìm lại); đoán sai, ponder bị
+ * CpuGovernor dừng giữa chừng hoặc rời ván thì kết quả nền bị bỏ.
+ *
+ * Với -Dchess.engine.outOfProcess=true việc tìm kiếm chạy trong một JVM con (EngineProcess)
+ * có heap và GC riêng; JVM con chết hoặc không trả lời thì tự chuyển về tìm trong tiến trình
+ * cho tới hết ván. Ở chế độ này không ponder.
  */
 public class AIPlayer {
 
+    /** Giới hạn thời gian một lần ponder (người chơi nghĩ lâu hơn thì dừng) */
+    private static final long PONDER_MAX_MILLIS = 60_000;
+
     private final Board board;
     private final GameLogic gameLogic;
     private final Piece.Color aiColor;
     private final int difficulty; // 1: dễ, 2: trung bình, 3: khó
-    private final Random random = new Random();
+    private final DifficultyLevel level;
+    // Lặp lại được: một luồng, xoá trạng thái trước mỗi lần tìm; tắt bằng -Dchess.engine.reproducible=false
+    private final boolean reproducible = Boolean.parseBoolean(System.getProperty("chess.engine.reproducible", "true"));
+    private final int threads = reproducible ? 1
+            : Math.max(1, Math.min(LazySmpSearch.MAX_THREADS,
+                    Integer.getInteger("chess.engine.threads", LazySmpSearch.MAX_THREADS)));
+    private final int hashMb = TranspositionTable.configuredSizeMb();
+    // Bảng băm ngoài heap nên không ảnh hưởng GC của UI; riêng mỗi ván để ván khác không làm đổi nước đi
+    private final LazySmpSearch search = new LazySmpSearch(new TranspositionTable(hashMb), threads);
+    private final Random random;
+    private final long seed;
+    private final int noiseCap;         // 0 = không nhiễu
+
+    // Tìm ở JVM con, bật bằng -Dchess.engine.outOfProcess=true
+    private final boolean outOfProcess = Boolean.getBoolean("chess.engine.outOfProcess");
+    private volatile EngineProcess engineProcess;   // Khởi động khi cần nước đầu tiên
+    private volatile boolean processFailed;
+
+    // Pondering, bật/tắt bằng -Dchess.engine.ponder=false
+    private final boolean ponderEnabled = Boolean.parseBoolean(System.getProperty("chess.engine.ponder", "true"));
+    private final ExecutorService ponderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chess-ponder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private Future<SearchEngine.SearchResult> ponderFuture;
+    private volatile AtomicBoolean ponderStop;  // Cờ dừng của lần ponder đang chạy
+    private long ponderKey;             // Khoá Zobrist của thế cờ đang ponder (sau nước đoán)
+    private long ponderNodes;           // Giới hạn số nút của lần ponder đang chạy
+    private long moveNodes;             // Giới hạn số nút thực tế của nước gần nhất (mức khó và giới hạn của ván)
+    private long ponderStartNanos;
+    private volatile AtomicBoolean moveStop;    // Cờ dừng của lần tìm nước đang chạy
+    private volatile boolean closed;
+    private int ponderHits;
+    private int ponderMisses;
 
     public AIPlayer(Board board, GameLogic gameLogic, Piece.Color aiColor, int difficulty) {
+        this(board, gameLogic, aiColor, difficulty, new Random().nextLong());
+    }
+
+    /**
+     * @param seed Seed cho sách khai cuộc và nhiễu của mức độ khó (cùng seed thì cùng cách chơi)
+     */
+    public AIPlayer(Board board, GameLogic gameLogic, Piece.Color aiColor, int difficulty, long seed) {
         this.board = board;
         this.gameLogic = gameLogic;
         this.aiColor = aiColor;
         this.difficulty = difficulty;
+        this.level = DifficultyLevel.of(difficulty);
+        this.random = new Random(seed);
+        this.seed = seed;
+        this.noiseCap = Boolean.parseBoolean(System.getProperty("chess.engine.evalNoise", "true"))
+                ? level.getNoiseCap() : 0;
+        this.moveNodes = level.getNodeBudget();
+        if (noiseCap > 0) {
+            search.setRootNoise(noiseCap, seed);
+        }
     }
 
     /**
-     * AI chọn và thực hiện nước đi.
-     * 
-     * @return Move được chọn, hoặc null nếu không có nước đi hợp lệ
+     * AI chọn nước đi cho thế cờ hiện tại trên bàn cờ của ván.
+     *
+     * @return Move được chọn, hoặc null nếu không có nước đi hợp lệ (hoặc máy đã dừng)
      */
     public Move makeMove() {
-        List<Move> validMoves = gameLogic.getAllValidMoves(aiColor);
+        return makeMove(board);
+    }
+
+    /**
+     * AI chọn nước đi cho {@code position}, thường là bản sao bàn cờ (snapshot) tạo trên
+     * luồng UI rồi tìm trên luồng nền của EngineExecutor; bàn cờ của ván không bị đọc.
+     * Bị {@link #cancel()} thì dừng sớm và trả về nước tốt nhất đã có.
+     *
+     * @return Move được chọn, hoặc null nếu không có nước đi hợp lệ (hoặc máy đã dừng)
+     */
+    public Move makeMove(Board position) {
+        return makeMove(position, new AtomicBoolean());
+    }
+
+    /**
+     * Như {@link #makeMove(Board)} nhưng dừng theo cờ do bên gọi giữ
+     * (cờ huỷ của EngineExecutor.Task).
+     */
+    public Move makeMove(Board position, AtomicBoolean stop) {
+        return makeMove(position, stop, 0, 0);
+    }
+
+    /**
+     * Như {@link #makeMove(Board, AtomicBoolean)}, thêm giới hạn của ván trong EngineExecutor:
+     * mỗi giới hạn là giá trị nhỏ hơn giữa mức độ khó và giới hạn của ván.
+     *
+     * @param timeBudgetMillis Thời gian tối đa cho nước này, 0 = chỉ theo mức độ khó
+     * @param nodeBudget       Số nút tối đa cho nước này, 0 = chỉ theo mức độ khó
+     */
+    public synchronized Move makeMove(Board position, AtomicBoolean stop, long timeBudgetMillis, long nodeBudget) {
+        if (closed || stop.get()) {
+            return null;
+        }
+        long timeMillis = timeBudgetMillis > 0
+                ? Math.min(DifficultyLevel.SAFETY_TIME_MILLIS, timeBudgetMillis)
+                : DifficultyLevel.SAFETY_TIME_MILLIS;
+        long nodes = nodeBudget > 0 ? Math.min(level.getNodeBudget(), nodeBudget) : level.getNodeBudget();
+        moveNodes = nodes;
+        long startNanos = System.nanoTime();
+        Move ponderMove = takePonderResult(position, timeMillis, nodes);
+        if (ponderMove != null) {
+            return ponderMove;
+        }
+        // Thời gian đã chờ ponder được trừ vào lần tìm lại, để cả nước không quá giới hạn
+        timeMillis = Math.max(1, timeMillis - (System.nanoTime() - startNanos) / 1_000_000L);
+        Move bookMove = probeBook(position);
+        if (bookMove != null) {
+            return bookMove;
+        }
+        Move tablebaseMove = probeTablebase(position);
+        if (tablebaseMove != null) {
+            return tablebaseMove;
+        }
+        moveStop = stop;
+        try {
+            if (isOutOfProcess()) {
+                try {
+                    return searchOutOfProcess(position, timeMillis, nodes, stop);
+                } catch (IOException e) {
+                    if (closed) {
+                        // shutdown() đã huỷ JVM con
+                        return null;
+                    }
+                    // JVM con chết hoặc treo: tìm lại ngay trong tiến trình
+                    e.printStackTrace();
+                    processFailed = true;
+                    closeEngineProcess();
+                }
+            }
+            if (reproducible) {
+                search.clear();
+            }
+            return search.search(position, aiColor, timeMillis, level.getMaxDepth(), nodes, stop).getBestMove();
+        } finally {
+            moveStop = null;
+        }
+    }
 
-        if (validMoves.isEmpty()) {
-            return null; // Không có nước đi hợp lệ
+    /**
+     * Tìm ở JVM con (khởi động nếu chưa có) với cùng số luồng, bảng băm và chế độ
+     * như lần tìm trong tiến trình; giữ một suất của CpuGovernor trong lúc tìm.
+     */
+    private Move searchOutOfProcess(Board position, long timeMillis, long nodes, AtomicBoolean stop)
+            throws IOException {
+        EngineProcess process = engineProcess;
+        if (process == null) {
+            // Gán trước khi bắt tay để shutdown() huỷ được JVM con treo lúc khởi động
+            process = EngineProcess.launch();
+            engineProcess = process;
+            if (closed) {
+                throw new IOException("Máy đã dừng");
+            }
+            process.handshake(threads, hashMb);
+            if (noiseCap > 0) {
+                process.setRootNoise(noiseCap, seed);
+            }
+        }
+        CpuGovernor governor = CpuGovernor.getShared();
+        if (!governor.acquire(stop)) {
+            return null;
+        }
+        try {
+            if (reproducible) {
+                process.clear();
+            }
+            return process.search(position, timeMillis, level.getMaxDepth(), nodes, stop);
+        } finally {
+            governor.release(1);
         }
+    }
 
-        return chooseMoveByDifficulty(validMoves);
+    private void closeEngineProcess() {
+        if (engineProcess != null) {
+            engineProcess.close();
+            engineProcess = null;
+        }
     }
 
     /**
-     * Chọn nước đi dựa trên mức độ khó.
+     * Báo lần tìm nước và lần ponder đang chạy dừng ngay. Không chờ, gọi được từ luồng UI.
      */
-    private Move chooseMoveByDifficulty(List<Move> moves) {
-        if (moves.isEmpty())
+    public void cancel() {
+        AtomicBoolean stop = moveStop;
+        if (stop != null) {
+            stop.set(true);
+        }
+        stop = ponderStop;
+        if (stop != null) {
+            stop.set(true);
+        }
+    }
+
+    /**
+     * Nước đi theo sách khai cuộc dùng chung (nếu có sách và thế cờ nằm trong sách).
+     */
+    private Move probeBook(Board position) {
+        OpeningBook book = OpeningBook.getShared();
+        if (book == null || position.getSideToMove() != aiColor) {
             return null;
+        }
+        int move = book.probe(position, random);
+        return move == PackedMove.NONE ? null : PackedMove.toMove(move, position);
+    }
 
-        // Dễ: chọn ngẫu nhiên
-        if (difficulty <= 1) {
-            return moves.get(random.nextInt(moves.size()));
+    /**
+     * Nước đi theo bảng tàn cuộc dùng chung (nếu có thư mục bảng và đủ ít quân).
+     */
+    private Move probeTablebase(Board position) {
+        Tablebase tablebase = Tablebase.getShared();
+        if (tablebase == null || position.getSideToMove() != aiColor) {
+            return null;
         }
+        int move = tablebase.bestMove(position);
+        return move == PackedMove.NONE ? null : PackedMove.toMove(move, position);
+    }
 
-        // Trung bình/Khó: ưu tiên nước ăn quân, nếu không có thì chọn ngẫu nhiên
-        List<Move> capturingMoves = new ArrayList<>();
-        for (Move m : moves) {
-            Piece target = board.getPiece(m.getToRow(), m.getToCol());
-            if (target != null && target.getColor() != aiColor) {
-                capturingMoves.add(m);
+    /**
+     * Bắt đầu ponder sau khi máy vừa đi (tới lượt người chơi).
+     * Không làm gì nếu không đoán được nước trả lời.
+     */
+    public synchronized void startPondering() {
+        stopPondering();
+        if (!ponderEnabled || closed || isOutOfProcess() || board.getSideToMove() == aiColor) {
+            return;
+        }
+        int reply = expectedReply();
+        if (reply == PackedMove.NONE) {
+            return;
+        }
+        // Tìm trên bản sao (có sẵn nước đoán) để không đụng tới bàn cờ đang hiển thị
+        Board snapshot = board.copy();
+        snapshot.movePiece(reply);
+        AtomicBoolean stop = new AtomicBoolean();
+        ponderStop = stop;
+        ponderKey = snapshot.getZobristKey();
+        // Cùng giới hạn số nút với nước vừa đi (giới hạn của ván thường không đổi giữa các nước)
+        long nodes = moveNodes;
+        ponderNodes = nodes;
+        ponderStartNanos = System.nanoTime();
+        // Ponder là việc nền của CpuGovernor: không có suất rảnh thì không chạy (kết quả null)
+        // Cùng trạng thái ban đầu như makeMove, để ponder hit cho đúng nước của lần tìm lại
+        ponderFuture = ponderExecutor.submit(() -> {
+            if (reproducible) {
+                search.clear();
             }
+            return search.ponder(snapshot, aiColor, PONDER_MAX_MILLIS, level.getMaxDepth(), nodes, stop);
+        });
+    }
+
+    /**
+     * Người chơi vừa đi: đoán sai thì dừng ponder ngay, đoán đúng thì để tìm tiếp.
+     */
+    public synchronized void opponentMoved() {
+        if (ponderFuture != null && board.getZobristKey() != ponderKey) {
+            ponderMisses++;
+            stopPondering();
+        }
+    }
+
+    /**
+     * Dừng ponder (nếu có) và chờ luồng nền trả lại bộ tìm kiếm.
+     */
+    public synchronized void stopPondering() {
+        if (ponderFuture == null) {
+            return;
         }
+        finishPonder();
+        ponderFuture = null;
+        ponderStop = null;
+    }
 
-        List<Move> pool = capturingMoves.isEmpty() ? moves : capturingMoves;
-        return pool.get(random.nextInt(pool.size()));
+    /**
+     * Dừng hẳn máy: huỷ lần tìm đang chạy và ponder, rồi giải phóng các luồng.
+     * Gọi khi kết thúc hoặc rời ván; chỉ phải chờ lần tìm đang chạy kịp dừng (vài ms).
+     * JVM con bị huỷ ngay chứ không chờ lệnh stop/quit, nên dù nó treo
+     * luồng UI cũng không phải chờ.
+     */
+    public void shutdown() {
+        closed = true;
+        cancel();
+        EngineProcess process = engineProcess;
+        if (process != null) {
+            process.destroy();      // Lần tìm đang chờ JVM con thoát ngay
+        }
+        synchronized (this) {
+            stopPondering();
+            ponderExecutor.shutdownNow();
+            search.shutdown();
+            destroyEngineProcess();
+        }
+    }
+
+    private void destroyEngineProcess() {
+        if (engineProcess != null) {
+            engineProcess.destroy();
+            engineProcess = null;
+        }
+    }
+
+    /**
+     * Kết quả ponder nếu người chơi đã đi đúng nước đoán: chờ lần ponder tìm hết số nút
+     * (tối đa tới {@code timeMillis} kể từ lúc bắt đầu ponder), rồi dừng và lấy nước tốt nhất.
+     * Hết giờ mà chưa tìm xong thì vẫn dùng nước tốt nhất đã có, như lần tìm lại hết giờ;
+     * chỉ lần ponder bị CpuGovernor dừng sớm mới bị bỏ.
+     * Lần ponder có giới hạn số nút khác {@code nodes} thì bị bỏ: ponder hit phải theo đúng
+     * giới hạn của nước này (của mức khó và của ván), như khi tìm lại từ đầu.
+     */
+    private Move takePonderResult(Board position, long timeMillis, long nodes) {
+        if (ponderFuture == null) {
+            return null;
+        }
+        if (position.getZobristKey() != ponderKey) {
+            ponderMisses++;
+            stopPondering();
+            return null;
+        }
+        if (ponderNodes != nodes) {
+            stopPondering();
+            return null;
+        }
+        long pondered = (System.nanoTime() - ponderStartNanos) / 1_000_000L;
+        long remaining = timeMillis - pondered;
+        if (remaining > 0) {
+            try {
+                ponderFuture.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Hết phần thời gian còn lại: dừng ở dưới và dùng nước tốt nhất đã có
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        // Cờ dừng đã bật trước khi dừng ở đây nghĩa là bị CpuGovernor dừng sớm để nhường suất
+        boolean preempted = ponderStop.get();
+        SearchEngine.SearchResult result = finishPonder();
+        ponderFuture = null;
+        ponderStop = null;
+        if (preempted || result == null || result.getBestMove() == null) {
+            return null;
+        }
+        ponderHits++;
+        return result.getBestMove();
+    }
+
+    /**
+     * Báo lần ponder dừng và chờ nó trả lại bộ tìm kiếm.
+     */
+    private SearchEngine.SearchResult finishPonder() {
+        ponderStop.set(true);
+        try {
+            return ponderFuture.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Nước trả lời được đoán cho người chơi: nước tốt nhất trong bảng băm của thế cờ hiện tại.
+     */
+    int expectedReply() {
+        TranspositionTable table = search.getTable();
+        long entry = table == null ? 0 : table.probe(board.getZobristKey());
+        if (entry == 0) {
+            return PackedMove.NONE;
+        }
+        int hashMove = TranspositionTable.move(entry);
+        MoveList moves = new MoveList();
+        gameLogic.generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if ((moves.get(i) & PackedMove.KEY_MASK) == hashMove) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    public synchronized int getPonderHits() {
+        return ponderHits;
+    }
+
+    public synchronized int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /**
+     * true nếu đang tìm ở JVM con (đã bật và JVM con chưa lần nào chết).
+     */
+    public boolean isOutOfProcess() {
+        return outOfProcess && !processFailed;
+    }
+
+    /** JVM con đang dùng (null nếu chưa khởi động hoặc đã chuyển về trong tiến trình). */
+    synchronized EngineProcess getEngineProcess() {
+        return engineProcess;
+    }
+
+    /**
+     * Giới hạn số nút và độ sâu cho mỗi nước theo mức độ khó.
+     */
+    public DifficultyLevel getLevel() {
+        return level;
     }
 
     public Piece.Color getAiColor() {
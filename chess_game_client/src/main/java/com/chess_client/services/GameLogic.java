@@ -1,8 +1,12 @@
 package com.chess_client.services;
 
+import com.chess_client.models.Bitboards;
 import com.chess_client.models.Board;
 import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
 import com.chess_client.models.Piece;
+import com.chess_client.models.Zobrist;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +22,14 @@ public class GameLogic {
     
     private Board board;
 
+    // Chuỗi lợi/lỗ của SEE, dùng lại giữa các lần gọi (GameLogic gắn với một bàn cờ, không dùng chung luồng)
+    private final int[] seeGain = new int[32];
+
+    // Các quân tốt có thể phong, theo thứ tự sinh nước (hậu trước)
+    private static final Piece.Type[] PROMOTION_TYPES = {
+        Piece.Type.QUEEN, Piece.Type.ROOK, Piece.Type.BISHOP, Piece.Type.KNIGHT
+    };
+
     // ===================== CONSTRUCTOR =====================
     
     /**
@@ -140,18 +152,15 @@ public class GameLogic {
                 return true;
             }
 
-            // === EN PASSANT: Ăn tốt qua đường ===
-            Move lastMove = board.getLastMove();
-            if (lastMove != null) {
-                Piece lastPiece = board.getPiece(lastMove.getToRow(), lastMove.getToCol());
-                // Kiểm tra: nước trước là tốt đi 2 ô, cùng cột, cùng hàng
-                if (lastPiece != null && 
-                    lastPiece.getType() == Piece.Type.PAWN &&
-                    Math.abs(lastMove.getToRow() - lastMove.getFromRow()) == 2 &&
-                    lastMove.getToCol() == toCol && 
-                    lastMove.getToRow() == fromRow) {
+            // === EN PASSANT: Ăn tốt qua đường (ô đích là ô tốt địch vừa đi qua) ===
+            int enPassantSquare = board.getEnPassantSquare();
+            if (enPassantSquare == Bitboards.square(toRow, toCol) && targetPiece == null) {
+                Piece passedPawn = board.getPiece(fromRow, toCol);
+                if (passedPawn != null &&
+                    passedPawn.getType() == Piece.Type.PAWN &&
+                    passedPawn.getColor() != pawn.getColor()) {
                     move.setEnPassant(true);
-                    move.setPieceCaptured(lastPiece);
+                    move.setPieceCaptured(passedPawn);
                     return true;
                 }
             }
@@ -243,54 +252,51 @@ public class GameLogic {
      * vua không bị chiếu và không đi qua ô bị chiếu.
      */
     private boolean isValidCastling(Move move) {
-        Piece king = move.getPieceMoved();
-        int row = move.getFromRow();
-        int kingCol = move.getFromCol();
-        int toCol = move.getToCol();
+        if (!canCastle(move.getPieceMoved(), move.getFromRow(), move.getFromCol(), move.getToCol())) {
+            return false;
+        }
+
+        // Đánh dấu đây là nước nhập thành
+        move.setCastling(true);
+        return true;
+    }
 
-        // Vua chưa di chuyển
-        if (king.hasMoved()) {
+    /**
+     * Điều kiện nhập thành của vua {@code king} từ (row, kingCol) tới cột {@code toCol}.
+     */
+    private boolean canCastle(Piece king, int row, int kingCol, int toCol) {
+        // Bàn cờ còn quyền nhập thành phía này (vua và xe chưa di chuyển)
+        boolean kingside = toCol > kingCol;
+        if ((board.getCastlingRights() & castlingRight(king.getColor(), kingside)) == 0) {
             return false;
         }
 
         // Xác định vị trí xe (bên phải hoặc bên trái)
-        int rookCol = toCol > kingCol ? 7 : 0;
+        int rookCol = kingside ? 7 : 0;
         Piece rook = board.getPiece(row, rookCol);
 
-        // Xe phải tồn tại, chưa di chuyển, và cùng màu với vua
-        if (rook == null || rook.getType() != Piece.Type.ROOK || rook.hasMoved()) {
+        // Vua và xe phải đứng đúng ô ban đầu (bàn cờ tự dựng bằng setPiece có thể lệch quyền)
+        if (king.getType() != Piece.Type.KING || kingCol != 4 || row != (king.getColor() == Piece.Color.WHITE ? 7 : 0)
+                || rook == null || rook.getType() != Piece.Type.ROOK || rook.getColor() != king.getColor()) {
             return false;
         }
 
         // Kiểm tra đường đi giữa vua và xe không bị chặn
-        int start = Math.min(kingCol, rookCol) + 1;
-        int end = Math.max(kingCol, rookCol);
-
-        for (int col = start; col < end; col++) {
-            if (board.getPiece(row, col) != null) {
-                return false;
-            }
-        }
-
-        // Vua không được đang bị chiếu
-        if (isKingInCheck(board, king.getColor())) {
+        int kingSquare = Bitboards.square(row, kingCol);
+        if ((Bitboards.between(kingSquare, Bitboards.square(row, rookCol)) & board.getOccupied()) != 0) {
             return false;
         }
 
-        // Vua không được đi qua ô bị chiếu
+        // Vua không được đang bị chiếu và không được đi qua ô bị chiếu.
+        // Tra trực tiếp trên bàn cờ hiện tại, bỏ vua khỏi occupancy như thể vua đã rời ô cũ.
+        Piece.Color enemyColor = king.getColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long occupancy = board.getOccupied() & ~Bitboards.bit(kingSquare);
         int direction = toCol > kingCol ? 1 : -1;
         for (int col = kingCol; col != toCol + direction; col += direction) {
-            Board tempBoard = board.copy();
-            tempBoard.setPiece(row, col, king);
-            tempBoard.setPiece(row, kingCol, null);
-
-            if (isKingInCheck(tempBoard, king.getColor())) {
+            if (board.isSquareAttacked(Bitboards.square(row, col), enemyColor, occupancy)) {
                 return false;
             }
         }
-
-        // Đánh dấu đây là nước nhập thành
-        move.setCastling(true);
         return true;
     }
 
@@ -307,22 +313,9 @@ public class GameLogic {
      * @return true nếu đường đi bị chặn, false nếu không
      */
     private boolean isPathBlocked(int fromRow, int fromCol, int toRow, int toCol) {
-        int rowStep = Integer.compare(toRow, fromRow);
-        int colStep = Integer.compare(toCol, fromCol);
-
-        int currentRow = fromRow + rowStep;
-        int currentCol = fromCol + colStep;
-
-        // Kiểm tra từng ô trên đường đi (không bao gồm ô đích)
-        while (currentRow != toRow || currentCol != toCol) {
-            if (board.getPiece(currentRow, currentCol) != null) {
-                return true; // Bị chặn
-            }
-            currentRow += rowStep;
-            currentCol += colStep;
-        }
-
-        return false; // Không bị chặn
+        // Các ô giữa hai đầu được tra sẵn, chỉ cần giao với occupancy
+        long path = Bitboards.between(Bitboards.square(fromRow, fromCol), Bitboards.square(toRow, toCol));
+        return (path & board.getOccupied()) != 0;
     }
 
     // ===================== CHECK & CHECKMATE =====================
@@ -335,44 +328,41 @@ public class GameLogic {
      * @return true nếu vua bị chiếu, false nếu không
      */
     public boolean isKingInCheck(Board checkBoard, Piece.Color kingColor) {
-        // Tìm vị trí vua trên bàn cờ
-        int kingRow = -1, kingCol = -1;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = checkBoard.getPiece(row, col);
-                if (piece != null && 
-                    piece.getType() == Piece.Type.KING && 
-                    piece.getColor() == kingColor) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) {
-                break;
-            }
+        // Ô vua do Board theo dõi sẵn
+        int kingSquare = checkBoard.getKingSquare(kingColor);
+        if (kingSquare < 0) {
+            return false; // Không còn vua trên bàn cờ
         }
 
-        // Kiểm tra xem có quân địch nào có thể tấn công vua không
         Piece.Color enemyColor = kingColor == Piece.Color.WHITE 
             ? Piece.Color.BLACK 
             : Piece.Color.WHITE;
 
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = checkBoard.getPiece(row, col);
-                if (piece != null && piece.getColor() == enemyColor) {
-                    Move attackMove = new Move(row, col, kingRow, kingCol, piece);
-                    GameLogic tempLogic = new GameLogic(checkBoard);
-                    if (tempLogic.isPieceMoveLegal(attackMove)) {
-                        return true; // Vua bị chiếu
-                    }
-                }
-            }
-        }
+        return checkBoard.isSquareAttacked(kingSquare, enemyColor);
+    }
 
-        return false; // Vua không bị chiếu
+    /**
+     * Tập các quân màu {@code attackerColor} đang tấn công một ô, dùng khi cần
+     * biết quân nào chiếu (chỉ cần có/không thì dùng Board.isSquareAttacked).
+     * Nhìn ngược từ ô đích: nếu quân cùng loại đứng tại ô đó tấn công
+     * được một quân địch thì quân địch đó cũng tấn công ô này.
+     *
+     * @param occupied Occupancy dùng cho quân trượt (cho phép giả định bỏ bớt quân)
+     * @return Bitboard các quân tấn công, 0 nếu ô an toàn
+     */
+    private long attackersTo(Board checkBoard, int square, Piece.Color attackerColor, long occupied) {
+        Piece.Color defenderColor = attackerColor == Piece.Color.WHITE 
+            ? Piece.Color.BLACK 
+            : Piece.Color.WHITE;
+        long queens = checkBoard.getPieces(Piece.Type.QUEEN, attackerColor);
+
+        return (Bitboards.pawnAttacks(defenderColor, square) & checkBoard.getPieces(Piece.Type.PAWN, attackerColor))
+                | (Bitboards.knightAttacks(square) & checkBoard.getPieces(Piece.Type.KNIGHT, attackerColor))
+                | (Bitboards.kingAttacks(square) & checkBoard.getPieces(Piece.Type.KING, attackerColor))
+                | (Bitboards.bishopAttacks(square, occupied)
+                        & (checkBoard.getPieces(Piece.Type.BISHOP, attackerColor) | queens))
+                | (Bitboards.rookAttacks(square, occupied)
+                        & (checkBoard.getPieces(Piece.Type.ROOK, attackerColor) | queens));
     }
 
     /**
@@ -413,34 +403,359 @@ public class GameLogic {
     
     /**
      * Lấy tất cả các nước đi hợp lệ của một màu quân cờ.
+     * Sinh nước theo từng loại quân: chỉ tạo Move cho các ô đích quân đó
+     * thực sự đi tới được, kèm sẵn cờ phong cấp, nhập thành, en passant.
+     *
+     * Chỉ trả về nước đi hợp lệ hoàn toàn (không để vua mình bị chiếu).
+     * Quân bị ghim và mask chặn chiếu được tính một lần cho cả thế cờ,
+     * nên không cần sao chép bàn cờ để thử từng nước.
      * 
      * @param playerColor Màu quân cờ cần lấy nước đi
      * @return Danh sách tất cả nước đi hợp lệ
      */
     public List<Move> getAllValidMoves(Piece.Color playerColor) {
-        List<Move> validMoves = new ArrayList<>();
-
-        // Duyệt qua tất cả các ô trên bàn cờ
-        for (int fromRow = 0; fromRow < 8; fromRow++) {
-            for (int fromCol = 0; fromCol < 8; fromCol++) {
-                Piece piece = board.getPiece(fromRow, fromCol);
-                
-                // Nếu có quân cờ cùng màu
-                if (piece != null && piece.getColor() == playerColor) {
-                    // Thử tất cả các ô đích có thể
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            Move move = new Move(fromRow, fromCol, toRow, toCol, piece);
-                            if (isValidMove(move, playerColor)) {
-                                validMoves.add(move);
-                            }
+        MoveList packed = new MoveList();
+        generateMoves(playerColor, packed);
+        List<Move> validMoves = new ArrayList<>(packed.size());
+        for (int i = 0; i < packed.size(); i++) {
+            validMoves.add(PackedMove.toMove(packed.get(i), board));
+        }
+        return validMoves;
+    }
+
+    /**
+     * Sinh mọi nước đi hợp lệ dưới dạng int (PackedMove) vào {@code moves}
+     * mà không cấp phát đối tượng nào; dùng cho tìm kiếm và perft.
+     * Danh sách không bị xoá trước, người gọi tự {@link MoveList#clear()}.
+     *
+     * @param playerColor Màu quân cờ cần sinh nước
+     * @param moves       Danh sách nhận kết quả
+     */
+    public void generateMoves(Piece.Color playerColor, MoveList moves) {
+        generateMoves(playerColor, moves, false);
+    }
+
+    /**
+     * Chỉ sinh các nước ăn quân (kể cả en passant) và phong cấp hợp lệ,
+     * dùng cho tìm kiếm tĩnh (quiescence) ở cuối cây.
+     *
+     * @param playerColor Màu quân cờ cần sinh nước
+     * @param moves       Danh sách nhận kết quả (không bị xoá trước)
+     */
+    public void generateCaptures(Piece.Color playerColor, MoveList moves) {
+        generateMoves(playerColor, moves, true);
+    }
+
+    private void generateMoves(Piece.Color playerColor, MoveList moves, boolean tacticalOnly) {
+        Piece.Color enemyColor = playerColor == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long friendly = board.getPieces(playerColor);
+        long occupied = board.getOccupied();
+        // Ô đích của quân (trừ tốt): mọi ô không có quân mình, hoặc chỉ ô có quân địch
+        long targetMask = tacticalOnly ? board.getPieces(enemyColor) : ~friendly;
+
+        // Mask chặn chiếu và quân bị ghim (không có vua thì mọi nước đều được phép)
+        int kingSquare = board.getKingSquare(playerColor);
+        long checkers = 0L;
+        long checkMask = ~0L;
+        long pinned = 0L;
+        if (kingSquare >= 0) {
+            checkers = attackersTo(board, kingSquare, enemyColor, occupied);
+            if (Long.bitCount(checkers) > 1) {
+                checkMask = 0L; // Chiếu đôi: chỉ vua được đi
+            } else if (checkers != 0) {
+                // Ăn quân chiếu hoặc chặn giữa đường chiếu
+                checkMask = checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+            }
+            pinned = pinnedPieces(kingSquare, playerColor, enemyColor);
+        }
+
+        // Chỉ duyệt các ô có quân cùng màu (danh sách quân của Board)
+        for (int i = 0, count = board.getPieceCount(playerColor); i < count; i++) {
+            int from = board.getPieceSquare(playerColor, i);
+            Piece piece = board.getPiece(Bitboards.row(from), Bitboards.col(from));
+
+            // Quân bị ghim chỉ được đi trên đường thẳng qua vua
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= Bitboards.line(kingSquare, from);
+            }
+
+            switch (piece.getType()) {
+                case PAWN -> generatePawnMoves(piece, from, allowed, kingSquare, tacticalOnly, moves);
+                case KNIGHT -> addMoves(from, Bitboards.knightAttacks(from) & targetMask & allowed, moves);
+                case BISHOP -> addMoves(from, Bitboards.bishopAttacks(from, occupied) & targetMask & allowed, moves);
+                case ROOK -> addMoves(from, Bitboards.rookAttacks(from, occupied) & targetMask & allowed, moves);
+                case QUEEN -> addMoves(from, Bitboards.queenAttacks(from, occupied) & targetMask & allowed, moves);
+                case KING -> {
+                    // Vua không được đi vào ô bị tấn công (bỏ vua khỏi occupancy
+                    // để quân trượt đang chiếu "nhìn xuyên" qua ô cũ của vua)
+                    long targets = Bitboards.kingAttacks(from) & targetMask;
+                    long occupancyWithoutKing = occupied & ~Bitboards.bit(from);
+                    long safe = 0L;
+                    while (targets != 0) {
+                        int to = Long.numberOfTrailingZeros(targets);
+                        targets &= targets - 1;
+                        if (!board.isSquareAttacked(to, enemyColor, occupancyWithoutKing)) {
+                            safe |= Bitboards.bit(to);
                         }
                     }
+                    addMoves(from, safe, moves);
+                    if (checkers == 0 && !tacticalOnly) {
+                        generateCastlingMoves(piece, from, moves);
+                    }
                 }
             }
         }
+    }
 
-        return validMoves;
+    /**
+     * Các quân của {@code color} đang bị ghim vào vua: nằm một mình giữa vua
+     * và một quân trượt địch trên cùng hàng, cột hoặc đường chéo.
+     */
+    private long pinnedPieces(int kingSquare, Piece.Color color, Piece.Color enemyColor) {
+        long enemies = board.getPieces(enemyColor);
+        long queens = board.getPieces(Piece.Type.QUEEN, enemyColor);
+
+        // Quân trượt địch nhìn thấy vua nếu bỏ qua quân mình
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemies)
+                        & (board.getPieces(Piece.Type.ROOK, enemyColor) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemies)
+                        & (board.getPieces(Piece.Type.BISHOP, enemyColor) | queens));
+
+        long pinned = 0L;
+        long occupied = board.getOccupied();
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & board.getPieces(color);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Thêm nước đi tới mọi ô đích trong bitboard {@code targets}.
+     */
+    private void addMoves(int from, long targets, MoveList moves) {
+        long occupied = board.getOccupied();
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.of(from, to, (occupied & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0));
+        }
+    }
+
+    /**
+     * Sinh nước đi của tốt: đi thẳng 1-2 ô, ăn chéo, en passant, phong cấp.
+     *
+     * @param allowed    Các ô đích được phép (mask chặn chiếu và đường ghim)
+     * @param kingSquare Ô của vua mình (-1 nếu không có), dùng để kiểm tra en passant
+     * @param tacticalOnly Bỏ các nước đi thẳng không phong cấp
+     */
+    private void generatePawnMoves(Piece pawn, int from, long allowed, int kingSquare, boolean tacticalOnly,
+                                   MoveList moves) {
+        Piece.Color color = pawn.getColor();
+        int fromRow = Bitboards.row(from);
+        int fromCol = Bitboards.col(from);
+        int direction = color == Piece.Color.WHITE ? -1 : 1;
+        int startRow = color == Piece.Color.WHITE ? 6 : 1;
+        int promotionRow = color == Piece.Color.WHITE ? 0 : 7;
+        int toRow = fromRow + direction;
+        if (toRow < 0 || toRow > 7) {
+            return;
+        }
+
+        // === ĐI THẲNG 1 Ô, 2 Ô TỪ VỊ TRÍ BAN ĐẦU ===
+        if (board.getPiece(toRow, fromCol) == null && (!tacticalOnly || toRow == promotionRow)) {
+            int to = Bitboards.square(toRow, fromCol);
+            if ((allowed & Bitboards.bit(to)) != 0) {
+                addPawnMove(from, to, 0, toRow == promotionRow, moves);
+            }
+
+            int doubleRow = fromRow + 2 * direction;
+            int doubleTo = Bitboards.square(doubleRow, fromCol);
+            if (fromRow == startRow && board.getPiece(doubleRow, fromCol) == null
+                    && (allowed & Bitboards.bit(doubleTo)) != 0) {
+                moves.add(PackedMove.of(from, doubleTo, PackedMove.DOUBLE_PUSH));
+            }
+        }
+
+        // === ĂN CHÉO ===
+        Piece.Color enemyColor = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long captures = Bitboards.pawnAttacks(color, from) & board.getPieces(enemyColor) & allowed;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, PackedMove.CAPTURE, toRow == promotionRow, moves);
+        }
+
+        // === EN PASSANT: tốt địch vừa đi 2 ô qua ô chéo trước mặt ===
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare >= 0
+                && Bitboards.row(enPassantSquare) == toRow
+                && Math.abs(Bitboards.col(enPassantSquare) - fromCol) == 1) {
+            int captureCol = Bitboards.col(enPassantSquare);
+            Piece capturedPawn = board.getPiece(fromRow, captureCol);
+            if (capturedPawn != null
+                    && capturedPawn.getType() == Piece.Type.PAWN
+                    && capturedPawn.getColor() == enemyColor
+                    && board.getPiece(toRow, captureCol) == null
+                    && isEnPassantSafe(from, enPassantSquare, Bitboards.square(fromRow, captureCol),
+                            kingSquare, enemyColor)) {
+                moves.add(PackedMove.of(from, enPassantSquare, PackedMove.EN_PASSANT | PackedMove.CAPTURE));
+            }
+        }
+    }
+
+    /**
+     * Thêm nước đi của tốt; nếu là phong cấp thì sinh đủ 4 lựa chọn hậu, xe, tượng, mã.
+     */
+    private static void addPawnMove(int from, int to, int flags, boolean promotion, MoveList moves) {
+        if (!promotion) {
+            moves.add(PackedMove.of(from, to, flags));
+            return;
+        }
+        for (Piece.Type type : PROMOTION_TYPES) {
+            moves.add(PackedMove.promotion(from, to, type, flags));
+        }
+    }
+
+    /**
+     * En passant bỏ hai quân khỏi cùng một hàng nên không dùng được mask ghim thông thường:
+     * kiểm tra trực tiếp vua có bị tấn công sau khi đổi occupancy hay không.
+     */
+    private boolean isEnPassantSafe(int from, int to, int capturedSquare, int kingSquare, Piece.Color enemyColor) {
+        if (kingSquare < 0) {
+            return true;
+        }
+        long occupied = (board.getOccupied() & ~Bitboards.bit(from) & ~Bitboards.bit(capturedSquare))
+                | Bitboards.bit(to);
+        long attackers = attackersTo(board, kingSquare, enemyColor, occupied) & ~Bitboards.bit(capturedSquare);
+        return attackers == 0;
+    }
+
+    /**
+     * Sinh nước nhập thành về hai phía (điều kiện do canCastle kiểm tra).
+     */
+    private void generateCastlingMoves(Piece king, int from, MoveList moves) {
+        int rights = castlingRight(king.getColor(), true) | castlingRight(king.getColor(), false);
+        if ((board.getCastlingRights() & rights) == 0) {
+            return;
+        }
+        int row = Bitboards.row(from);
+        int col = Bitboards.col(from);
+        for (int toCol = col + 2; toCol >= col - 2; toCol -= 4) {
+            if (toCol >= 0 && toCol <= 7 && canCastle(king, row, col, toCol)) {
+                moves.add(PackedMove.of(from, Bitboards.square(row, toCol), PackedMove.CASTLING));
+            }
+        }
+    }
+
+    private static int castlingRight(Piece.Color color, boolean kingside) {
+        if (color == Piece.Color.WHITE) {
+            return kingside ? Zobrist.WHITE_KINGSIDE : Zobrist.WHITE_QUEENSIDE;
+        }
+        return kingside ? Zobrist.BLACK_KINGSIDE : Zobrist.BLACK_QUEENSIDE;
+    }
+
+    // ===================== STATIC EXCHANGE EVALUATION =====================
+
+    // Giá trị vua trong SEE: lớn hơn mọi chuỗi đổi quân để không bao giờ "đổi" vua
+    private static final int SEE_KING_VALUE = 20_000;
+
+    // Thứ tự thử quân ăn lại, rẻ nhất trước
+    private static final Piece.Type[] SEE_ATTACKER_ORDER = {
+        Piece.Type.PAWN, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN, Piece.Type.KING
+    };
+
+    /**
+     * Đánh giá đổi quân tĩnh (SEE) của một nước đi: hai bên lần lượt ăn lại trên
+     * ô đích bằng quân rẻ nhất đang tấn công, mỗi bên được dừng khi ăn tiếp
+     * không có lợi. Tính hoàn toàn từ bitboard tấn công (có tính quân trượt
+     * "lộ ra" phía sau quân vừa ăn), không đi thử nước nào; bỏ qua ghim và
+     * phong cấp trong chuỗi đổi.
+     *
+     * @param move Nước đi dạng PackedMove của bên đang có quân ở ô đi
+     * @return Lợi/lỗ vật chất (centipawn) của bên đi, 0 nếu nước không ăn quân và ô đích an toàn
+     */
+    public int staticExchange(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece mover = board.getPiece(Bitboards.row(from), Bitboards.col(from));
+        if (mover == null) {
+            return 0;
+        }
+
+        long occupied = board.getOccupied() & ~Bitboards.bit(from);
+        int[] gain = seeGain;
+        if (PackedMove.isEnPassant(move)) {
+            gain[0] = Piece.Type.PAWN.getValue();
+            occupied &= ~Bitboards.bit(Bitboards.square(Bitboards.row(from), Bitboards.col(to)));
+        } else {
+            Piece victim = board.getPiece(Bitboards.row(to), Bitboards.col(to));
+            gain[0] = victim == null ? 0 : seeValue(victim.getType());
+        }
+        // Quân đang đứng trên ô đích (sẽ bị ăn ở lượt kế tiếp)
+        int onSquare = seeValue(mover.getType());
+        if (PackedMove.isPromotion(move)) {
+            gain[0] += PackedMove.promotionType(move).getValue() - Piece.Type.PAWN.getValue();
+            onSquare = PackedMove.promotionType(move).getValue();
+        }
+
+        long attackers = allAttackersTo(to, occupied);
+        Piece.Color side = mover.getColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        int depth = 0;
+        while (depth < gain.length - 1) {
+            long sideAttackers = attackers & board.getPieces(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            Piece.Type type = null;
+            long attacker = 0L;
+            for (Piece.Type candidate : SEE_ATTACKER_ORDER) {
+                long pieces = sideAttackers & board.getPieces(candidate, side);
+                if (pieces != 0) {
+                    type = candidate;
+                    attacker = Long.lowestOneBit(pieces);
+                    break;
+                }
+            }
+
+            occupied &= ~attacker;
+            attackers = allAttackersTo(to, occupied);
+            Piece.Color other = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+            // Vua chỉ ăn lại được khi đối phương không còn quân nào nhìn vào ô đó
+            if (type == Piece.Type.KING && (attackers & board.getPieces(other)) != 0) {
+                break;
+            }
+
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            onSquare = seeValue(type);
+            side = other;
+        }
+
+        // Lùi từ cuối chuỗi: mỗi bên chọn giữa ăn tiếp và dừng lại
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Tất cả quân (hai màu) tấn công {@code square} với occupancy cho trước,
+     * chỉ tính các quân còn trong {@code occupied}.
+     */
+    private long allAttackersTo(int square, long occupied) {
+        return (attackersTo(board, square, Piece.Color.WHITE, occupied)
+                | attackersTo(board, square, Piece.Color.BLACK, occupied)) & occupied;
+    }
+
+    private static int seeValue(Piece.Type type) {
+        return type == Piece.Type.KING ? SEE_KING_VALUE : type.getValue();
     }
 
     // ===================== UTILITY METHODS =====================
@@ -452,16 +767,6 @@ public class GameLogic {
      * @return true nếu còn vua, false nếu không
      */
     public boolean hasKing(Piece.Color color) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece != null && 
-                    piece.getType() == Piece.Type.KING && 
-                    piece.getColor() == color) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return board.getKingSquare(color) >= 0;
     }
 }
@@ -61,21 +61,24 @@ public class GameStateChecker {
             return new GameStateResult(GameStateResult.State.KING_CAPTURED, winner);
         }
 
+        // Chiếu hết và hòa đều cần danh sách nước đi: chỉ sinh một lần
+        boolean inCheck = gameLogic.isKingInCheck(board, currentPlayer);
+        boolean noMoves = gameLogic.getAllValidMoves(currentPlayer).isEmpty();
+
         // Kiểm tra chiếu hết
-        if (gameLogic.isCheckmate(currentPlayer)) {
+        if (inCheck && noMoves) {
             Piece.Color winner = currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
             return new GameStateResult(GameStateResult.State.CHECKMATE, winner);
         }
 
         // Kiểm tra hòa
-        if (gameLogic.isStalemate(currentPlayer)) {
+        if (!inCheck && noMoves) {
             return new GameStateResult(GameStateResult.State.STALEMATE, null);
         }
 
         // Kiểm tra chiếu tướng
-        boolean whiteInCheck = gameLogic.isKingInCheck(board, Piece.Color.WHITE);
-        boolean blackInCheck = gameLogic.isKingInCheck(board, Piece.Color.BLACK);
-        if (whiteInCheck || blackInCheck) {
+        Piece.Color opponent = currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        if (inCheck || gameLogic.isKingInCheck(board, opponent)) {
             return new GameStateResult(GameStateResult.State.CHECK, null);
         }
 
@@ -0,0 +1,161 @@
+package com.chess_client.services.engine;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn CPU chung cho mọi lần tìm kiếm trong JVM.
+ *
+ * Mỗi luồng tìm kiếm đang chạy (luồng chính hoặc luồng phụ Lazy SMP, của bất kỳ
+ * ván nào) giữ một suất; tổng số suất bằng một phần số nhân và luôn chừa ít nhất
+ * một nhân cho JavaFX Application Thread, nên nhiều ván chơi với máy cùng lúc
+ * cũng không làm giật giao diện.
+ *
+ * Luồng chính của lần tìm nước chờ tới khi có suất; luồng phụ chỉ lấy suất còn
+ * rảnh (không có thì tìm với ít luồng hơn). Ponder là việc nền: chỉ chạy khi có
+ * suất rảnh và bị dừng ngay khi một lần tìm nước đang phải chờ suất.
+ */
+public final class CpuGovernor {
+
+    // ===================== CONSTANTS =====================
+
+    /** Phần trăm số nhân dành cho tìm kiếm, đổi được bằng -Dchess.engine.cpuCap=... */
+    public static final int DEFAULT_CAP_PERCENT = 75;
+
+    private static final long ACQUIRE_POLL_MILLIS = 10;
+
+    private static CpuGovernor sharedGovernor;
+
+    // ===================== FIELDS =====================
+
+    private final int slots;
+    private final Semaphore permits;
+    // Cờ dừng của các lần tìm nền đang giữ suất (dừng được khi cần nhường suất)
+    private final Set<AtomicBoolean> background = ConcurrentHashMap.newKeySet();
+    private final AtomicLong preemptions = new AtomicLong();
+
+    /**
+     * @param slots Số luồng tìm kiếm được chạy cùng lúc (tối thiểu 1)
+     */
+    public CpuGovernor(int slots) {
+        this.slots = Math.max(1, slots);
+        this.permits = new Semaphore(this.slots, true);
+    }
+
+    /**
+     * Bộ giới hạn dùng chung cho cả JVM, phần trăm số nhân lấy từ system property
+     * {@code chess.engine.cpuCap} (mặc định {@link #DEFAULT_CAP_PERCENT}).
+     */
+    public static synchronized CpuGovernor getShared() {
+        if (sharedGovernor == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            sharedGovernor = new CpuGovernor(slotsFor(cores,
+                    Integer.getInteger("chess.engine.cpuCap", DEFAULT_CAP_PERCENT)));
+        }
+        return sharedGovernor;
+    }
+
+    /**
+     * Số suất cho {@code cores} nhân với mức trần {@code capPercent}: chừa một nhân cho UI
+     * (trừ khi chỉ có một nhân, lúc đó luồng tìm chạy với độ ưu tiên thấp hơn UI).
+     */
+    static int slotsFor(int cores, int capPercent) {
+        int capped = cores * Math.max(0, Math.min(100, capPercent)) / 100;
+        return Math.max(1, Math.min(Math.max(1, cores - 1), capped));
+    }
+
+    // ===================== ACQUIRE =====================
+
+    /**
+     * Lấy một suất cho luồng chính của lần tìm nước, chờ nếu đang hết.
+     * Khi phải chờ thì dừng một lần tìm nền (ponder) để lấy lại suất của nó.
+     *
+     * @param stop Cờ dừng của lần tìm: bật trong lúc chờ thì bỏ cuộc
+     * @return true nếu đã lấy được suất (phải {@link #release} sau khi tìm xong)
+     */
+    public boolean acquire(AtomicBoolean stop) {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        preemptBackground();
+        try {
+            while (!stop.get()) {
+                if (permits.tryAcquire(ACQUIRE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Lấy một suất cho lần tìm nền nếu đang có suất rảnh (không chờ).
+     *
+     * @param stop Cờ dừng của lần tìm nền, được bật khi cần nhường suất
+     * @return true nếu đã lấy được suất (phải {@link #releaseBackground} sau khi tìm xong)
+     */
+    public boolean acquireBackground(AtomicBoolean stop) {
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        background.add(stop);
+        return true;
+    }
+
+    /**
+     * Lấy thêm tối đa {@code wanted} suất đang rảnh cho luồng phụ (không chờ).
+     *
+     * @return Số suất lấy được
+     */
+    public int acquireExtra(int wanted) {
+        int granted = 0;
+        while (granted < wanted && permits.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    public void release(int count) {
+        if (count > 0) {
+            permits.release(count);
+        }
+    }
+
+    public void releaseBackground(AtomicBoolean stop) {
+        background.remove(stop);
+        permits.release();
+    }
+
+    private void preemptBackground() {
+        Iterator<AtomicBoolean> iterator = background.iterator();
+        if (iterator.hasNext()) {
+            AtomicBoolean stop = iterator.next();
+            background.remove(stop);
+            stop.set(true);
+            preemptions.incrementAndGet();
+        }
+    }
+
+    // ===================== GETTERS =====================
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /** Số suất đang rảnh. */
+    public int getAvailableSlots() {
+        return permits.availablePermits();
+    }
+
+    /** Số lần tìm nền đã bị dừng để nhường suất. */
+    public long getPreemptions() {
+        return preemptions.get();
+    }
+}
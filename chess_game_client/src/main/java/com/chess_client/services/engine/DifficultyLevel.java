@@ -0,0 +1,76 @@
+package com.chess_client.services.engine;
+
+/**
+ * Các mức độ khó của máy, mỗi mức là một giới hạn số nút và độ sâu cho một nước
+ * (không theo thời gian thực). Mặc định AIPlayer tìm mỗi nước bằng một luồng, từ bảng băm
+ * và killer/history vừa xoá (LazySmpSearch.clear), nên số nút, nước đi và chi phí CPU của
+ * một mức giống nhau trên mọi máy và khi máy đang tải nặng; chỉ thời gian là khác
+ * (máy quá chậm thì dừng ở {@link #SAFETY_TIME_MILLIS}).
+ *
+ * Đổi lại, mặc định máy không dùng nhiều nhân. {@code -Dchess.engine.reproducible=false}
+ * bật lại Lazy SMP ({@code -Dchess.engine.threads}) và giữ bảng băm giữa các nước: cùng số
+ * nút tìm được sâu hơn, nhưng một mức không còn cho cùng nước đi ở mỗi lần chơi.
+ *
+ * Mỗi mức có thể cộng thêm nhiễu vào điểm các nước ở gốc (tối đa {@link #getNoiseCap()}
+ * centipawn) để máy chơi giống người hơn: nhiễu được tính từ seed và thế cờ nên
+ * cùng seed thì cùng nước đi.
+ */
+public enum DifficultyLevel {
+
+    //   mức, độ sâu, số nút, nhiễu (cp)
+    EASY(1, 2, 5_000, 120),
+    MEDIUM(2, 4, 50_000, 40),
+    HARD(3, 64, 400_000, 0);
+
+    // ===================== CONSTANTS =====================
+
+    /**
+     * Giới hạn thời gian an toàn cho một nước: chỉ để UI không chờ mãi trên máy quá chậm,
+     * bình thường lần tìm dừng vì hết số nút từ lâu trước đó.
+     */
+    public static final long SAFETY_TIME_MILLIS = 10_000;
+
+    // ===================== FIELDS =====================
+
+    private final int difficulty;
+    private final int maxDepth;
+    private final long nodeBudget;
+    private final int noiseCap;
+
+    DifficultyLevel(int difficulty, int maxDepth, long nodeBudget, int noiseCap) {
+        this.difficulty = difficulty;
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+        this.noiseCap = noiseCap;
+    }
+
+    /**
+     * @param difficulty 1: dễ, 2: trung bình, 3: khó (ngoài khoảng thì lấy mức gần nhất)
+     */
+    public static DifficultyLevel of(int difficulty) {
+        if (difficulty <= 1) {
+            return EASY;
+        }
+        return difficulty == 2 ? MEDIUM : HARD;
+    }
+
+    // ===================== GETTERS =====================
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** Số nút tối đa cho một nước. */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /** Biên độ nhiễu ở gốc (centipawn), 0 = không nhiễu. */
+    public int getNoiseCap() {
+        return noiseCap;
+    }
+}
@@ -0,0 +1,365 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.AIPlayer;
+import com.chess_client.services.GameLogic;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark dòng lệnh cho bộ tìm kiếm của máy.
+ *
+ * Chạy sau khi build:
+ * <pre>
+ *   java -cp target/classes com.chess_client.services.engine.EngineBenchmark smp [maxThreads] [depth]
+ *   java -cp target/classes com.chess_client.services.engine.EngineBenchmark ordering [depth]
+ *   java -cp target/classes com.chess_client.services.engine.EngineBenchmark levels
+ *   java -cp target/classes com.chess_client.services.engine.EngineBenchmark frames [plies]
+ * </pre>
+ *
+ * Chế độ {@code smp}: với mỗi số luồng từ 1 đến maxThreads, tìm tới độ sâu cố
+ * định trên cùng một bộ thế cờ (bảng băm được xoá trước mỗi thế) và in ra
+ * thời gian tới độ sâu, tổng số nút, nodes/sec và hệ số tăng tốc so với 1 luồng.
+ *
+ * Chế độ {@code ordering}: tìm một luồng tới độ sâu cố định, lần lượt bật thêm
+ * từng heuristic sắp xếp nước (nước băm, MVV-LVA, killer, history, SEE) và in số
+ * nút (kèm số nút tìm kiếm tĩnh), mức giảm so với thứ tự sinh nước và tỉ lệ cắt
+ * tỉa ngay ở nước đầu tiên.
+ *
+ * Chế độ {@code levels}: với mỗi DifficultyLevel, tìm một nước trên mỗi thế cờ theo
+ * đúng cách của AIPlayer (một bộ tìm dùng suốt, một luồng, CpuGovernor chung, xoá trạng
+ * thái trước mỗi nước, cùng seed nhiễu) rồi in số nút và thời gian trung bình/tối đa mỗi
+ * nước; chạy lại theo thứ tự ngược và báo số nút từng thế có lặp lại y hệt không.
+ *
+ * Chế độ {@code frames}: máy tự đấu (mức trung bình, không ponder) trong lúc một luồng
+ * giả lập vòng vẽ 60 Hz của giao diện, lần lượt với tìm kiếm trong tiến trình và ở
+ * JVM con (EngineProcess); in thời gian khung hình (FrameTimeStats) và thời gian GC
+ * của JVM giao diện cho từng chế độ.
+ */
+public class EngineBenchmark {
+
+    private static final int POSITIONS = 4;
+    private static final long SEED = 20240601L;
+    private static final long NO_TIME_LIMIT = 3_600_000L;
+
+    // Thế cờ thêm cho chế độ ordering: Kiwipete và hai thế có nhiều nước ăn quân
+    private static final String[] ORDERING_FENS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R1BQKB1R w KQ - 0 8",
+            "2r3k1/pp3ppp/2n1b3/3pP3/3P4/P1N2N2/1P3PPP/2R3K1 b - - 0 20"
+    };
+
+    // Các cấu hình bật dần heuristic sắp xếp nước
+    private static final String[] ORDERING_NAMES = {
+            "generation", "+hash", "+mvv-lva", "+killers", "+history", "+see"
+    };
+    private static final int[] ORDERING_FEATURES = {
+            0,
+            MoveOrdering.HASH_MOVE,
+            MoveOrdering.HASH_MOVE | MoveOrdering.MVV_LVA,
+            MoveOrdering.HASH_MOVE | MoveOrdering.MVV_LVA | MoveOrdering.KILLERS,
+            MoveOrdering.HASH_MOVE | MoveOrdering.MVV_LVA | MoveOrdering.KILLERS | MoveOrdering.HISTORY,
+            MoveOrdering.ALL
+    };
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "smp";
+        if ("smp".equals(mode)) {
+            int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : LazySmpSearch.MAX_THREADS;
+            int depth = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+            runSmp(Math.min(maxThreads, LazySmpSearch.MAX_THREADS), depth);
+        } else if ("ordering".equals(mode)) {
+            runOrdering(args.length > 1 ? Integer.parseInt(args[1]) : 4);
+        } else if ("levels".equals(mode)) {
+            runLevels();
+        } else if ("frames".equals(mode)) {
+            runFrames(args.length > 1 ? Integer.parseInt(args[1]) : 40);
+        } else {
+            System.err.println("Chế độ không hợp lệ: " + mode + " (hỗ trợ: smp, ordering, levels, frames)");
+        }
+    }
+
+    // ===================== LAZY SMP =====================
+
+    private static void runSmp(int maxThreads, int depth) {
+        List<Board> positions = benchmarkPositions();
+        TranspositionTable table = new TranspositionTable(64);
+
+        System.out.printf("Lazy SMP: %d thế cờ, độ sâu %d, tối đa %d luồng%n", positions.size(), depth, maxThreads);
+        System.out.printf("%7s %12s %12s %12s %8s %8s%n", "threads", "time(ms)", "nodes", "nodes/s", "speedup", "hit%");
+
+        // Chạy nóng JIT một lần trước khi đo
+        measure(positions, table, 1, Math.max(1, depth - 1));
+
+        double baseTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            double[] stats = measure(positions, table, threads, depth);
+            double time = stats[0];
+            long nodes = (long) stats[1];
+            if (threads == 1) {
+                baseTime = time;
+            }
+            System.out.printf("%7d %12.0f %12d %12.0f %8.2f %8.1f%n", threads, time, nodes,
+                    nodes / Math.max(time, 1) * 1000, baseTime / Math.max(time, 1), stats[2] * 100);
+        }
+    }
+
+    /**
+     * @return {thời gian (ms), tổng số nút, tỉ lệ hit bảng băm}
+     */
+    private static double[] measure(List<Board> positions, TranspositionTable table, int threads, int depth) {
+        // Không qua CpuGovernor: đo đúng số luồng yêu cầu
+        LazySmpSearch search = new LazySmpSearch(table, threads, null);
+        long nodes = 0;
+        long start = System.nanoTime();
+        table.resetCounters();
+        for (Board position : positions) {
+            table.clear();
+            nodes += search.search(position, position.getSideToMove(), NO_TIME_LIMIT, depth).getNodes();
+        }
+        double time = (System.nanoTime() - start) / 1_000_000.0;
+        double hitRate = table.getHitRate();
+        search.shutdown();
+        return new double[] { time, nodes, hitRate };
+    }
+
+    // ===================== MOVE ORDERING =====================
+
+    private static void runOrdering(int depth) {
+        List<Board> positions = benchmarkPositions();
+        for (String fen : ORDERING_FENS) {
+            positions.add(Board.fromFen(fen));
+        }
+        TranspositionTable table = new TranspositionTable(64);
+
+        System.out.printf("Sắp xếp nước: %d thế cờ, độ sâu %d, 1 luồng%n", positions.size(), depth);
+        System.out.printf("%-12s %12s %12s %10s %12s %8s%n",
+                "ordering", "nodes", "qnodes", "reduction", "time(ms)", "first%");
+
+        // Chạy nóng JIT một lần trước khi đo
+        measureOrdering(positions, table, MoveOrdering.ALL, Math.max(1, depth - 1));
+
+        long baseNodes = 0;
+        for (int i = 0; i < ORDERING_FEATURES.length; i++) {
+            double[] stats = measureOrdering(positions, table, ORDERING_FEATURES[i], depth);
+            long nodes = (long) stats[1];
+            if (i == 0) {
+                baseNodes = nodes;
+            }
+            System.out.printf("%-12s %12d %12d %9.1f%% %12.0f %8.1f%n", ORDERING_NAMES[i], nodes, (long) stats[3],
+                    100.0 * (baseNodes - nodes) / Math.max(baseNodes, 1), stats[0], stats[2] * 100);
+        }
+    }
+
+    /**
+     * @return {thời gian (ms), tổng số nút, tỉ lệ cắt tỉa ở nước đầu tiên, số nút tìm kiếm tĩnh}
+     */
+    private static double[] measureOrdering(List<Board> positions, TranspositionTable table, int features, int depth) {
+        long nodes = 0;
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        long quiescenceNodes = 0;
+        long start = System.nanoTime();
+        for (Board position : positions) {
+            table.clear();
+            SearchEngine engine = new SearchEngine(table, features);
+            nodes += engine.search(position, position.getSideToMove(), NO_TIME_LIMIT, depth).getNodes();
+            cutoffs += engine.getCutoffs();
+            firstMoveCutoffs += engine.getFirstMoveCutoffs();
+            quiescenceNodes += engine.getQuiescenceNodes();
+        }
+        double time = (System.nanoTime() - start) / 1_000_000.0;
+        return new double[] { time, nodes, (double) firstMoveCutoffs / Math.max(cutoffs, 1), quiescenceNodes };
+    }
+
+    // ===================== DIFFICULTY LEVELS =====================
+
+    private static void runLevels() {
+        List<Board> positions = benchmarkPositions();
+        for (String fen : ORDERING_FENS) {
+            positions.add(Board.fromFen(fen));
+        }
+        // Như AIPlayer: bảng băm riêng, một luồng, CpuGovernor chung
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(TranspositionTable.configuredSizeMb()), 1);
+        List<Board> reversed = new ArrayList<>(positions);
+        Collections.reverse(reversed);
+
+        System.out.printf("Mức độ khó: %d thế cờ, 1 luồng, seed %d%n", positions.size(), SEED);
+        System.out.printf("%-8s %6s %10s %10s %10s %10s %10s %8s%n", "level", "depth", "budget",
+                "nodes/mv", "ms/mv", "max ms", "nodes/s", "repeat");
+
+        // Chạy nóng JIT một lần trước khi đo
+        measureLevel(search, positions, DifficultyLevel.MEDIUM);
+
+        for (DifficultyLevel level : DifficultyLevel.values()) {
+            long[] nodes = new long[positions.size()];
+            double[] stats = measureLevel(search, positions, level, nodes);
+            // Thứ tự ngược: trạng thái còn lại từ các nước trước khác hẳn lần đầu
+            long[] again = new long[positions.size()];
+            measureLevel(search, reversed, level, again);
+            boolean repeat = true;
+            for (int i = 0; i < nodes.length; i++) {
+                repeat &= nodes[i] == again[nodes.length - 1 - i];
+            }
+            double moves = positions.size();
+            System.out.printf("%-8s %6d %10d %10.0f %10.1f %10.1f %10.0f %8s%n", level, level.getMaxDepth(),
+                    level.getNodeBudget(), stats[1] / moves, stats[0] / moves, stats[2],
+                    stats[1] / Math.max(stats[0], 1) * 1000, repeat ? "yes" : "no");
+        }
+        search.shutdown();
+    }
+
+    private static double[] measureLevel(LazySmpSearch search, List<Board> positions, DifficultyLevel level) {
+        return measureLevel(search, positions, level, new long[positions.size()]);
+    }
+
+    /**
+     * @param nodesOut Nhận số nút của từng thế cờ
+     * @return {tổng thời gian (ms), tổng số nút, thời gian lâu nhất cho một nước (ms)}
+     */
+    private static double[] measureLevel(LazySmpSearch search, List<Board> positions, DifficultyLevel level,
+                                         long[] nodesOut) {
+        search.setRootNoise(level.getNoiseCap(), SEED);
+        long nodes = 0;
+        double total = 0;
+        double longest = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            Board position = positions.get(i);
+            search.clear();
+            long start = System.nanoTime();
+            nodesOut[i] = search.search(position, position.getSideToMove(), DifficultyLevel.SAFETY_TIME_MILLIS,
+                    level.getMaxDepth(), level.getNodeBudget(), new AtomicBoolean()).getNodes();
+            double time = (System.nanoTime() - start) / 1_000_000.0;
+            nodes += nodesOut[i];
+            total += time;
+            longest = Math.max(longest, time);
+        }
+        return new double[] { total, nodes, longest };
+    }
+
+    // ===================== UI FRAME TIMES =====================
+
+    private static void runFrames(int plies) {
+        System.setProperty("chess.engine.ponder", "false");
+        System.out.printf("Khung hình 60 Hz khi máy tự đấu %d nửa nước (mức trung bình)%n", plies);
+        System.out.printf("%-15s %7s %8s %8s %8s %8s %6s %6s %8s%n", "mode", "frames", "avg ms", "p50 ms",
+                "p99 ms", "max ms", "jank", "gc", "gc ms");
+
+        // Chạy nóng JIT một lần trước khi đo
+        measureFrames(false, Math.min(plies, 8));
+
+        for (boolean outOfProcess : new boolean[] { false, true }) {
+            long[] gcBefore = gcTotals();
+            FrameTimeStats stats = measureFrames(outOfProcess, plies);
+            long[] gcAfter = gcTotals();
+            System.out.printf("%-15s %7d %8.2f %8.2f %8.2f %8.2f %6d %6d %8d%n",
+                    outOfProcess ? "out-of-process" : "in-process", stats.getFrames(), stats.getAverageMillis(),
+                    stats.getPercentileMillis(50), stats.getPercentileMillis(99), stats.getMaxMillis(),
+                    stats.getJankFrames(), gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        }
+    }
+
+    /**
+     * Máy tự đấu {@code plies} nửa nước trong lúc luồng "chess-frame-bench" ghi
+     * khoảng cách giữa các khung hình 60 Hz.
+     */
+    private static FrameTimeStats measureFrames(boolean outOfProcess, int plies) {
+        System.setProperty("chess.engine.outOfProcess", Boolean.toString(outOfProcess));
+        Board board = new Board();
+        GameLogic gameLogic = new GameLogic(board);
+        AIPlayer white = new AIPlayer(board, gameLogic, Piece.Color.WHITE, 2, SEED);
+        AIPlayer black = new AIPlayer(board, gameLogic, Piece.Color.BLACK, 2, SEED);
+
+        FrameTimeStats stats = new FrameTimeStats();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread frames = new Thread(() -> {
+            long period = Math.round(FrameTimeStats.TARGET_FRAME_MILLIS * 1_000_000);
+            long last = System.nanoTime();
+            long next = last + period;
+            while (!done.get()) {
+                LockSupport.parkNanos(next - System.nanoTime());
+                long now = System.nanoTime();
+                stats.record(now - last);
+                last = now;
+                next = Math.max(next + period, now);
+            }
+        }, "chess-frame-bench");
+        frames.setDaemon(true);
+        frames.start();
+
+        try {
+            for (int ply = 0; ply < plies; ply++) {
+                AIPlayer player = board.getSideToMove() == Piece.Color.WHITE ? white : black;
+                Move move = player.makeMove(board.copy());
+                if (move == null) {
+                    break;
+                }
+                board.movePiece(move);
+            }
+        } finally {
+            done.set(true);
+            white.shutdown();
+            black.shutdown();
+            System.clearProperty("chess.engine.outOfProcess");
+        }
+        try {
+            frames.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return stats;
+    }
+
+    /**
+     * @return {tổng số lần GC, tổng thời gian GC (ms)} của JVM hiện tại
+     */
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { count, time };
+    }
+
+    // ===================== POSITIONS =====================
+
+    /**
+     * Thế cờ khai cuộc và vài thế trung cuộc lấy từ các ván ngẫu nhiên có seed cố định,
+     * để mọi lần chạy đo trên cùng một bộ thế cờ.
+     */
+    static List<Board> benchmarkPositions() {
+        List<Board> positions = new ArrayList<>();
+        positions.add(new Board());
+
+        Random random = new Random(SEED);
+        while (positions.size() < POSITIONS) {
+            Board board = new Board();
+            Piece.Color side = Piece.Color.WHITE;
+            boolean finished = false;
+            for (int ply = 0; ply < 16 + positions.size() * 4; ply++) {
+                List<Move> moves = new GameLogic(board).getAllValidMoves(side);
+                if (moves.isEmpty()) {
+                    finished = true;
+                    break;
+                }
+                board.movePiece(moves.get(random.nextInt(moves.size())));
+                side = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+            }
+            if (!finished) {
+                positions.add(board);
+            }
+        }
+        return positions;
+    }
+}
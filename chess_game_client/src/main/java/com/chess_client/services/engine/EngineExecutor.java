@@ -0,0 +1,398 @@
+package com.chess_client.services.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dịch vụ tìm kiếm dùng chung cho mọi ván chơi với máy trong JVM.
+ *
+ * Các luồng nền (số lượng có giới hạn) chạy tìm kiếm của máy, để JavaFX Application
+ * Thread không bao giờ phải chờ tìm kiếm. Mỗi ván mở một {@link Game} có hàng đợi
+ * riêng; luồng nền rảnh lấy việc lần lượt theo vòng từ các ván đang có việc chờ,
+ * nên một ván gửi nhiều việc không làm ván khác chờ lâu. Mỗi ván có giới hạn thời
+ * gian và số nút cho một nước, và đo độ trễ (chờ hàng đợi + tìm) của từng nước.
+ * Tổng số luồng tìm kiếm chạy cùng lúc do CpuGovernor giới hạn.
+ *
+ * Công việc nhận vào nên chỉ đọc một bản sao thế cờ riêng (snapshot) tạo trên
+ * luồng gọi; kết quả được đưa cho {@code onResult} trên luồng nền, bên gọi tự
+ * chuyển về luồng UI (ví dụ Platform.runLater). Công việc đã huỷ thì không bao
+ * giờ gọi {@code onResult}.
+ */
+public final class EngineExecutor {
+
+    // ===================== CONSTANTS =====================
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static EngineExecutor sharedExecutor;
+
+    // ===================== FIELDS =====================
+
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger gameCounter = new AtomicInteger();
+
+    // Các trường dưới đây được bảo vệ bởi khoá của đối tượng này
+    private final List<Game> games = new ArrayList<>();
+    private final ArrayDeque<Game> ready = new ArrayDeque<>();    // Ván có việc chờ, theo thứ tự vòng
+    private int queuedTasks;
+    private int peakQueuedTasks;
+    private int activeTasks;
+
+    /**
+     * @param threads Số luồng nền (mỗi luồng là luồng chính của một lần tìm Lazy SMP)
+     */
+    public EngineExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        int size = Math.max(1, threads);
+        // Mỗi việc gửi vào pool chỉ là "chạy việc kế tiếp": việc nào chạy do runNext chọn
+        this.workers = new ThreadPoolExecutor(size, size, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "chess-engine-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Bộ chạy dùng chung cho cả JVM, số luồng lấy từ system property
+     * {@code chess.engine.workers} (mặc định 2: một ván tìm, một ván chờ không bị chặn),
+     * không vượt quá số suất của CpuGovernor.
+     */
+    public static synchronized EngineExecutor getShared() {
+        if (sharedExecutor == null) {
+            int threads = Integer.getInteger("chess.engine.workers", 2);
+            sharedExecutor = new EngineExecutor(Math.min(threads, CpuGovernor.getShared().getSlots()));
+        }
+        return sharedExecutor;
+    }
+
+    // ===================== GAMES =====================
+
+    /**
+     * Mở một ván với giới hạn mặc định từ system property {@code chess.engine.moveTimeMillis}
+     * và {@code chess.engine.moveNodes} (mặc định 0: chỉ theo mức độ khó).
+     */
+    public Game openGame(String name) {
+        return openGame(name, Long.getLong("chess.engine.moveTimeMillis", 0),
+                Long.getLong("chess.engine.moveNodes", 0));
+    }
+
+    /**
+     * @param timeBudgetMillis Thời gian tối đa cho một nước, 0 = không giới hạn thêm
+     * @param nodeBudget       Số nút tối đa cho một nước, 0 = không giới hạn thêm
+     */
+    public synchronized Game openGame(String name, long timeBudgetMillis, long nodeBudget) {
+        Game game = new Game(this, name + "#" + gameCounter.incrementAndGet(), timeBudgetMillis, nodeBudget);
+        games.add(game);
+        return game;
+    }
+
+    /**
+     * Các ván đang mở (bản sao, dùng để theo dõi).
+     */
+    public synchronized List<Game> getGames() {
+        return new ArrayList<>(games);
+    }
+
+    // ===================== SCHEDULING =====================
+
+    private void enqueue(Game game, Task task) {
+        synchronized (this) {
+            game.pending.add(task);
+            if (game.pending.size() == 1) {
+                ready.add(game);
+            }
+            queuedTasks++;
+            peakQueuedTasks = Math.max(peakQueuedTasks, queuedTasks);
+        }
+        workers.execute(this::runNext);
+    }
+
+    /**
+     * Chạy việc của ván kế tiếp trong vòng. Số lần gọi bằng số việc đã gửi,
+     * nên mọi việc chưa huỷ đều được chạy đúng một lần.
+     */
+    private void runNext() {
+        Task task = next();
+        if (task == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            task.body.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            finish(task, started, System.nanoTime());
+        }
+    }
+
+    private synchronized Task next() {
+        Game game = ready.poll();
+        if (game == null) {
+            return null;    // Việc tương ứng đã bị huỷ khi còn chờ
+        }
+        Task task = game.pending.poll();
+        if (!game.pending.isEmpty()) {
+            ready.add(game);
+        }
+        queuedTasks--;
+        activeTasks++;
+        game.running.add(task);
+        return task;
+    }
+
+    private synchronized void finish(Task task, long startedNanos, long finishedNanos) {
+        activeTasks--;
+        task.game.running.remove(task);
+        task.done = true;
+        if (!task.isCancelled()) {
+            task.game.record(startedNanos - task.submittedNanos, finishedNanos - task.submittedNanos);
+        }
+    }
+
+    /**
+     * Bỏ một việc bị huỷ khi còn chờ khỏi hàng đợi.
+     */
+    private synchronized void remove(Task task) {
+        Game game = task.game;
+        if (game.pending.remove(task)) {
+            queuedTasks--;
+            task.done = true;
+            if (game.pending.isEmpty()) {
+                ready.remove(game);
+            }
+        }
+    }
+
+    // ===================== METRICS =====================
+
+    /**
+     * Số công việc đang chờ trong hàng đợi (chưa chạy) của mọi ván.
+     */
+    public synchronized int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    /**
+     * Số công việc chờ nhiều nhất từng thấy.
+     */
+    public synchronized int getPeakQueuedTasks() {
+        return peakQueuedTasks;
+    }
+
+    /**
+     * Số công việc đang chạy.
+     */
+    public synchronized int getActiveTasks() {
+        return activeTasks;
+    }
+
+    // ===================== JOB =====================
+
+    /**
+     * Một lần tìm kiếm, chạy trên luồng nền.
+     */
+    @FunctionalInterface
+    public interface Job<T> {
+        /**
+         * @param stop             Cờ huỷ của chính công việc, truyền cho tìm kiếm: huỷ có tác dụng
+         *                         kể cả khi xảy ra trước lúc tìm bắt đầu
+         * @param timeBudgetMillis Thời gian tối đa của ván cho một nước, 0 = không giới hạn thêm
+         * @param nodeBudget       Số nút tối đa của ván cho một nước, 0 = không giới hạn thêm
+         */
+        T run(AtomicBoolean stop, long timeBudgetMillis, long nodeBudget);
+    }
+
+    // ===================== GAME =====================
+
+    /**
+     * Một ván chơi với máy: hàng đợi, giới hạn cho mỗi nước và số liệu độ trễ riêng.
+     */
+    public static final class Game {
+        private final EngineExecutor executor;
+        private final String name;
+        private final long timeBudgetMillis;
+        private final long nodeBudget;
+
+        // Được bảo vệ bởi khoá của executor
+        private final ArrayDeque<Task> pending = new ArrayDeque<>();
+        private final List<Task> running = new ArrayList<>();
+        private boolean closed;
+        private int completedMoves;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        private long totalQueueNanos;
+
+        private Game(EngineExecutor executor, String name, long timeBudgetMillis, long nodeBudget) {
+            this.executor = executor;
+            this.name = name;
+            this.timeBudgetMillis = Math.max(0, timeBudgetMillis);
+            this.nodeBudget = Math.max(0, nodeBudget);
+        }
+
+        /**
+         * Đưa một lần tìm vào hàng đợi của ván.
+         *
+         * @param job      Công việc tìm kiếm (chạy trên luồng nền)
+         * @param onResult Nhận kết quả trên luồng nền nếu công việc chưa bị huỷ
+         * @param onCancel Việc cần làm thêm khi huỷ (ví dụ dừng ponder), có thể null
+         * @return Handle để huỷ (đã huỷ sẵn nếu ván đã đóng)
+         */
+        public <T> Task submit(Job<T> job, Consumer<T> onResult, Runnable onCancel) {
+            Task task = new Task(this, onCancel);
+            task.body = () -> {
+                if (task.isCancelled()) {
+                    return;
+                }
+                T result = job.run(task.cancelled, timeBudgetMillis, nodeBudget);
+                if (!task.isCancelled()) {
+                    onResult.accept(result);
+                }
+            };
+            synchronized (executor) {
+                if (closed) {
+                    task.cancelled.set(true);
+                    task.done = true;
+                    return task;
+                }
+            }
+            executor.enqueue(this, task);
+            return task;
+        }
+
+        /**
+         * Đóng ván: huỷ mọi việc đang chờ hoặc đang chạy, không nhận việc mới.
+         */
+        public void close() {
+            List<Task> cancelled;
+            synchronized (executor) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                cancelled = new ArrayList<>(pending);
+                cancelled.addAll(running);
+                executor.games.remove(this);
+            }
+            for (Task task : cancelled) {
+                task.cancel();
+            }
+        }
+
+        private void record(long queueNanos, long latencyNanos) {
+            completedMoves++;
+            totalQueueNanos += queueNanos;
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getTimeBudgetMillis() {
+            return timeBudgetMillis;
+        }
+
+        public long getNodeBudget() {
+            return nodeBudget;
+        }
+
+        public boolean isClosed() {
+            synchronized (executor) {
+                return closed;
+            }
+        }
+
+        /** Số việc của ván đang chờ. */
+        public int getQueuedTasks() {
+            synchronized (executor) {
+                return pending.size();
+            }
+        }
+
+        /** Số nước đã tìm xong (không tính việc bị huỷ). */
+        public int getCompletedMoves() {
+            synchronized (executor) {
+                return completedMoves;
+            }
+        }
+
+        /** Độ trễ trung bình từ lúc gửi tới lúc có kết quả (ms). */
+        public double getAverageLatencyMillis() {
+            synchronized (executor) {
+                return completedMoves == 0 ? 0 : totalLatencyNanos / 1_000_000.0 / completedMoves;
+            }
+        }
+
+        public double getMaxLatencyMillis() {
+            synchronized (executor) {
+                return maxLatencyNanos / 1_000_000.0;
+            }
+        }
+
+        /** Thời gian chờ hàng đợi trung bình (ms). */
+        public double getAverageQueueMillis() {
+            synchronized (executor) {
+                return completedMoves == 0 ? 0 : totalQueueNanos / 1_000_000.0 / completedMoves;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d nước, trễ TB %.1f ms (tối đa %.1f ms), chờ TB %.1f ms",
+                    name, getCompletedMoves(), getAverageLatencyMillis(), getMaxLatencyMillis(),
+                    getAverageQueueMillis());
+        }
+    }
+
+    // ===================== TASK =====================
+
+    /**
+     * Một lần tìm đã gửi; huỷ được từ bất kỳ luồng nào mà không phải chờ.
+     */
+    public static final class Task {
+        private final Game game;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final Runnable onCancel;
+        private final long submittedNanos = System.nanoTime();
+        private Runnable body;
+        private volatile boolean done;
+
+        private Task(Game game, Runnable onCancel) {
+            this.game = game;
+            this.onCancel = onCancel;
+        }
+
+        /**
+         * Huỷ: bỏ khỏi hàng đợi nếu chưa chạy, báo dừng nếu đang chạy, bỏ kết quả nếu đã xong.
+         */
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            if (onCancel != null) {
+                onCancel.run();
+            }
+            game.executor.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
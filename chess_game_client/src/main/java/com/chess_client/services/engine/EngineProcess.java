@@ -0,0 +1,276 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.PackedMove;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Máy chơi cờ chạy trong một JVM con (UciEngine), nói chuyện qua pipe stdin/stdout.
+ *
+ * JVM con có heap và GC riêng (đổi bằng -Dchess.engine.processJvmArgs=...), nên
+ * rác do tìm kiếm tạo ra không bao giờ gây dừng GC trong JVM giao diện đang vẽ BoardView.
+ * Mọi lỗi của tiến trình con (không khởi động được, chết giữa chừng, trả lời sai)
+ * đều được báo bằng IOException để bên gọi chuyển sang tìm trong tiến trình.
+ */
+public final class EngineProcess implements AutoCloseable {
+
+    // ===================== CONSTANTS =====================
+
+    /** Heap nhỏ và GC thông lượng cao: tìm kiếm không cần thời gian dừng ngắn */
+    public static final String DEFAULT_JVM_ARGS = "-Xms32m -Xmx256m -XX:+UseParallelGC";
+
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 15_000;
+    private static final long POLL_MILLIS = 10;
+    private static final long QUIT_TIMEOUT_MILLIS = 1_000;
+    private static final long RESPONSE_GRACE_MILLIS = 5_000;  // Chờ thêm sau giờ tìm / sau lệnh stop
+    private static final String END_OF_STREAM = "\u0000eof";
+
+    // ===================== FIELDS =====================
+
+    private final Process process;
+    private final PrintStream commands;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+    private EngineProcess(Process process) {
+        this.process = process;
+        this.commands = new PrintStream(process.getOutputStream(), true, StandardCharsets.UTF_8);
+
+        // Luồng đọc riêng để luồng tìm kiếm chờ trả lời mà vẫn xem được cờ dừng
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    replies.add(line);
+                }
+            } catch (IOException e) {
+                // Tiến trình con đã đóng pipe
+            }
+            replies.add(END_OF_STREAM);
+        }, "chess-engine-process-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Khởi động JVM con và bắt tay UCI.
+     *
+     * @param threads Số luồng tìm kiếm của JVM con
+     * @param hashMb  Kích thước bảng băm của JVM con
+     * @throws IOException Nếu không khởi động được hoặc JVM con không trả lời kịp
+     */
+    public static EngineProcess start(int threads, int hashMb) throws IOException {
+        EngineProcess engine = launch();
+        engine.handshake(threads, hashMb);
+        return engine;
+    }
+
+    /**
+     * Chỉ khởi động JVM con, chưa bắt tay: bên gọi giữ được tham chiếu để
+     * {@link #destroy()} ngay cả khi JVM con treo lúc bắt tay.
+     *
+     * @throws IOException Nếu không khởi động được
+     */
+    public static EngineProcess launch() throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command());
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return new EngineProcess(builder.start());
+    }
+
+    /**
+     * Bắt tay UCI với JVM con vừa {@link #launch()}; lỗi thì huỷ JVM con.
+     *
+     * @param threads Số luồng tìm kiếm của JVM con
+     * @param hashMb  Kích thước bảng băm của JVM con
+     * @throws IOException Nếu JVM con không trả lời kịp hoặc đã bị huỷ
+     */
+    public synchronized void handshake(int threads, int hashMb) throws IOException {
+        try {
+            send("uci");
+            await("uciok", HANDSHAKE_TIMEOUT_MILLIS);
+            send("setoption name Threads value " + threads);
+            send("setoption name Hash value " + hashMb);
+            send("isready");
+            await("readyok", HANDSHAKE_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    /**
+     * Lệnh chạy UciEngine bằng cùng bản Java và cùng classpath/module path với JVM hiện tại.
+     */
+    static List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : System.getProperty("chess.engine.processJvmArgs", DEFAULT_JVM_ARGS).trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                command.add(arg);
+            }
+        }
+        Module module = UciEngine.class.getModule();
+        if (module.isNamed()) {
+            String modulePath = System.getProperty("jdk.module.path");
+            if (modulePath != null) {
+                command.add("--module-path");
+                command.add(modulePath);
+            }
+            command.add("--module");
+            command.add(module.getName() + "/" + UciEngine.class.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(UciEngine.class.getName());
+        }
+        return command;
+    }
+
+    // ===================== SEARCH =====================
+
+    /**
+     * Nhiễu ở gốc của mức độ khó (xem {@link SearchEngine#setRootNoise}).
+     */
+    public synchronized void setRootNoise(int cap, long seed) throws IOException {
+        send("setoption name EvalNoise value " + cap);
+        send("setoption name NoiseSeed value " + seed);
+    }
+
+    /**
+     * Xoá bảng băm và killer/history của JVM con (lệnh ucinewgame) trước lần tìm sau.
+     */
+    public synchronized void clear() throws IOException {
+        send("ucinewgame");
+    }
+
+    /**
+     * Tìm nước cho bên đang đi trong {@code position}. Bật {@code stop} thì JVM con
+     * nhận lệnh "stop" và trả nước tốt nhất đã có.
+     *
+     * @param maxNodes Số nút tối đa, 0 = không giới hạn
+     * @return Nước đi, hoặc null nếu không còn nước hợp lệ
+     * @throws IOException Nếu JVM con chết hoặc trả lời sai
+     */
+    public synchronized Move search(Board position, long timeMillis, int maxDepth, long maxNodes,
+                                    AtomicBoolean stop) throws IOException {
+        send("position fen " + position.toFen());
+        send("go depth " + maxDepth + " movetime " + Math.max(1, timeMillis)
+                + (maxNodes > 0 ? " nodes " + maxNodes : ""));
+
+        boolean stopSent = false;
+        long deadline = System.nanoTime() + (Math.max(1, timeMillis) + RESPONSE_GRACE_MILLIS) * 1_000_000L;
+        while (true) {
+            if (stop.get() && !stopSent) {
+                send("stop");
+                stopSent = true;
+                deadline = Math.min(deadline, System.nanoTime() + RESPONSE_GRACE_MILLIS * 1_000_000L);
+            }
+            String line = poll();
+            if (line == null) {
+                if (System.nanoTime() > deadline) {
+                    // Treo: coi như đã chết để bên gọi chuyển sang tìm trong tiến trình
+                    process.destroyForcibly();
+                    throw new IOException("Máy tiến trình con không trả bestmove đúng hạn");
+                }
+                continue;
+            }
+            if (line.startsWith("bestmove")) {
+                String[] tokens = line.split("\\s+");
+                if (tokens.length < 2 || "0000".equals(tokens[1])) {
+                    return null;
+                }
+                int move = UciEngine.findMove(position, tokens[1]);
+                if (move == PackedMove.NONE) {
+                    throw new IOException("Máy tiến trình con trả nước không hợp lệ: " + line);
+                }
+                return PackedMove.toMove(move, position);
+            }
+        }
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /** Mã tiến trình của JVM con. */
+    public long pid() {
+        return process.pid();
+    }
+
+    /**
+     * Huỷ JVM con ngay, không chờ nó thoát. Pipe đóng lại nên lần bắt tay hoặc
+     * lần tìm đang chờ trả lời ném IOException ngay. Gọi được từ luồng UI.
+     */
+    public void destroy() {
+        process.destroyForcibly();
+    }
+
+    /**
+     * Yêu cầu JVM con thoát, quá {@link #QUIT_TIMEOUT_MILLIS} thì huỷ hẳn.
+     * Có thể chờ tới {@link #QUIT_TIMEOUT_MILLIS}: không gọi từ luồng UI, dùng {@link #destroy()}.
+     */
+    @Override
+    public void close() {
+        commands.println("quit");
+        try {
+            if (!process.waitFor(QUIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    // ===================== PIPE =====================
+
+    private void send(String command) throws IOException {
+        commands.println(command);
+        if (commands.checkError()) {
+            throw new IOException("Không gửi được lệnh cho máy tiến trình con: " + command);
+        }
+    }
+
+    /**
+     * Dòng trả lời kế tiếp, hoặc null nếu chưa có trong {@link #POLL_MILLIS}.
+     */
+    private String poll() throws IOException {
+        String line;
+        try {
+            line = replies.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ máy tiến trình con", e);
+        }
+        if (END_OF_STREAM.equals(line)) {
+            replies.add(END_OF_STREAM);     // Giữ lại cho các lần đọc sau
+            throw new IOException("Máy tiến trình con đã dừng (mã thoát "
+                    + (process.isAlive() ? "?" : process.exitValue()) + ")");
+        }
+        return line;
+    }
+
+    private void await(String prefix, long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            String line = poll();
+            if (line != null && line.startsWith(prefix)) {
+                return;
+            }
+        }
+        throw new IOException("Máy tiến trình con không trả lời \"" + prefix + "\"");
+    }
+}
@@ -0,0 +1,222 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Board;
+import com.chess_client.models.Piece;
+
+/**
+ * Đánh giá tĩnh một thế cờ cho bộ tìm kiếm.
+ * Điểm tính theo centipawn (100 = một tốt), dương nghĩa là có lợi cho bên được hỏi.
+ *
+ * Gồm vật chất, điểm theo ô (PST) trung cuộc / tàn cuộc, độ linh động của
+ * quân nhẹ và quân nặng, cấu trúc tốt (tốt chồng, tốt cô lập, tốt thông)
+ * và an toàn vua. Vật chất và PST do Board cộng dồn trong setPiece (tức là
+ * trong movePiece/undoMove) nên lá cây tìm kiếm chỉ đọc lại tổng; các thành
+ * phần còn lại dùng bitboard. Điểm trung cuộc và tàn cuộc được trộn theo
+ * giai đoạn ván cờ (Board.getPhase).
+ */
+public class Evaluator {
+
+    // ===================== PIECE VALUES =====================
+
+    public static final int PAWN_VALUE = Piece.Type.PAWN.getValue();
+    public static final int KNIGHT_VALUE = Piece.Type.KNIGHT.getValue();
+    public static final int BISHOP_VALUE = Piece.Type.BISHOP.getValue();
+    public static final int ROOK_VALUE = Piece.Type.ROOK.getValue();
+    public static final int QUEEN_VALUE = Piece.Type.QUEEN.getValue();
+
+    /**
+     * Giá trị vật chất của một loại quân (vua = 0).
+     */
+    public static int pieceValue(Piece.Type type) {
+        return type.getValue();
+    }
+
+    // ===================== WEIGHTS =====================
+
+    private static final int MAX_PHASE = 24;            // Giai đoạn khi đủ quân (xem Piece.Type.getPhase)
+
+    // Linh động: điểm mỗi ô đi được trên mức trung bình, theo thứ tự Piece.Type
+    private static final int[] MOBILITY_MG = { 0, 1, 2, 5, 4, 0 };
+    private static final int[] MOBILITY_EG = { 0, 2, 4, 5, 4, 0 };
+    private static final int[] MOBILITY_BASE = { 0, 14, 7, 7, 4, 0 };
+
+    private static final int DOUBLED_PAWN_MG = -10;
+    private static final int DOUBLED_PAWN_EG = -20;
+    private static final int ISOLATED_PAWN_MG = -10;
+    private static final int ISOLATED_PAWN_EG = -15;
+    // Tốt thông theo hàng tính từ phía mình (0 = hàng 1 ... 7 = hàng 8)
+    private static final int[] PASSED_PAWN_MG = { 0, 5, 10, 15, 25, 40, 60, 0 };
+    private static final int[] PASSED_PAWN_EG = { 0, 10, 20, 35, 60, 100, 150, 0 };
+
+    private static final int BISHOP_PAIR = 30;
+    private static final int KING_ZONE_ATTACK_MG = -8;  // Mỗi ô quanh vua bị địch tấn công
+
+    // ===================== MASKS =====================
+
+    private static final long[] FILE_MASKS = new long[8];
+    private static final long[] ADJACENT_FILE_MASKS = new long[8];
+    // Các ô phía trước (cùng cột và hai cột bên) mà tốt địch có thể chặn, theo [màu][ô]
+    private static final long[][] PASSED_MASKS = new long[2][64];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            for (int row = 0; row < 8; row++) {
+                FILE_MASKS[col] |= Bitboards.bit(Bitboards.square(row, col));
+            }
+        }
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILE_MASKS[col] = (col > 0 ? FILE_MASKS[col - 1] : 0L) | (col < 7 ? FILE_MASKS[col + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int row = Bitboards.row(sq);
+            long files = FILE_MASKS[Bitboards.col(sq)] | ADJACENT_FILE_MASKS[Bitboards.col(sq)];
+            for (int r = 0; r < 8; r++) {
+                long rank = 0xFFL << (r * 8);
+                // Trắng đi về phía hàng 0, Đen đi về phía hàng 7
+                if (r < row) {
+                    PASSED_MASKS[Piece.Color.WHITE.ordinal()][sq] |= files & rank;
+                } else if (r > row) {
+                    PASSED_MASKS[Piece.Color.BLACK.ordinal()][sq] |= files & rank;
+                }
+            }
+        }
+    }
+
+    // ===================== FIELDS =====================
+
+    // Cặp (trung cuộc, tàn cuộc) dùng lại giữa các lần gọi; mỗi SearchEngine có Evaluator riêng
+    private final int[] terms = new int[2];
+
+    // ===================== EVALUATION =====================
+
+    /**
+     * Đánh giá thế cờ.
+     *
+     * @param board Bàn cờ cần đánh giá
+     * @param side  Bên cần tính điểm
+     * @return Điểm centipawn theo góc nhìn của {@code side}
+     */
+    public int evaluate(Board board, Piece.Color side) {
+        int midgame = 0;
+        int endgame = 0;
+        for (Piece.Color color : Piece.Color.values()) {
+            int sign = color == Piece.Color.WHITE ? 1 : -1;
+            Piece.Color enemy = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+
+            // Vật chất và PST: đọc tổng đã cộng dồn
+            midgame += sign * (board.getMaterial(color) + board.getMidgameSquareScore(color));
+            endgame += sign * (board.getMaterial(color) + board.getEndgameSquareScore(color));
+
+            terms[0] = 0;
+            terms[1] = 0;
+            addMobility(board, color, terms);
+            addPawnStructure(board, color, enemy, terms);
+            if (Long.bitCount(board.getPieces(Piece.Type.BISHOP, color)) >= 2) {
+                terms[0] += BISHOP_PAIR;
+                terms[1] += BISHOP_PAIR;
+            }
+            terms[0] += KING_ZONE_ATTACK_MG * kingZoneAttacks(board, color, enemy);
+            midgame += sign * terms[0];
+            endgame += sign * terms[1];
+        }
+
+        int phase = Math.min(board.getPhase(), MAX_PHASE);
+        int score = (midgame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+        return side == Piece.Color.WHITE ? score : -score;
+    }
+
+    /**
+     * Linh động của mã, tượng, xe, hậu: số ô đi được (không tính ô có quân mình
+     * hoặc bị tốt địch khống chế) so với mức trung bình của loại quân đó.
+     */
+    private void addMobility(Board board, Piece.Color color, int[] terms) {
+        Piece.Color enemy = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long occupied = board.getOccupied();
+        long available = ~board.getPieces(color) & ~pawnAttacks(board.getPieces(Piece.Type.PAWN, enemy), enemy);
+        for (int i = 0, count = board.getPieceCount(color); i < count; i++) {
+            int sq = board.getPieceSquare(color, i);
+            Piece.Type type = board.getPiece(Bitboards.row(sq), Bitboards.col(sq)).getType();
+            long attacks;
+            switch (type) {
+                case KNIGHT -> attacks = Bitboards.knightAttacks(sq);
+                case BISHOP -> attacks = Bitboards.bishopAttacks(sq, occupied);
+                case ROOK -> attacks = Bitboards.rookAttacks(sq, occupied);
+                case QUEEN -> attacks = Bitboards.queenAttacks(sq, occupied);
+                default -> {
+                    continue;
+                }
+            }
+            int mobility = Long.bitCount(attacks & available) - MOBILITY_BASE[type.ordinal()];
+            terms[0] += mobility * MOBILITY_MG[type.ordinal()];
+            terms[1] += mobility * MOBILITY_EG[type.ordinal()];
+        }
+    }
+
+    /**
+     * Tốt chồng (nhiều tốt cùng cột), tốt cô lập (không có tốt mình ở cột bên)
+     * và tốt thông (không còn tốt địch chặn hoặc khống chế phía trước).
+     */
+    private void addPawnStructure(Board board, Piece.Color color, Piece.Color enemy, int[] terms) {
+        long pawns = board.getPieces(Piece.Type.PAWN, color);
+        long enemyPawns = board.getPieces(Piece.Type.PAWN, enemy);
+        for (int col = 0; col < 8; col++) {
+            int onFile = Long.bitCount(pawns & FILE_MASKS[col]);
+            if (onFile == 0) {
+                continue;
+            }
+            if (onFile > 1) {
+                terms[0] += DOUBLED_PAWN_MG * (onFile - 1);
+                terms[1] += DOUBLED_PAWN_EG * (onFile - 1);
+            }
+            if ((pawns & ADJACENT_FILE_MASKS[col]) == 0) {
+                terms[0] += ISOLATED_PAWN_MG * onFile;
+                terms[1] += ISOLATED_PAWN_EG * onFile;
+            }
+        }
+
+        long remaining = pawns;
+        while (remaining != 0) {
+            int sq = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if ((PASSED_MASKS[color.ordinal()][sq] & enemyPawns) == 0) {
+                int rank = color == Piece.Color.WHITE ? 7 - Bitboards.row(sq) : Bitboards.row(sq);
+                terms[0] += PASSED_PAWN_MG[rank];
+                terms[1] += PASSED_PAWN_EG[rank];
+            }
+        }
+    }
+
+    /**
+     * Số ô quanh vua {@code color} đang bị bên {@code enemy} tấn công.
+     */
+    private int kingZoneAttacks(Board board, Piece.Color color, Piece.Color enemy) {
+        int kingSquare = board.getKingSquare(color);
+        if (kingSquare < 0) {
+            return 0;
+        }
+        int attacked = 0;
+        long zone = Bitboards.kingAttacks(kingSquare);
+        while (zone != 0) {
+            int sq = Long.numberOfTrailingZeros(zone);
+            zone &= zone - 1;
+            if (board.isSquareAttacked(sq, enemy)) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+
+    /**
+     * Các ô bị tốt màu {@code color} khống chế.
+     */
+    private static long pawnAttacks(long pawns, Piece.Color color) {
+        long notFileA = ~FILE_MASKS[0];
+        long notFileH = ~FILE_MASKS[7];
+        // Trắng tấn công về phía hàng nhỏ hơn (dịch phải 8 bit), Đen ngược lại
+        if (color == Piece.Color.WHITE) {
+            return ((pawns & notFileA) >>> 9) | ((pawns & notFileH) >>> 7);
+        }
+        return ((pawns & notFileA) << 7) | ((pawns & notFileH) << 9);
+    }
+}
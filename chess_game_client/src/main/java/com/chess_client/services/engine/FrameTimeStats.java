@@ -0,0 +1,113 @@
+package com.chess_client.services.engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Thống kê khoảng cách giữa các khung hình của giao diện trong lúc máy suy nghĩ,
+ * dùng để so sánh tìm kiếm trong tiến trình với tìm kiếm ở JVM con (EngineProcess).
+ *
+ * Khung hình lâu hơn {@link #JANK_MILLIS} (trễ quá một khung ở 60 Hz) được tính là giật.
+ * Chỉ đo khi chạy với {@code -Dchess.ui.frameReport=<file CSV>}; kết quả mỗi ván được
+ * ghi thêm vào file đó để gộp nhiều ván của cả hai chế độ rồi so sánh.
+ */
+public final class FrameTimeStats {
+
+    // ===================== CONSTANTS =====================
+
+    public static final double TARGET_FRAME_MILLIS = 1000.0 / 60;
+    public static final double JANK_MILLIS = TARGET_FRAME_MILLIS * 2;
+
+    static final String CSV_HEADER = "time,mode,frames,avg_ms,p50_ms,p99_ms,max_ms,jank_frames";
+
+    private static final int MAX_SAMPLES = 1 << 20;     // ~4.8 giờ ở 60 Hz
+
+    // ===================== FIELDS =====================
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long totalNanos;
+    private long maxNanos;
+    private int jankFrames;
+
+    /**
+     * Ghi một khoảng cách giữa hai khung hình liên tiếp.
+     */
+    public synchronized void record(long intervalNanos) {
+        if (count < MAX_SAMPLES) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+            samples[count] = intervalNanos;
+        }
+        count++;
+        totalNanos += intervalNanos;
+        maxNanos = Math.max(maxNanos, intervalNanos);
+        if (intervalNanos > JANK_MILLIS * 1_000_000L) {
+            jankFrames++;
+        }
+    }
+
+    // ===================== STATISTICS =====================
+
+    public synchronized int getFrames() {
+        return count;
+    }
+
+    public synchronized double getAverageMillis() {
+        return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+    }
+
+    /**
+     * @param percentile Phân vị trong [0, 100]
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        int stored = Math.min(count, MAX_SAMPLES);
+        if (stored == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, stored);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * stored) - 1;
+        return sorted[Math.max(0, Math.min(stored - 1, index))] / 1_000_000.0;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    /** Số khung hình lâu hơn {@link #JANK_MILLIS}. */
+    public synchronized int getJankFrames() {
+        return jankFrames;
+    }
+
+    // ===================== REPORT =====================
+
+    /**
+     * Một dòng tóm tắt, ví dụ để in ra console khi kết thúc ván.
+     */
+    public String format(String mode) {
+        return String.format("Khung hình [%s]: %d khung, TB %.2f ms, p50 %.2f ms, p99 %.2f ms, "
+                + "tối đa %.2f ms, giật %d", mode, getFrames(), getAverageMillis(), getPercentileMillis(50),
+                getPercentileMillis(99), getMaxMillis(), getJankFrames());
+    }
+
+    /**
+     * Ghi thêm một dòng CSV vào {@code file} (tạo file kèm dòng tiêu đề nếu chưa có).
+     */
+    public void appendCsv(Path file, String mode) throws IOException {
+        String line = String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%d%n",
+                LocalDateTime.now(), mode, getFrames(), getAverageMillis(), getPercentileMillis(50),
+                getPercentileMillis(99), getMaxMillis(), getJankFrames());
+        if (!Files.exists(file)) {
+            Files.writeString(file, CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+        Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
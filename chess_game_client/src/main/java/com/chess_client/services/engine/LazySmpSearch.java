@@ -0,0 +1,282 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tìm kiếm đa luồng kiểu Lazy SMP.
+ *
+ * Luồng gọi là luồng chính; thêm (N - 1) luồng phụ cùng tìm một gốc với độ
+ * sâu bắt đầu và thứ tự nước khác nhau. Các luồng không trao đổi gì ngoài
+ * bảng băm lock-free dùng chung: kết quả của luồng này giúp luồng kia cắt
+ * tỉa sớm hơn. Khi luồng chính xong (hết giờ hoặc đủ độ sâu) thì mọi luồng
+ * phụ được báo dừng.
+ *
+ * Số luồng bị giới hạn ở (số nhân - 1) để luôn chừa một nhân cho JavaFX
+ * Application Thread; luồng phụ chạy với độ ưu tiên thấp hơn bình thường.
+ * Khi nhiều ván cùng tìm, CpuGovernor chung quyết định mỗi lần tìm được
+ * bao nhiêu luồng phụ.
+ *
+ * Với nhiều luồng, số nút mỗi luồng tìm được tuỳ lịch của hệ điều hành nên nước đi
+ * không lặp lại được; AIPlayer chỉ dùng nhiều luồng khi có
+ * {@code -Dchess.engine.reproducible=false} (xem DifficultyLevel).
+ */
+public class LazySmpSearch {
+
+    // ===================== CONSTANTS =====================
+
+    /** Số luồng tối đa: chừa lại một nhân cho UI */
+    public static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static final long HELPER_KEEP_ALIVE_SECONDS = 30;
+
+    // ===================== FIELDS =====================
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final SearchEngine[] engines;
+    private final ThreadPoolExecutor helperPool;
+    private final CpuGovernor governor;     // null = không giới hạn (đo hiệu năng)
+    private volatile SearchEngine.IterationListener listener;
+    private final AtomicBoolean stopRequest = new AtomicBoolean();
+
+    /**
+     * Dùng CpuGovernor chung của JVM.
+     *
+     * @param table   Bảng băm dùng chung giữa các luồng
+     * @param threads Số luồng mong muốn, bị chặn trong [1, MAX_THREADS]
+     */
+    public LazySmpSearch(TranspositionTable table, int threads) {
+        this(table, threads, CpuGovernor.getShared());
+    }
+
+    /**
+     * @param governor Giới hạn CPU chung, null = luôn chạy đủ số luồng
+     */
+    public LazySmpSearch(TranspositionTable table, int threads, CpuGovernor governor) {
+        this.table = table;
+        this.governor = governor;
+        this.threads = Math.max(1, Math.min(MAX_THREADS, threads));
+        this.engines = new SearchEngine[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            engines[i] = new SearchEngine(table);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        int poolSize = Math.max(1, this.threads - 1);
+        this.helperPool = new ThreadPoolExecutor(poolSize, poolSize, HELPER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "chess-search-helper-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        // Luồng phụ tự kết thúc khi không chơi với máy nữa
+        this.helperPool.allowCoreThreadTimeOut(true);
+    }
+
+    // ===================== SEARCH =====================
+
+    /**
+     * Tìm nước đi tốt nhất với tất cả các luồng.
+     *
+     * @param board      Bàn cờ hiện tại (không bị thay đổi)
+     * @param side       Bên cần tìm nước
+     * @param timeMillis Thời gian tối đa
+     * @param maxDepth   Độ sâu tối đa
+     * @return Kết quả của luồng tìm được sâu nhất (ưu tiên luồng chính khi bằng nhau),
+     *         số nút là tổng của mọi luồng
+     */
+    public SearchEngine.SearchResult search(Board board, Piece.Color side, long timeMillis, int maxDepth) {
+        stopRequest.set(false);
+        return search(board, side, timeMillis, maxDepth, stopRequest);
+    }
+
+    /**
+     * Như {@link #search(Board, Piece.Color, long, int)} nhưng dừng theo cờ do bên gọi giữ.
+     * Cờ không bị xoá khi bắt đầu, nên bật cờ trước khi lần tìm kịp chạy cũng dừng được
+     * ngay (dùng để huỷ tìm kiếm từ luồng khác). {@link #stop()} không tác động tới cờ này.
+     *
+     * @param stop Cờ dừng, bật lên để lần tìm dừng sớm (lần tìm chỉ đọc, không ghi cờ này)
+     */
+    public SearchEngine.SearchResult search(Board board, Piece.Color side, long timeMillis, int maxDepth,
+                                            AtomicBoolean stop) {
+        return search(board, side, timeMillis, maxDepth, 0, stop);
+    }
+
+    /**
+     * Như trên, thêm giới hạn tổng số nút của mọi luồng.
+     * Phải chờ tới khi CpuGovernor còn suất; thời gian chỉ tính từ lúc bắt đầu tìm.
+     *
+     * @param maxNodes Số nút tối đa (sai số khoảng 1024 nút mỗi luồng), 0 = không giới hạn
+     * @return Kết quả, bestMove = null nếu bị dừng trước khi có suất
+     */
+    public SearchEngine.SearchResult search(Board board, Piece.Color side, long timeMillis, int maxDepth,
+                                            long maxNodes, AtomicBoolean stop) {
+        if (governor != null && !governor.acquire(stop)) {
+            return new SearchEngine.SearchResult(null, 0, 0, 0, 0);
+        }
+        try {
+            return run(board, side, timeMillis, maxDepth, maxNodes, stop);
+        } finally {
+            if (governor != null) {
+                governor.release(1);
+            }
+        }
+    }
+
+    /**
+     * Tìm nền (ponder): chỉ chạy khi CpuGovernor còn suất rảnh và bị dừng (bật {@code stop})
+     * khi một lần tìm nước cần suất đó. Giới hạn như {@link #search(Board, Piece.Color, long, int, long, AtomicBoolean)}.
+     *
+     * @return Kết quả, hoặc null nếu không có suất rảnh
+     */
+    public SearchEngine.SearchResult ponder(Board board, Piece.Color side, long timeMillis, int maxDepth,
+                                            long maxNodes, AtomicBoolean stop) {
+        if (governor == null) {
+            return run(board, side, timeMillis, maxDepth, maxNodes, stop);
+        }
+        if (!governor.acquireBackground(stop)) {
+            return null;
+        }
+        try {
+            return run(board, side, timeMillis, maxDepth, maxNodes, stop);
+        } finally {
+            governor.releaseBackground(stop);
+        }
+    }
+
+    private SearchEngine.SearchResult run(Board board, Piece.Color side, long timeMillis, int maxDepth,
+                                          long maxNodes, AtomicBoolean stop) {
+        long start = System.nanoTime();
+        long deadline = start + timeMillis * 1_000_000L;
+        // Luôn có bộ đếm chung (không giới hạn thì bắt đầu từ Long.MAX_VALUE) để biết tổng số nút
+        long initialBudget = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        AtomicLong nodeBudget = new AtomicLong(initialBudget);
+        SearchEngine.IterationListener reporter = listener;
+        engines[0].setIterationListener(reporter == null ? null : (depth, score, nodes, move) ->
+                reporter.iterationCompleted(depth, score, Math.max(nodes, initialBudget - nodeBudget.get()), move));
+        // Luồng phụ dừng theo cờ riêng, bật khi luồng chính xong (kể cả khi bị dừng sớm)
+        AtomicBoolean helperStop = new AtomicBoolean();
+        // Chỉ chạy luồng phụ khi CPU còn suất rảnh
+        int helperCount = governor == null ? threads - 1 : governor.acquireExtra(threads - 1);
+
+        List<Future<SearchEngine.SearchResult>> helpers = new ArrayList<>();
+        List<SearchEngine.SearchResult> helperResults = new ArrayList<>();
+        SearchEngine.SearchResult best;
+        try {
+            for (int i = 1; i <= helperCount; i++) {
+                // Mỗi luồng một bản sao bàn cờ riêng, tạo trên luồng gọi
+                Board helperBoard = board.copy();
+                SearchEngine engine = engines[i];
+                int helperIndex = i;
+                helpers.add(helperPool.submit(() ->
+                        engine.search(helperBoard, side, deadline, maxDepth, helperIndex, helperStop, nodeBudget)));
+            }
+            best = engines[0].search(board, side, deadline, maxDepth, 0, stop, nodeBudget);
+        } finally {
+            // Chờ mọi luồng phụ dừng rồi mới trả suất, kể cả khi luồng chính bị lỗi
+            helperStop.set(true);
+            for (Future<SearchEngine.SearchResult> future : helpers) {
+                SearchEngine.SearchResult result = waitFor(future);
+                if (result != null) {
+                    helperResults.add(result);
+                }
+            }
+            if (governor != null) {
+                governor.release(helperCount);
+            }
+        }
+
+        long totalNodes = best.getNodes();
+        for (SearchEngine.SearchResult result : helperResults) {
+            totalNodes += result.getNodes();
+            if (result.getDepth() > best.getDepth() && result.getBestMove() != null) {
+                best = result;
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new SearchEngine.SearchResult(best.getBestMove(), best.getScore(), best.getDepth(),
+                totalNodes, elapsed);
+    }
+
+    /**
+     * Báo kết quả mỗi độ sâu luồng chính tìm xong, số nút là tổng của mọi luồng
+     * (chính xác tới khoảng 1024 nút mỗi luồng). Null = không báo.
+     */
+    public void setIterationListener(SearchEngine.IterationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Nhiễu ở gốc cho mọi luồng (xem {@link SearchEngine#setRootNoise}).
+     */
+    public void setRootNoise(int cap, long seed) {
+        for (SearchEngine engine : engines) {
+            engine.setRootNoise(cap, seed);
+        }
+    }
+
+    /**
+     * Xoá bảng băm và killer/history của mọi luồng: lần tìm sau chỉ phụ thuộc thế cờ,
+     * giới hạn và seed nhiễu, không phụ thuộc các lần tìm (hay ponder) trước đó.
+     * Không gọi trong lúc đang tìm.
+     */
+    public void clear() {
+        if (table != null) {
+            table.clear();
+        }
+        for (SearchEngine engine : engines) {
+            engine.clearHistory();
+        }
+    }
+
+    /**
+     * Báo mọi luồng dừng sớm; {@link #search} trả về kết quả tốt nhất hiện có.
+     */
+    public void stop() {
+        stopRequest.set(true);
+    }
+
+    /**
+     * Giải phóng các luồng phụ. Không dùng được đối tượng này nữa sau khi gọi.
+     */
+    public void shutdown() {
+        stopRequest.set(true);
+        helperPool.shutdownNow();
+    }
+
+    private static SearchEngine.SearchResult waitFor(Future<SearchEngine.SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // ===================== GETTERS =====================
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
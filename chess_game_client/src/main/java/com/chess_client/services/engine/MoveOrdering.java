@@ -0,0 +1,264 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import java.util.Arrays;
+
+/**
+ * Sắp xếp nước đi cho tìm kiếm có cắt tỉa (alpha-beta và các biến thể).
+ *
+ * Thứ tự: nước từ bảng băm, các nước ăn quân / phong cấp theo MVV-LVA
+ * (quân bị ăn giá trị cao nhất trước, cùng quân bị ăn thì quân ăn rẻ nhất
+ * trước), hai nước killer của tầng hiện tại, rồi các nước yên lặng theo bảng
+ * history dạng butterfly [màu][ô đi][ô đến]. Nước ăn quân bị SEE đánh giá là
+ * lỗ (GameLogic.staticExchange &lt; 0) được dời xuống cuối danh sách.
+ *
+ * Mỗi SearchEngine giữ một MoveOrdering riêng (không dùng chung giữa các luồng).
+ * Các thành phần có thể tắt riêng qua {@code features} để đo mức giảm số nút
+ * của từng heuristic (xem EngineBenchmark chế độ {@code ordering}).
+ */
+public class MoveOrdering {
+
+    // ===================== FEATURES =====================
+
+    public static final int HASH_MOVE = 1;
+    public static final int MVV_LVA = 2;
+    public static final int KILLERS = 4;
+    public static final int HISTORY = 8;
+    public static final int SEE = 16;
+    public static final int ALL = HASH_MOVE | MVV_LVA | KILLERS | HISTORY | SEE;
+
+    // ===================== SCORE TIERS =====================
+
+    private static final int HASH_SCORE = 1 << 30;
+    private static final int CAPTURE_BASE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int LOSING_CAPTURE_BASE = -(1 << 28);   // Dưới mọi điểm history
+    private static final int HISTORY_LIMIT = 1 << 20;   // Vượt ngưỡng thì chia đôi cả bảng
+
+    // Thứ tự quân ăn cho LVA theo Piece.Type (KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN): rẻ nhất = 0
+    private static final int[] ATTACKER_RANK = { 5, 4, 3, 2, 1, 0 };
+
+    private static final int MAX_PLY = 128;
+
+    // ===================== FIELDS =====================
+
+    private final int features;
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+
+    public MoveOrdering() {
+        this(ALL);
+    }
+
+    /**
+     * @param features Tổ hợp HASH_MOVE | MVV_LVA | KILLERS | HISTORY được bật
+     */
+    public MoveOrdering(int features) {
+        this.features = features;
+    }
+
+    // ===================== SCORING =====================
+
+    /**
+     * Chấm điểm mọi nước trong {@code moves} vào {@code scores} (cùng chỉ số).
+     *
+     * @param logic    GameLogic của cùng bàn cờ, dùng cho SEE (null = không dùng SEE)
+     * @param side     Bên đi
+     * @param ply      Khoảng cách tới gốc, dùng cho killer
+     * @param hashMove Nước từ bảng băm hoặc lần lặp trước (PackedMove.NONE nếu không có)
+     */
+    public void score(Board board, GameLogic logic, Piece.Color side, MoveList moves, int[] scores,
+                      int ply, int hashMove) {
+        boolean useSee = (features & SEE) != 0 && logic != null;
+        int hashKey = (features & HASH_MOVE) != 0 && hashMove != PackedMove.NONE
+                ? hashMove & PackedMove.KEY_MASK : -1;
+        int killer0 = (features & KILLERS) != 0 && ply < MAX_PLY ? killers[ply][0] & PackedMove.KEY_MASK : -1;
+        int killer1 = (features & KILLERS) != 0 && ply < MAX_PLY ? killers[ply][1] & PackedMove.KEY_MASK : -1;
+        int[][] sideHistory = history[side.ordinal()];
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int key = move & PackedMove.KEY_MASK;
+            int score;
+            if (key == hashKey) {
+                score = HASH_SCORE;
+            } else if ((features & MVV_LVA) != 0 && isTactical(move)) {
+                int mvvLva = mvvLva(board, move);
+                score = useSee && isLosingCapture(board, logic, move) ? LOSING_CAPTURE_BASE + mvvLva
+                        : CAPTURE_BASE + mvvLva;
+            } else if (key == killer0 && key != 0) {
+                score = KILLER_SCORE + 1;
+            } else if (key == killer1 && key != 0) {
+                score = KILLER_SCORE;
+            } else if ((features & HISTORY) != 0) {
+                score = sideHistory[PackedMove.from(move)][PackedMove.to(move)];
+            } else {
+                score = 0;
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Đưa nước điểm cao nhất trong đoạn [index, size) lên vị trí {@code index}
+     * (chọn dần, không sắp cả danh sách vì nút thường bị cắt sau vài nước đầu).
+     *
+     * @return Nước đi tại vị trí {@code index} sau khi chọn
+     */
+    public static int pickNext(MoveList moves, int[] scores, int index) {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int tmp = scores[index];
+            scores[index] = scores[best];
+            scores[best] = tmp;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Sắp xếp ổn định cả danh sách theo điểm giảm dần (dùng ở gốc, nơi mọi nước đều được tìm).
+     */
+    public static void sort(MoveList moves, int[] scores) {
+        for (int i = 1; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = scores[i];
+            int j = i;
+            while (j > 0 && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                moves.set(j, moves.get(j - 1));
+                j--;
+            }
+            scores[j] = score;
+            moves.set(j, move);
+        }
+    }
+
+    /**
+     * Nước ăn quân hoặc phong cấp (không dùng killer/history cho các nước này).
+     */
+    public static boolean isTactical(int move) {
+        return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+    }
+
+    /**
+     * Điểm MVV-LVA: giá trị quân bị ăn (và quân được phong) nhân 8 trừ hạng quân ăn.
+     */
+    private static int mvvLva(Board board, int move) {
+        int from = PackedMove.from(move);
+        Piece attacker = board.getPiece(Bitboards.row(from), Bitboards.col(from));
+        int victimValue;
+        if (PackedMove.isEnPassant(move)) {
+            victimValue = Evaluator.PAWN_VALUE;
+        } else if (PackedMove.isCapture(move)) {
+            int to = PackedMove.to(move);
+            Piece victim = board.getPiece(Bitboards.row(to), Bitboards.col(to));
+            // Ăn vua (đối thủ để vua bị chiếu) luôn xét đầu tiên
+            victimValue = victim.getType() == Piece.Type.KING ? 1 << 16 : victim.getType().getValue();
+        } else {
+            victimValue = 0;
+        }
+        if (PackedMove.isPromotion(move)) {
+            victimValue += PackedMove.promotionType(move).getValue() - Evaluator.PAWN_VALUE;
+        }
+        return victimValue * 8 - ATTACKER_RANK[attacker.getType().ordinal()];
+    }
+
+    /**
+     * Nước ăn quân có thể lỗ: chỉ gọi SEE khi quân ăn đắt hơn quân bị ăn
+     * (ăn quân đắt hơn hoặc ngang giá thì không bao giờ lỗ).
+     */
+    private static boolean isLosingCapture(Board board, GameLogic logic, int move) {
+        if (!PackedMove.isCapture(move) || PackedMove.isEnPassant(move) || PackedMove.isPromotion(move)) {
+            return false;
+        }
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece.Type attacker = board.getPiece(Bitboards.row(from), Bitboards.col(from)).getType();
+        Piece.Type victim = board.getPiece(Bitboards.row(to), Bitboards.col(to)).getType();
+        if (attacker == Piece.Type.KING || attacker.getValue() <= victim.getValue()) {
+            return false; // Vua chỉ ăn được quân không được bảo vệ (bộ sinh nước đã lọc)
+        }
+        return logic.staticExchange(move) < 0;
+    }
+
+    // ===================== LEARNING =====================
+
+    /**
+     * Cập nhật heuristic khi một nước gây cắt tỉa beta.
+     * Nước yên lặng được ghi làm killer và cộng history; các nước yên lặng
+     * đã thử trước nó (trong {@code moves[0..index)}) bị trừ history.
+     *
+     * @param index Vị trí của nước gây cắt trong {@code moves}
+     */
+    public void recordCutoff(Piece.Color side, MoveList moves, int index, int depth, int ply) {
+        int move = moves.get(index);
+        if (isTactical(move)) {
+            return;
+        }
+        if (ply < MAX_PLY && (killers[ply][0] & PackedMove.KEY_MASK) != (move & PackedMove.KEY_MASK)) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int bonus = depth * depth;
+        int[][] sideHistory = history[side.ordinal()];
+        sideHistory[PackedMove.from(move)][PackedMove.to(move)] += bonus;
+        for (int i = 0; i < index; i++) {
+            int tried = moves.get(i);
+            if (!isTactical(tried)) {
+                sideHistory[PackedMove.from(tried)][PackedMove.to(tried)] -= bonus;
+            }
+        }
+        if (Math.abs(sideHistory[PackedMove.from(move)][PackedMove.to(move)]) > HISTORY_LIMIT) {
+            age();
+        }
+    }
+
+    /**
+     * Bắt đầu lần tìm mới: xoá killer (thuộc về các tầng của thế cờ cũ) và giảm nửa history.
+     */
+    public void newSearch() {
+        for (int[] slot : killers) {
+            slot[0] = PackedMove.NONE;
+            slot[1] = PackedMove.NONE;
+        }
+        age();
+    }
+
+    /**
+     * Xoá hẳn killer và history, để lần tìm sau không phụ thuộc các lần tìm trước.
+     */
+    public void clear() {
+        for (int[] slot : killers) {
+            slot[0] = PackedMove.NONE;
+            slot[1] = PackedMove.NONE;
+        }
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                Arrays.fill(from, 0);
+            }
+        }
+    }
+
+    private void age() {
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                for (int to = 0; to < 64; to++) {
+                    from[to] /= 2;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.services.GameLogic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sách khai cuộc định dạng Polyglot (.bin), đọc qua file ánh xạ bộ nhớ chỉ đọc.
+ *
+ * Mỗi mục 16 byte big-endian, sắp tăng dần theo khoá:
+ * <pre>
+ *   khoá (8 byte) | nước đi (2 byte) | trọng số (2 byte) | learn (4 byte, bỏ qua)
+ * </pre>
+ * Nước đi mã hoá như Polyglot: bit 0-2 cột đến, 3-5 hàng đến (0 = hàng 1),
+ * 6-8 cột đi, 9-11 hàng đi, 12-14 quân phong (1 = mã ... 4 = hậu);
+ * nhập thành ghi là vua "ăn" xe của mình (e1h1, e1a1).
+ *
+ * Khoá là Board.getZobristKey(), tính bằng bảng Random64 của Polyglot (xem Zobrist),
+ * nên dùng được cả sách .bin Polyglot có sẵn lẫn sách tạo bằng OpeningBookBuilder.
+ *
+ * Tra sách là tìm nhị phân trên vùng nhớ ánh xạ, không tốn CPU tìm kiếm;
+ * mỗi file chỉ được ánh xạ một lần cho cả JVM và dùng chung giữa các AIPlayer.
+ */
+public final class OpeningBook {
+
+    // ===================== CONSTANTS =====================
+
+    public static final int ENTRY_BYTES = 16;
+    public static final int MAX_WEIGHT = 0xFFFF;    // Trọng số là 2 byte không dấu
+
+    /** File sách mặc định (thư mục chạy), đổi được bằng -Dchess.engine.book=... */
+    public static final String DEFAULT_PATH = "book.bin";
+
+    // Mã quân phong của Polyglot theo thứ tự Piece.Type (KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN)
+    private static final int[] POLYGLOT_PROMOTION = { 0, 4, 3, 2, 1, 0 };
+
+    private static final Map<Path, OpeningBook> OPENED = new ConcurrentHashMap<>();
+    private static OpeningBook sharedBook;
+    private static boolean sharedLoaded;
+
+    // ===================== FIELDS =====================
+
+    private final MappedByteBuffer buffer;
+    private final int entries;
+
+    private OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("File sách khai cuộc không hợp lệ: " + path);
+            }
+            // Vùng ánh xạ vẫn dùng được sau khi đóng channel
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.entries = (int) (size / ENTRY_BYTES);
+        }
+    }
+
+    /**
+     * Mở (hoặc lấy lại bản đã mở) sách tại {@code path}.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        try {
+            return OPENED.computeIfAbsent(key, p -> {
+                try {
+                    return new OpeningBook(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Sách dùng chung cho máy chơi cờ, lấy từ system property {@code chess.engine.book}
+     * (mặc định {@link #DEFAULT_PATH}).
+     *
+     * @return null nếu không có file sách hoặc không đọc được
+     */
+    public static synchronized OpeningBook getShared() {
+        if (!sharedLoaded) {
+            sharedLoaded = true;
+            Path path = Path.of(System.getProperty("chess.engine.book", DEFAULT_PATH));
+            if (Files.isRegularFile(path)) {
+                try {
+                    sharedBook = open(path);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return sharedBook;
+    }
+
+    // ===================== PROBE =====================
+
+    /**
+     * Chọn ngẫu nhiên một nước trong sách cho thế cờ hiện tại (bên đang tới lượt),
+     * xác suất tỉ lệ với trọng số.
+     *
+     * @return Nước đi hợp lệ dạng PackedMove, hoặc PackedMove.NONE nếu thế cờ không có trong sách
+     */
+    public int probe(Board board, Random random) {
+        long key = board.getZobristKey();
+        int first = lowerBound(key);
+        int total = 0;
+        int end = first;
+        while (end < entries && keyAt(end) == key) {
+            total += weightAt(end);
+            end++;
+        }
+        if (total == 0) {
+            return PackedMove.NONE;
+        }
+
+        int pick = random.nextInt(total);
+        for (int i = first; i < end; i++) {
+            pick -= weightAt(i);
+            if (pick < 0) {
+                return toLegalMove(board, moveAt(i));
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Số mục của thế cờ trong sách (0 nếu không có).
+     */
+    public int count(Board board) {
+        long key = board.getZobristKey();
+        int end = lowerBound(key);
+        int first = end;
+        while (end < entries && keyAt(end) == key) {
+            end++;
+        }
+        return end - first;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Vị trí mục đầu tiên có khoá >= {@code key} (so sánh không dấu như Polyglot).
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return Short.toUnsignedInt(buffer.getShort(index * ENTRY_BYTES + 8));
+    }
+
+    private int weightAt(int index) {
+        return Short.toUnsignedInt(buffer.getShort(index * ENTRY_BYTES + 10));
+    }
+
+    /**
+     * Tìm nước hợp lệ khớp với nước Polyglot (sách hỏng hoặc trùng khoá thì trả NONE).
+     */
+    private static int toLegalMove(Board board, int polyglotMove) {
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (encodeMove(moves.get(i)) == polyglotMove) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    // ===================== ENCODING =====================
+
+    /**
+     * Mã hoá PackedMove thành nước đi Polyglot 16 bit.
+     */
+    public static int encodeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (PackedMove.isCastling(move)) {
+            // Vua đi tới ô của xe cùng phía
+            to = Bitboards.square(Bitboards.row(to), Bitboards.col(to) > Bitboards.col(from) ? 7 : 0);
+        }
+        int promotion = PackedMove.isPromotion(move)
+                ? POLYGLOT_PROMOTION[PackedMove.promotionType(move).ordinal()] : 0;
+        return Bitboards.col(to)
+                | (7 - Bitboards.row(to)) << 3
+                | Bitboards.col(from) << 6
+                | (7 - Bitboards.row(from)) << 9
+                | promotion << 12;
+    }
+}
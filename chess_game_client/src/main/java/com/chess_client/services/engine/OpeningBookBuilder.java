@@ -0,0 +1,354 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tạo sách khai cuộc (OpeningBook, định dạng và khoá Polyglot)
+ * từ các file PGN có sẵn trên máy.
+ *
+ * Với mỗi ván, các nước trong {@code plies} nửa nước đầu được ghi vào sách
+ * với trọng số theo kết quả ván từ phía bên đi: thắng 2, hoà 1, thua 0
+ * (không rõ kết quả tính 1). Cặp (thế cờ, nước) xuất hiện ít hơn
+ * {@code minGames} ván hoặc có tổng trọng số 0 bị bỏ.
+ *
+ * Chạy sau khi build:
+ * <pre>
+ *   java -cp target/classes com.chess_client.services.engine.OpeningBookBuilder book.bin games.pgn [more.pgn...] [plies=20] [min=2]
+ * </pre>
+ */
+public class OpeningBookBuilder {
+
+    public static final int DEFAULT_PLIES = 20;
+    public static final int DEFAULT_MIN_GAMES = 2;
+
+    private final int plies;
+    private final int minGames;
+
+    // khoá thế cờ -> (nước Polyglot -> {số ván, tổng trọng số})
+    private final Map<Long, Map<Integer, long[]>> positions = new HashMap<>();
+    private int games;
+    private int skippedGames;
+
+    public OpeningBookBuilder(int plies, int minGames) {
+        this.plies = plies;
+        this.minGames = minGames;
+    }
+
+    // ===================== PGN =====================
+
+    /**
+     * Đọc mọi ván trong một nguồn PGN. Ván có nước không hiểu được (SAN sai,
+     * biến thể lạ) chỉ được dùng tới trước nước đó.
+     */
+    public void addGames(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                // Thẻ header của ván kế tiếp: kết thúc ván đang đọc nếu nó thiếu kết quả
+                if (text.length() > 0) {
+                    tokenize(text, tokens);
+                    text.setLength(0);
+                    addGame(tokens, null);
+                    tokens.clear();
+                }
+                continue;
+            }
+            if (trimmed.startsWith("%")) {
+                continue;
+            }
+            int comment = trimmed.indexOf(';');
+            text.append(comment >= 0 ? trimmed.substring(0, comment) : trimmed).append(' ');
+        }
+        tokenize(text, tokens);
+        addGame(tokens, null);
+    }
+
+    /**
+     * Tách phần nước đi thành token, bỏ chú thích {...}, biến thể (...), NAG và số nước;
+     * gặp token kết quả thì ghi nhận một ván.
+     */
+    private void tokenize(CharSequence text, List<String> tokens) {
+        int depth = 0;          // Độ sâu biến thể
+        boolean inComment = false;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (inComment) {
+                inComment = c != '}';
+                continue;
+            }
+            if (c == '{' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+                if (token.length() > 0) {
+                    String word = token.toString();
+                    token.setLength(0);
+                    if (depth == 0) {
+                        acceptToken(word, tokens);
+                    }
+                }
+                if (c == '{') {
+                    inComment = true;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth = Math.max(0, depth - 1);
+                }
+                continue;
+            }
+            token.append(c);
+        }
+    }
+
+    private void acceptToken(String word, List<String> tokens) {
+        switch (word) {
+            case "1-0", "0-1", "1/2-1/2", "*" -> {
+                addGame(tokens, word);
+                tokens.clear();
+                return;
+            }
+            default -> {
+            }
+        }
+        if (word.startsWith("$")) {
+            return;
+        }
+        // "12." "12..." hoặc "12.e4"
+        int dot = word.lastIndexOf('.');
+        if (dot >= 0) {
+            word = word.substring(dot + 1);
+        }
+        if (!word.isEmpty()) {
+            tokens.add(word);
+        }
+    }
+
+    private void addGame(List<String> sanMoves, String result) {
+        if (sanMoves.isEmpty()) {
+            return;
+        }
+        games++;
+        Board board = new Board();
+        GameLogic logic = new GameLogic(board);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < Math.min(plies, sanMoves.size()); ply++) {
+            moves.clear();
+            logic.generateMoves(board.getSideToMove(), moves);
+            int move = parseSan(board, moves, sanMoves.get(ply));
+            if (move == PackedMove.NONE) {
+                skippedGames++;
+                return;
+            }
+            long[] stats = positions.computeIfAbsent(board.getZobristKey(), k -> new HashMap<>())
+                    .computeIfAbsent(OpeningBook.encodeMove(move), k -> new long[2]);
+            stats[0]++;
+            stats[1] += resultWeight(result, board.getSideToMove());
+            board.movePiece(move);
+        }
+    }
+
+    private static int resultWeight(String result, Piece.Color mover) {
+        if ("1-0".equals(result)) {
+            return mover == Piece.Color.WHITE ? 2 : 0;
+        }
+        if ("0-1".equals(result)) {
+            return mover == Piece.Color.BLACK ? 2 : 0;
+        }
+        return 1;
+    }
+
+    // ===================== SAN =====================
+
+    /**
+     * Tìm nước hợp lệ ứng với ký hiệu SAN (ví dụ "Nf3", "exd5", "e8=Q+", "O-O-O", "Rad1").
+     *
+     * @return PackedMove, hoặc PackedMove.NONE nếu không khớp đúng một nước
+     */
+    static int parseSan(Board board, MoveList legalMoves, String san) {
+        String s = san.replaceAll("[+#!?]", "");
+        if (s.equals("O-O") || s.equals("0-0") || s.equals("O-O-O") || s.equals("0-0-0")) {
+            boolean kingside = s.length() == 3;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int move = legalMoves.get(i);
+                if (PackedMove.isCastling(move)
+                        && (Bitboards.col(PackedMove.to(move)) > Bitboards.col(PackedMove.from(move))) == kingside) {
+                    return move;
+                }
+            }
+            return PackedMove.NONE;
+        }
+
+        Piece.Type promotion = null;
+        int eq = s.indexOf('=');
+        if (eq >= 0 && eq + 1 < s.length()) {
+            promotion = pieceType(s.charAt(eq + 1));
+            s = s.substring(0, eq);
+        } else if (s.length() > 2 && pieceType(s.charAt(s.length() - 1)) != null
+                && Character.isDigit(s.charAt(s.length() - 2))) {
+            promotion = pieceType(s.charAt(s.length() - 1)); // "e8Q"
+            s = s.substring(0, s.length() - 1);
+        }
+        if (s.length() < 2) {
+            return PackedMove.NONE;
+        }
+
+        Piece.Type type = Piece.Type.PAWN;
+        if (Character.isUpperCase(s.charAt(0))) {
+            type = pieceType(s.charAt(0));
+            s = s.substring(1);
+        }
+        int toCol = s.charAt(s.length() - 2) - 'a';
+        int toRow = '8' - s.charAt(s.length() - 1);
+        if (type == null || toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            return PackedMove.NONE;
+        }
+        // Phần còn lại: chỉ định cột/hàng đi và dấu ăn quân
+        String from = s.substring(0, s.length() - 2).replace("x", "");
+        int fromCol = -1;
+        int fromRow = -1;
+        for (char c : from.toCharArray()) {
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            }
+        }
+
+        int to = Bitboards.square(toRow, toCol);
+        int found = PackedMove.NONE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            int moveFrom = PackedMove.from(move);
+            Piece piece = board.getPiece(Bitboards.row(moveFrom), Bitboards.col(moveFrom));
+            if (PackedMove.to(move) != to || piece.getType() != type || PackedMove.isCastling(move)
+                    || (fromCol >= 0 && Bitboards.col(moveFrom) != fromCol)
+                    || (fromRow >= 0 && Bitboards.row(moveFrom) != fromRow)
+                    || (PackedMove.isPromotion(move) ? PackedMove.promotionType(move) != promotion
+                            : promotion != null)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                return PackedMove.NONE; // Mơ hồ
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static Piece.Type pieceType(char c) {
+        return switch (c) {
+            case 'K' -> Piece.Type.KING;
+            case 'Q' -> Piece.Type.QUEEN;
+            case 'R' -> Piece.Type.ROOK;
+            case 'B' -> Piece.Type.BISHOP;
+            case 'N' -> Piece.Type.KNIGHT;
+            default -> null;
+        };
+    }
+
+    // ===================== OUTPUT =====================
+
+    /**
+     * Ghi sách: các mục sắp theo khoá (không dấu), cùng khoá thì trọng số giảm dần.
+     *
+     * @return Số mục đã ghi
+     */
+    public int write(OutputStream output) throws IOException {
+        List<Long> keys = new ArrayList<>(positions.keySet());
+        keys.sort(Long::compareUnsigned);
+
+        // Trọng số được chia tỉ lệ nếu vượt quá 2 byte
+        long maxWeight = 1;
+        for (Map<Integer, long[]> moves : positions.values()) {
+            for (long[] stats : moves.values()) {
+                maxWeight = Math.max(maxWeight, stats[1]);
+            }
+        }
+        double scale = maxWeight > OpeningBook.MAX_WEIGHT ? (double) OpeningBook.MAX_WEIGHT / maxWeight : 1.0;
+
+        int written = 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        for (long key : keys) {
+            List<Map.Entry<Integer, long[]>> moves = new ArrayList<>(positions.get(key).entrySet());
+            moves.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+            for (Map.Entry<Integer, long[]> entry : moves) {
+                long[] stats = entry.getValue();
+                int weight = (int) Math.round(stats[1] * scale);
+                if (stats[0] < minGames || weight == 0) {
+                    continue;
+                }
+                out.writeLong(key);
+                out.writeShort(entry.getKey());
+                out.writeShort(weight);
+                out.writeInt(0);
+                written++;
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getSkippedGames() {
+        return skippedGames;
+    }
+
+    // ===================== COMMAND LINE =====================
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Cách dùng: OpeningBookBuilder <book.bin> <games.pgn>... [plies=N] [min=N]");
+            return;
+        }
+        int plies = DEFAULT_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("plies=")) {
+                plies = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].startsWith("min=")) {
+                minGames = Integer.parseInt(args[i].substring(4));
+            } else {
+                inputs.add(Path.of(args[i]));
+            }
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, minGames);
+        for (Path input : inputs) {
+            // PGN thường là Latin-1 hoặc UTF-8; phần nước đi chỉ dùng ASCII nên đọc Latin-1 là an toàn
+            try (Reader reader = Files.newBufferedReader(input, StandardCharsets.ISO_8859_1)) {
+                builder.addGames(reader);
+            }
+        }
+        int entries;
+        try (OutputStream out = Files.newOutputStream(Path.of(args[0]))) {
+            entries = builder.write(out);
+        }
+        System.out.printf("Đã đọc %d ván (%d ván có nước không hợp lệ), ghi %d mục vào %s%n",
+                builder.getGames(), builder.getSkippedGames(), entries, args[0]);
+    }
+}
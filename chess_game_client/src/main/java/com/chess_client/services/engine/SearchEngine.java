@@ -0,0 +1,586 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.models.Zobrist;
+import com.chess_client.services.GameLogic;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ tìm kiếm nước đi cho máy: negamax alpha-beta với iterative deepening.
+ *
+ * Mỗi lần tìm có một giới hạn thời gian cứng. Độ sâu tăng dần 1, 2, 3...
+ * và nước tốt nhất của lần lặp đã hoàn tất gần nhất luôn được giữ lại,
+ * nên khi hết giờ vẫn trả về được một nước đi hợp lệ.
+ *
+ * Luật đi lấy từ GameLogic/Board. Mỗi lần tìm sao chép bàn cờ một lần ở gốc,
+ * rồi đi/lùi nước (movePiece/undoMove) trên chính bản sao đó nên bàn cờ đang
+ * chơi không bị thay đổi và các nút con không phải cấp phát. Nước đi trong cây
+ * tìm kiếm là int (PackedMove) chứa trong MoveList riêng của từng tầng,
+ * chỉ nước trả về cuối cùng mới được đổi sang Move.
+ *
+ * Nếu có TranspositionTable, kết quả của mỗi nút được lưu theo khoá Zobrist:
+ * thế cờ gặp lại (chuyển vị, hoặc lần lặp sau) được cắt ngay khi đủ sâu,
+ * và nước tốt nhất đã lưu được thử đầu tiên.
+ *
+ * Thứ tự thử nước do MoveOrdering quyết định (nước băm, MVV-LVA, killer,
+ * history); ở các nút trong nước được chọn dần thay vì sắp cả danh sách.
+ *
+ * Hết độ sâu thì chuyển sang tìm kiếm tĩnh (quiescence): chỉ xét tiếp các nước
+ * ăn quân / phong cấp (hoặc mọi nước thoát chiếu) cho tới khi thế cờ yên,
+ * bỏ qua nước ăn quân mà SEE cho là lỗ, để không "treo quân" vì hiệu ứng chân trời.
+ */
+public class SearchEngine {
+
+    // ===================== CONSTANTS =====================
+
+    public static final int MATE_SCORE = 100_000;           // Điểm chiếu hết (trừ dần theo số nước)
+    private static final int INFINITY = MATE_SCORE + 1;
+    private static final int MAX_DEPTH = 64;
+    private static final int TIME_CHECK_INTERVAL = 1024;    // Số nút giữa hai lần đọc đồng hồ
+
+    // ===================== FIELDS =====================
+
+    private final Evaluator evaluator = new Evaluator();
+    private final TranspositionTable table;     // null = tìm không dùng bảng băm
+    private final MoveOrdering ordering;
+    // Quiescence luôn xếp nước ăn quân theo MVV-LVA (không thì cây tìm tĩnh bùng nổ),
+    // kể cả khi tắt heuristic đó ở cây chính để đo
+    private final MoveOrdering quiescenceOrdering;
+    private final boolean seePruning;           // Bỏ nước ăn quân lỗ trong quiescence
+
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    private long deadline;              // Thời điểm phải dừng (System.nanoTime)
+    private AtomicBoolean stopRequest;  // Tín hiệu dừng từ bên ngoài (dùng chung giữa các luồng Lazy SMP)
+    private AtomicLong nodeBudget;      // Số nút còn được duyệt (dùng chung giữa các luồng), null = không giới hạn
+    private boolean stopped;            // Đã hết giờ, bỏ kết quả của lần lặp đang dở
+    private long nodes;                 // Số nút đã duyệt trong lần tìm hiện tại
+    private int noiseCap;               // Biên độ nhiễu cộng vào điểm các nước ở gốc (0 = không nhiễu)
+    private long noiseSeed;
+    private IterationListener listener;
+    private long cutoffs;               // Số nút bị cắt tỉa beta
+    private long firstMoveCutoffs;      // ... trong đó cắt ngay ở nước đầu tiên
+    private long quiescenceNodes;       // Số nút thuộc tìm kiếm tĩnh (đã tính trong nodes)
+
+    // Danh sách nước và điểm sắp xếp cho từng tầng, cấp phát một lần
+    private final MoveList[] moveStack = new MoveList[MAX_DEPTH + 1];
+    private final int[][] scoreStack = new int[MAX_DEPTH + 1][MoveList.CAPACITY];
+
+    public SearchEngine() {
+        this(null);
+    }
+
+    public SearchEngine(TranspositionTable table) {
+        this(table, MoveOrdering.ALL);
+    }
+
+    /**
+     * @param orderingFeatures Các heuristic sắp xếp nước được bật (MoveOrdering.HASH_MOVE | ...),
+     *                         dùng để đo hiệu quả từng heuristic
+     */
+    public SearchEngine(TranspositionTable table, int orderingFeatures) {
+        this.table = table;
+        this.ordering = new MoveOrdering(orderingFeatures);
+        this.quiescenceOrdering = new MoveOrdering(MoveOrdering.MVV_LVA | (orderingFeatures & MoveOrdering.SEE));
+        this.seePruning = (orderingFeatures & MoveOrdering.SEE) != 0;
+        for (int i = 0; i < moveStack.length; i++) {
+            moveStack[i] = new MoveList();
+        }
+    }
+
+    // ===================== RESULT =====================
+
+    /**
+     * Kết quả một lần tìm kiếm.
+     */
+    public static class SearchResult {
+        private final Move bestMove;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final long timeMillis;
+
+        public SearchResult(Move bestMove, int score, int depth, long nodes, long timeMillis) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.timeMillis = timeMillis;
+        }
+
+        public Move getBestMove() {
+            return bestMove;
+        }
+
+        /** Điểm theo góc nhìn bên đi (centipawn, hoặc gần ±MATE_SCORE nếu có chiếu hết). */
+        public int getScore() {
+            return score;
+        }
+
+        /** Độ sâu cuối cùng đã tìm xong. */
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+    }
+
+    /**
+     * Nhận kết quả mỗi độ sâu mà luồng chính tìm xong (dùng để in dòng "info" của UCI).
+     */
+    public interface IterationListener {
+        /**
+         * @param depth    Độ sâu vừa tìm xong
+         * @param score    Điểm theo góc nhìn bên đi
+         * @param nodes    Số nút đã duyệt từ đầu lần tìm
+         * @param bestMove Nước tốt nhất (PackedMove)
+         */
+        void iterationCompleted(int depth, int score, long nodes, int bestMove);
+    }
+
+    // ===================== SEARCH =====================
+
+    /**
+     * Tìm nước đi tốt nhất cho {@code side} trong giới hạn thời gian.
+     *
+     * @param board        Bàn cờ hiện tại (không bị thay đổi)
+     * @param side         Bên cần tìm nước
+     * @param timeMillis   Thời gian tối đa cho nước này
+     * @param maxDepth     Độ sâu tối đa (giới hạn thêm cho mức dễ)
+     * @return Kết quả tìm kiếm, bestMove = null nếu không còn nước đi hợp lệ
+     */
+    public SearchResult search(Board board, Piece.Color side, long timeMillis, int maxDepth) {
+        stopSignal.set(false);
+        return search(board, side, System.nanoTime() + timeMillis * 1_000_000L, maxDepth, 0, stopSignal);
+    }
+
+    /**
+     * Yêu cầu lần tìm đang chạy dừng sớm; kết quả tốt nhất hiện có vẫn được trả về.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Cộng nhiễu trong [-cap, cap] centipawn vào điểm mỗi nước ở gốc, để máy chơi giống người hơn.
+     * Nhiễu chỉ phụ thuộc seed, thế cờ và nước đi: cùng seed thì cùng kết quả, ở mọi độ sâu
+     * và mọi luồng Lazy SMP.
+     *
+     * @param cap  Biên độ nhiễu, 0 = tắt
+     * @param seed Seed của nhiễu
+     */
+    public void setRootNoise(int cap, long seed) {
+        this.noiseCap = Math.max(0, cap);
+        this.noiseSeed = seed;
+    }
+
+    /**
+     * Quên killer và history của các lần tìm trước (bảng băm do bên gọi xoá).
+     * Không gọi trong lúc đang tìm.
+     */
+    public void clearHistory() {
+        ordering.clear();
+        quiescenceOrdering.clear();
+    }
+
+    /**
+     * Gọi {@code listener} sau mỗi độ sâu tìm xong (trên luồng tìm), null = không báo.
+     */
+    public void setIterationListener(IterationListener listener) {
+        this.listener = listener;
+    }
+
+    /** Số nút bị cắt tỉa beta trong lần tìm gần nhất. */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /** Số nút bị cắt tỉa ngay ở nước đầu tiên (thước đo chất lượng sắp xếp nước). */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /** Số nút tìm kiếm tĩnh trong lần tìm gần nhất. */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * Lần tìm dùng cho Lazy SMP: mọi luồng cùng tìm một gốc, dùng chung bảng băm
+     * và tín hiệu dừng. Luồng phụ ({@code helperIndex > 0}) bắt đầu ở độ sâu khác
+     * và xoay thứ tự nước ở gốc để không đi trùng đường với luồng chính.
+     */
+    SearchResult search(Board board, Piece.Color side, long deadlineNanos, int maxDepth,
+                        int helperIndex, AtomicBoolean stopRequest) {
+        return search(board, side, deadlineNanos, maxDepth, helperIndex, stopRequest, null);
+    }
+
+    /**
+     * Như trên, thêm giới hạn số nút dùng chung: mỗi luồng trừ dần vào {@code nodeBudget}
+     * và mọi luồng dừng khi nó về âm (sai số tối đa một khoảng kiểm tra mỗi luồng).
+     */
+    SearchResult search(Board board, Piece.Color side, long deadlineNanos, int maxDepth,
+                        int helperIndex, AtomicBoolean stopRequest, AtomicLong nodeBudget) {
+        long start = System.nanoTime();
+        deadline = deadlineNanos;
+        this.stopRequest = stopRequest;
+        this.nodeBudget = nodeBudget;
+        stopped = false;
+        nodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        quiescenceNodes = 0;
+        ordering.newSearch();
+        if (table != null && helperIndex == 0) {
+            table.newSearch();
+        }
+
+        // Một bản sao cho cả cây tìm kiếm, các nút đi/lùi nước trên đó
+        Board root = board.copy();
+        GameLogic logic = new GameLogic(root);
+
+        MoveList rootMoves = moveStack[0];
+        rootMoves.clear();
+        logic.generateMoves(side, rootMoves);
+        if (rootMoves.isEmpty()) {
+            return new SearchResult(null, 0, 0, 0, 0);
+        }
+        long rootKey = hashKey(board, side);
+        orderRootMoves(root, logic, side, rootMoves, probeMove(rootKey));
+
+        // Luôn có sẵn một nước để trả về kể cả khi chưa xong độ sâu 1
+        int bestMove = rootMoves.get(0);
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+
+        for (int depth = 1 + helperIndex % 2; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            if (helperIndex > 0) {
+                // Giữ nước tốt nhất ở đầu, xoay phần còn lại theo chỉ số luồng
+                rotateTail(rootMoves, helperIndex);
+            }
+            int iterationBest = PackedMove.NONE;
+            int alpha = -INFINITY;
+
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                // Cửa sổ của nước con dời theo nhiễu để so sánh điểm đã cộng nhiễu cho đúng
+                int noise = rootNoise(rootKey, move);
+                root.movePiece(move);
+                int score = -negamax(root, logic, opposite(side), depth - 1, -INFINITY,
+                        Math.min(INFINITY, noise - alpha), 1);
+                root.undoMove();
+                if (Math.abs(score) < MATE_SCORE - MAX_DEPTH) {
+                    score += noise;     // Không làm nhiễu điểm chiếu hết
+                }
+                if (stopped) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+
+            if (stopped) {
+                // Lần lặp dở: nước nào đã tìm xong và vượt alpha (luôn gồm nước tốt nhất cũ,
+                // vì nó được tìm đầu tiên) vẫn đáng tin hơn kết quả độ sâu trước
+                if (iterationBest != PackedMove.NONE) {
+                    bestMove = iterationBest;
+                    bestScore = alpha;
+                }
+                break;
+            }
+
+            bestMove = iterationBest;
+            bestScore = alpha;
+            completedDepth = depth;
+            // Điểm đã cộng nhiễu không được ghi vào bảng băm dùng chung
+            if (table != null && noiseCap == 0) {
+                table.store(rootKey, depth, TranspositionTable.BOUND_EXACT, bestScore, bestMove);
+            }
+            if (listener != null) {
+                listener.iterationCompleted(depth, bestScore, nodes, bestMove);
+            }
+
+            // Đưa nước tốt nhất lên đầu để lần lặp sau cắt tỉa tốt hơn
+            orderRootMoves(root, logic, side, rootMoves, bestMove);
+
+            // Đã tìm ra chiếu hết thì không cần tìm sâu hơn
+            if (Math.abs(bestScore) >= MATE_SCORE - MAX_DEPTH) {
+                break;
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new SearchResult(PackedMove.toMove(bestMove, board), bestScore, completedDepth, nodes, elapsed);
+    }
+
+    /**
+     * Nhiễu của một nước ở gốc: băm (seed, thế cờ, nước) rồi đưa về [-noiseCap, noiseCap].
+     */
+    private int rootNoise(long rootKey, int move) {
+        if (noiseCap == 0) {
+            return 0;
+        }
+        long h = noiseSeed ^ rootKey ^ ((move & PackedMove.KEY_MASK) * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, 2L * noiseCap + 1) - noiseCap;
+    }
+
+    /**
+     * Kiểm tra hết giờ, tín hiệu dừng và giới hạn số nút (gọi mỗi TIME_CHECK_INTERVAL nút).
+     */
+    private void checkLimits() {
+        if (System.nanoTime() > deadline || stopRequest.get()
+                || (nodeBudget != null && nodeBudget.addAndGet(-TIME_CHECK_INTERVAL) < 0)) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Negamax alpha-beta.
+     *
+     * @return Điểm theo góc nhìn của {@code side}
+     */
+    private int negamax(Board board, GameLogic logic, Piece.Color side, int depth, int alpha, int beta, int ply) {
+        if (depth == 0 || ply >= MAX_DEPTH) {
+            return quiescence(board, logic, side, alpha, beta, ply);
+        }
+        if (++nodes % TIME_CHECK_INTERVAL == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        // Vua đã bị ăn (chỉ xảy ra khi đối thủ để vua bị chiếu) -> thua
+        if (!logic.hasKing(side)) {
+            return -MATE_SCORE + ply;
+        }
+
+        long key = hashKey(board, side);
+        int hashMove = TranspositionTable.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        MoveList moves = moveStack[ply];
+        moves.clear();
+        logic.generateMoves(side, moves);
+        if (moves.isEmpty()) {
+            // Chiếu hết hoặc hết nước (hòa)
+            return logic.isKingInCheck(board, side) ? -MATE_SCORE + ply : 0;
+        }
+        int[] scores = scoreStack[ply];
+        ordering.score(board, logic, side, moves, scores, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i);
+            board.movePiece(move);
+            int score = -negamax(board, logic, opposite(side), depth - 1, -beta, -alpha, ply + 1);
+            board.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                // Cắt tỉa beta: các nước đã thử nằm ở moves[0..i)
+                cutoffs++;
+                if (i == 0) {
+                    firstMoveCutoffs++;
+                }
+                ordering.recordCutoff(side, moves, i, depth, ply);
+                break;
+            }
+        }
+
+        if (table != null) {
+            int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                    : best > originalAlpha ? TranspositionTable.BOUND_EXACT
+                    : TranspositionTable.BOUND_UPPER;
+            // Không cắt được thì không có nước nào đáng tin là tốt nhất
+            int move = bound == TranspositionTable.BOUND_UPPER ? TranspositionTable.NO_MOVE : bestMove;
+            table.store(key, depth, bound, scoreToTable(best, ply), move);
+        }
+        return best;
+    }
+
+    /**
+     * Tìm kiếm tĩnh: bên đi được "đứng yên" với điểm đánh giá tĩnh (stand pat)
+     * hoặc thử các nước ăn quân / phong cấp. Khi bị chiếu thì phải xét mọi nước
+     * thoát chiếu (không được đứng yên), nhờ đó phát hiện được chiếu hết ở cuối cây.
+     *
+     * @return Điểm theo góc nhìn của {@code side}
+     */
+    private int quiescence(Board board, GameLogic logic, Piece.Color side, int alpha, int beta, int ply) {
+        if (++nodes % TIME_CHECK_INTERVAL == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        quiescenceNodes++;
+        if (ply >= MAX_DEPTH) {
+            return evaluator.evaluate(board, side);
+        }
+
+        boolean inCheck = logic.isKingInCheck(board, side);
+        MoveList moves = moveStack[ply];
+        moves.clear();
+        int best;
+        if (inCheck) {
+            logic.generateMoves(side, moves);
+            if (moves.isEmpty()) {
+                return -MATE_SCORE + ply;
+            }
+            best = -INFINITY;
+        } else {
+            best = evaluator.evaluate(board, side);
+            if (best >= beta) {
+                return best;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            logic.generateCaptures(side, moves);
+        }
+
+        int[] scores = scoreStack[ply];
+        quiescenceOrdering.score(board, logic, side, moves, scores, ply, PackedMove.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i);
+            if (!inCheck && seePruning && PackedMove.isCapture(move) && !PackedMove.isPromotion(move)
+                    && logic.staticExchange(move) < 0) {
+                continue; // Ăn quân lỗ: đứng yên không tệ hơn
+            }
+            board.movePiece(move);
+            int score = -quiescence(board, logic, opposite(side), -beta, -alpha, ply + 1);
+            board.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    // ===================== HASHING =====================
+
+    /**
+     * Khoá Zobrist của thế cờ với {@code side} là bên đi. Board tự theo dõi
+     * lượt đi, chỉ cần sửa lại khi được hỏi cho bên còn lại.
+     */
+    private static long hashKey(Board board, Piece.Color side) {
+        long key = board.getZobristKey();
+        return side == board.getSideToMove() ? key : key ^ Zobrist.whiteToMove();
+    }
+
+    private int probeMove(long key) {
+        if (table == null) {
+            return TranspositionTable.NO_MOVE;
+        }
+        long entry = table.probe(key);
+        return entry == 0 ? TranspositionTable.NO_MOVE : TranspositionTable.move(entry);
+    }
+
+    /**
+     * Điểm chiếu hết được lưu theo khoảng cách tính từ nút hiện tại (không phải
+     * từ gốc), để dùng lại đúng khi gặp thế cờ ở một ply khác.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_DEPTH * 2) {
+            return score + ply;
+        }
+        if (score <= -MATE_SCORE + MAX_DEPTH * 2) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_DEPTH * 2) {
+            return score - ply;
+        }
+        if (score <= -MATE_SCORE + MAX_DEPTH * 2) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    // ===================== MOVE ORDERING =====================
+
+    /**
+     * Sắp xếp cả danh sách nước ở gốc: {@code firstMove} (nước từ bảng băm hoặc
+     * lần lặp trước) lên đầu, phần còn lại theo MoveOrdering. Sắp xếp ổn định
+     * nên thứ tự của lần lặp trước được giữ khi bằng điểm.
+     */
+    private void orderRootMoves(Board board, GameLogic logic, Piece.Color side, MoveList moves, int firstMove) {
+        int[] scores = scoreStack[0];
+        ordering.score(board, logic, side, moves, scores, 0, firstMove);
+        MoveOrdering.sort(moves, scores);
+    }
+
+    /**
+     * Xoay các nước từ vị trí 1 trở đi sang phải {@code shift} bước (nước đầu giữ nguyên).
+     */
+    private static void rotateTail(MoveList moves, int shift) {
+        int tail = moves.size() - 1;
+        if (tail < 2) {
+            return;
+        }
+        for (int step = shift % tail; step > 0; step--) {
+            int last = moves.get(moves.size() - 1);
+            for (int i = moves.size() - 1; i > 1; i--) {
+                moves.set(i, moves.get(i - 1));
+            }
+            moves.set(1, last);
+        }
+    }
+
+    private static Piece.Color opposite(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+}
@@ -0,0 +1,202 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tra bảng tàn cuộc do TablebaseGenerator tạo (tối đa 4 quân).
+ *
+ * Mỗi file bảng được ánh xạ bộ nhớ chỉ đọc khi cần lần đầu và dùng chung cho
+ * cả JVM; tra một thế cờ chỉ là đọc 1 byte, không tốn CPU tìm kiếm.
+ * Các thế cờ còn quyền nhập thành hoặc có thể bắt tốt qua đường không được tra
+ * (bảng không tính tới các luật này).
+ */
+public final class Tablebase {
+
+    // ===================== CONSTANTS =====================
+
+    /** Không có trong bảng (quá nhiều quân, thiếu file, còn quyền nhập thành...). */
+    public static final int UNKNOWN = -1;
+    public static final int DRAW = 0;
+
+    /** Thư mục bảng mặc định (thư mục chạy), đổi được bằng -Dchess.engine.tablebases=... */
+    public static final String DEFAULT_DIRECTORY = "tablebases";
+
+    private static final Map<Path, Tablebase> OPENED = new ConcurrentHashMap<>();
+    private static Tablebase sharedTablebase;
+
+    // ===================== FIELDS =====================
+
+    private final Path directory;
+    private final Map<String, Optional<ByteBuffer>> tables = new ConcurrentHashMap<>();
+
+    private Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Bảng tàn cuộc trong thư mục {@code directory} (mỗi thư mục chỉ mở một lần).
+     */
+    public static Tablebase open(Path directory) {
+        return OPENED.computeIfAbsent(directory.toAbsolutePath().normalize(), Tablebase::new);
+    }
+
+    /**
+     * Bảng dùng chung cho máy chơi cờ, lấy từ system property {@code chess.engine.tablebases}
+     * (mặc định {@link #DEFAULT_DIRECTORY}).
+     *
+     * @return null nếu thư mục không tồn tại
+     */
+    public static synchronized Tablebase getShared() {
+        if (sharedTablebase == null) {
+            Path path = Path.of(System.getProperty("chess.engine.tablebases", DEFAULT_DIRECTORY));
+            if (!Files.isDirectory(path)) {
+                return null;
+            }
+            sharedTablebase = open(path);
+        }
+        return sharedTablebase;
+    }
+
+    // ===================== PROBE =====================
+
+    /**
+     * Giá trị thế cờ với bên đang tới lượt.
+     *
+     * @return {@link #UNKNOWN}, {@link #DRAW}, hoặc v &gt; 0: chiếu hết sau v - 1 nửa nước
+     *         (xem {@link #isWin}, {@link #isLoss}, {@link #distance})
+     */
+    public int probe(Board board) {
+        int white = board.getPieceCount(Piece.Color.WHITE);
+        int black = board.getPieceCount(Piece.Color.BLACK);
+        int count = white + black;
+        if (count > TablebaseIndex.MAX_PIECES || board.getCastlingRights() != 0 || canCaptureEnPassant(board)) {
+            return UNKNOWN;
+        }
+        if (count == 2) {
+            return DRAW;
+        }
+
+        Piece.Type[] types = new Piece.Type[count];
+        Piece.Color[] colors = new Piece.Color[count];
+        int[] squares = new int[count];
+        for (int i = 0; i < count; i++) {
+            Piece.Color color = i < white ? Piece.Color.WHITE : Piece.Color.BLACK;
+            int square = board.getPieceSquare(color, i < white ? i : i - white);
+            types[i] = board.getPiece(Bitboards.row(square), Bitboards.col(square)).getType();
+            colors[i] = color;
+            squares[i] = square;
+        }
+        TablebaseIndex.Location location = TablebaseIndex.locate(types, colors, squares, count,
+                board.getSideToMove());
+        ByteBuffer table = table(location.name);
+        if (table == null) {
+            return UNKNOWN;
+        }
+        return table.get(TablebaseIndex.HEADER_BYTES + location.index) & 0xFF;
+    }
+
+    /**
+     * Nước tốt nhất theo bảng: thắng nhanh nhất, không thì giữ hoà, không thì thua chậm nhất.
+     *
+     * @return PackedMove, hoặc PackedMove.NONE nếu thế cờ (hoặc một thế con) không có trong bảng
+     */
+    public int bestMove(Board board) {
+        if (probe(board) == UNKNOWN) {
+            return PackedMove.NONE;
+        }
+        // Thử nước trên bản sao để không đụng tới bàn cờ đang hiển thị
+        Board position = board.copy();
+        MoveList moves = new MoveList();
+        new GameLogic(position).generateMoves(position.getSideToMove(), moves);
+
+        int best = PackedMove.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.movePiece(move);
+            int value = probe(position);
+            position.undoMove();
+            if (value == UNKNOWN) {
+                return PackedMove.NONE;
+            }
+            int rank = rank(value);
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Điểm của một nước theo giá trị thế con (nhìn từ đối phương): càng lớn càng tốt cho bên đi.
+     */
+    private static int rank(int childValue) {
+        if (isLoss(childValue)) {
+            return 1000 - distance(childValue);     // Đối phương thua: thắng càng nhanh càng tốt
+        }
+        if (isWin(childValue)) {
+            return -1000 + distance(childValue);    // Đối phương thắng: kéo dài càng lâu càng tốt
+        }
+        return 0;
+    }
+
+    private ByteBuffer table(String name) {
+        return tables.computeIfAbsent(name, n -> {
+            Path file = directory.resolve(n + TablebaseIndex.EXTENSION);
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(TablebaseGenerator.map(file));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Có tốt nào bắt qua đường được không (ô bắt qua đường được đặt sau mọi nước tiến 2 ô).
+     */
+    private static boolean canCaptureEnPassant(Board board) {
+        int square = board.getEnPassantSquare();
+        if (square < 0) {
+            return false;
+        }
+        Piece.Color side = board.getSideToMove();
+        Piece.Color other = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        // Tốt của bên đi đứng ở ô mà tốt đối phương (đứng ở ô bắt) tấn công
+        return (Bitboards.pawnAttacks(other, square) & board.getPieces(Piece.Type.PAWN, side)) != 0;
+    }
+
+    // ===================== VALUES =====================
+
+    public static boolean isWin(int value) {
+        return value != UNKNOWN && TablebaseIndex.isWin(value);
+    }
+
+    public static boolean isLoss(int value) {
+        return value != UNKNOWN && TablebaseIndex.isLoss(value);
+    }
+
+    /**
+     * Số nửa nước tới chiếu hết của giá trị thắng/thua.
+     */
+    public static int distance(int value) {
+        return TablebaseIndex.distance(value);
+    }
+}
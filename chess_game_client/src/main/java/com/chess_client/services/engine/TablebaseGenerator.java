@@ -0,0 +1,542 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Piece;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Tạo bảng tàn cuộc (tablebase) tối đa 4 quân bằng phân tích ngược (retrograde analysis).
+ *
+ * Mỗi bảng (ví dụ KQK, KRK, KPK, KBNK, KQKR) lưu cho mọi thế cờ thắng/hoà/thua
+ * (WDL) kèm số nửa nước tới chiếu hết (DTM) trong 1 byte, định dạng xem TablebaseIndex.
+ * Các bảng con (sau khi ăn quân hoặc phong cấp) được tạo trước và đọc qua file
+ * ánh xạ bộ nhớ; bảng đã có trên đĩa thì dùng lại, không tạo lại.
+ *
+ * Thuật toán:
+ * <ol>
+ *   <li>Khởi tạo (song song theo khối chỉ số): đánh dấu chiếu hết, hết nước; với nước
+ *       ăn quân/phong cấp tra bảng con; đếm số nước "yên lặng" chưa biết kết quả.</li>
+ *   <li>Lần lượt theo số nửa nước d = 0, 1, 2...: với mỗi thế cờ có DTM = d, sinh các
+ *       nước đi ngược của bên vừa đi. Thế cờ này thua thì thế trước đó thắng trong d + 1;
+ *       thế cờ này thắng thì giảm bộ đếm của thế trước, về 0 thì thế trước thua.</li>
+ * </ol>
+ * Bộ đếm được cập nhật nguyên tử (VarHandle) nên mỗi bước chạy song song an toàn.
+ *
+ * Giản lược so với bảng Nalimov/Syzygy: bỏ qua bắt tốt qua đường và nhập thành
+ * (Tablebase không tra các thế cờ còn những quyền này), không rút gọn đối xứng.
+ *
+ * Chạy:
+ * <pre>
+ *   java -cp target/classes com.chess_client.services.engine.TablebaseGenerator tablebases KQK KRK KPK KBNK KQKR
+ * </pre>
+ */
+public final class TablebaseGenerator {
+
+    // ===================== CONSTANTS =====================
+
+    private static final int CHUNK = 1 << 14;
+    private static final int MAX_DISTANCE = 254;
+
+    private static final Piece.Type[] PROMOTIONS = {
+            Piece.Type.QUEEN, Piece.Type.ROOK, Piece.Type.BISHOP, Piece.Type.KNIGHT
+    };
+
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    // ===================== FIELDS =====================
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private final Map<String, ByteBuffer> tables = new HashMap<>();
+    private volatile ProgressListener listener;
+
+    /**
+     * Nhận thông báo mỗi khi tạo xong một bảng (kể cả bảng con), để in tiến độ.
+     */
+    public interface ProgressListener {
+        /**
+         * @param name      Tên bảng vừa tạo (ví dụ KQK)
+         * @param positions Số thế cờ của bảng
+         * @param millis    Thời gian tạo bảng
+         */
+        void tableGenerated(String name, int positions, long millis);
+    }
+
+    public TablebaseGenerator(Path directory, int threads) {
+        this.directory = directory;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Cách dùng: TablebaseGenerator <thư mục> <bảng>... (ví dụ KQK KRK KPK KBNK KQKR)");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]),
+                Runtime.getRuntime().availableProcessors());
+        generator.setProgressListener((name, positions, millis) ->
+                System.out.printf("%s: %d thế cờ, %d ms%n", name, positions, millis));
+        try {
+            for (int i = 1; i < args.length; i++) {
+                generator.generate(args[i]);
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Gọi {@code listener} sau mỗi bảng tạo xong, null = không báo (mặc định: không in gì).
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    // ===================== GENERATION =====================
+
+    /**
+     * Tạo bảng {@code signature} (và mọi bảng con còn thiếu) vào thư mục.
+     *
+     * @return File của bảng, null với "KK" (luôn hoà, không cần file)
+     */
+    public Path generate(String signature) throws IOException {
+        String name = TablebaseIndex.normalize(signature);
+        Path file = directory.resolve(name + TablebaseIndex.EXTENSION);
+        if (name.equals(TablebaseIndex.KINGS_ONLY) || tables.containsKey(name)) {
+            return name.equals(TablebaseIndex.KINGS_ONLY) ? null : file;
+        }
+        if (!Files.isRegularFile(file)) {
+            TablebaseIndex table = new TablebaseIndex(name);
+            for (String child : children(table)) {
+                generate(child);
+            }
+            long start = System.currentTimeMillis();
+            byte[] values = build(table);
+            Files.createDirectories(directory);
+            write(file, table, values);
+            ProgressListener progress = listener;
+            if (progress != null) {
+                progress.tableGenerated(name, table.size, System.currentTimeMillis() - start);
+            }
+        }
+        tables.put(name, map(file));
+        return file;
+    }
+
+    /**
+     * Các bảng có thể đi tới bằng một nước ăn quân hoặc phong cấp.
+     */
+    private static List<String> children(TablebaseIndex table) {
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < table.pieces; i++) {
+            if (table.types[i] == Piece.Type.KING) {
+                continue;
+            }
+            children.add(childName(table, i, null));
+            if (table.types[i] == Piece.Type.PAWN) {
+                for (Piece.Type promotion : PROMOTIONS) {
+                    children.add(childName(table, i, promotion));
+                }
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Tên bảng khi quân {@code piece} bị ăn (promotion == null) hoặc phong thành {@code promotion}.
+     */
+    private static String childName(TablebaseIndex table, int piece, Piece.Type promotion) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int i = 0; i < table.pieces; i++) {
+            Piece.Type type = i == piece ? promotion : table.types[i];
+            if (type != null) {
+                (table.colors[i] == Piece.Color.WHITE ? white : black).append(TablebaseIndex.letter(type));
+            }
+        }
+        return TablebaseIndex.canonicalName(white.toString(), black.toString());
+    }
+
+    private byte[] build(TablebaseIndex table) {
+        byte[] values = new byte[table.size];
+        byte[] remaining = new byte[table.size];
+        byte[] lossFloor = new byte[table.size];
+        AtomicInteger maxDistance = new AtomicInteger(-1);
+
+        forEachChunk(table, (first, last) -> {
+            int[] squares = new int[table.pieces];
+            for (int index = first; index < last; index++) {
+                initialize(table, index, squares, values, remaining, lossFloor, maxDistance);
+            }
+        });
+
+        for (int d = 0; d <= maxDistance.get(); d++) {
+            int distance = d;
+            forEachChunk(table, (first, last) -> {
+                int[] squares = new int[table.pieces];
+                for (int index = first; index < last; index++) {
+                    if (load(values, index) == TablebaseIndex.encode(distance)) {
+                        retract(table, index, distance, squares, values, remaining, lossFloor, maxDistance);
+                    }
+                }
+            });
+        }
+        return values;
+    }
+
+    private interface ChunkTask {
+        void run(int first, int last);
+    }
+
+    private void forEachChunk(TablebaseIndex table, ChunkTask task) {
+        int chunks = (table.size + CHUNK - 1) / CHUNK;
+        pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> task.run(chunk * CHUNK, Math.min(table.size, (chunk + 1) * CHUNK))))
+                .join();
+    }
+
+    // ===================== INITIALIZATION =====================
+
+    private void initialize(TablebaseIndex table, int index, int[] squares, byte[] values, byte[] remaining,
+            byte[] lossFloor, AtomicInteger maxDistance) {
+        int side = table.decode(index, squares);
+        if (!isValid(table, squares, side)) {
+            return;
+        }
+        Piece.Color mover = side == 0 ? Piece.Color.WHITE : Piece.Color.BLACK;
+        long occupied = occupancy(table, squares, -1);
+
+        int legal = 0;
+        int quiet = 0;
+        int bestWin = Integer.MAX_VALUE;
+        int worstLoss = 0;
+        for (int piece = 0; piece < table.pieces; piece++) {
+            if (table.colors[piece] != mover) {
+                continue;
+            }
+            int from = squares[piece];
+            long targets = targets(table, squares, piece, occupied);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int captured = pieceAt(table, squares, to);
+                squares[piece] = to;
+                boolean isLegal = !isKingAttacked(table, squares, mover, captured);
+                boolean promotion = table.types[piece] == Piece.Type.PAWN && isLastRow(mover, to);
+                if (isLegal && captured < 0 && !promotion) {
+                    legal++;
+                    quiet++;
+                } else if (isLegal) {
+                    legal++;
+                    for (Piece.Type type : promotion ? PROMOTIONS : new Piece.Type[] { table.types[piece] }) {
+                        int child = probeChild(table, squares, piece, type, captured, opponent(mover));
+                        if (child == 0) {
+                            quiet++;    // Hoà: không bao giờ giảm về 0, thế cờ này không thể thua
+                        } else if (TablebaseIndex.isLoss(child)) {
+                            bestWin = Math.min(bestWin, TablebaseIndex.distance(child) + 1);
+                        } else {
+                            worstLoss = Math.max(worstLoss, TablebaseIndex.distance(child) + 1);
+                        }
+                    }
+                }
+                squares[piece] = from;
+            }
+        }
+
+        BYTES.set(remaining, index, (byte) quiet);
+        BYTES.set(lossFloor, index, (byte) worstLoss);
+        if (legal == 0) {
+            // Chiếu hết hoặc hết nước (hoà)
+            if (isKingAttacked(table, squares, mover, -1)) {
+                setValue(values, index, 0, maxDistance);
+            }
+        } else if (bestWin != Integer.MAX_VALUE) {
+            setValue(values, index, bestWin, maxDistance);
+        } else if (quiet == 0) {
+            setValue(values, index, worstLoss, maxDistance);
+        }
+    }
+
+    /**
+     * Giá trị trong bảng con sau khi quân {@code piece} (đã ở ô mới) đổi thành
+     * {@code type} và quân {@code captured} (-1 nếu không ăn) bị bỏ.
+     */
+    private int probeChild(TablebaseIndex table, int[] squares, int piece, Piece.Type type, int captured,
+            Piece.Color side) {
+        Piece.Type[] types = new Piece.Type[table.pieces];
+        Piece.Color[] colors = new Piece.Color[table.pieces];
+        int[] childSquares = new int[table.pieces];
+        int count = 0;
+        for (int i = 0; i < table.pieces; i++) {
+            if (i != captured) {
+                types[count] = i == piece ? type : table.types[i];
+                colors[count] = table.colors[i];
+                childSquares[count] = squares[i];
+                count++;
+            }
+        }
+        TablebaseIndex.Location location = TablebaseIndex.locate(types, colors, childSquares, count, side);
+        if (location.name.equals(TablebaseIndex.KINGS_ONLY)) {
+            return 0;
+        }
+        ByteBuffer child = tables.get(location.name);
+        if (child == null) {
+            throw new IllegalStateException("Thiếu bảng con " + location.name);
+        }
+        return child.get(TablebaseIndex.HEADER_BYTES + location.index) & 0xFF;
+    }
+
+    // ===================== RETROGRADE =====================
+
+    /**
+     * Lan kết quả của thế cờ {@code index} (DTM = {@code distance}) về các thế cờ trước đó.
+     */
+    private void retract(TablebaseIndex table, int index, int distance, int[] squares, byte[] values,
+            byte[] remaining, byte[] lossFloor, AtomicInteger maxDistance) {
+        int side = table.decode(index, squares);
+        boolean lost = TablebaseIndex.isLoss(load(values, index));
+        int previousSide = side ^ 1;
+        Piece.Color previous = previousSide == 0 ? Piece.Color.WHITE : Piece.Color.BLACK;
+        long occupied = occupancy(table, squares, -1);
+
+        for (int piece = 0; piece < table.pieces; piece++) {
+            if (table.colors[piece] != previous) {
+                continue;
+            }
+            int to = squares[piece];
+            long origins = origins(table, piece, to, occupied);
+            while (origins != 0) {
+                int from = Long.numberOfTrailingZeros(origins);
+                origins &= origins - 1;
+                squares[piece] = from;
+                // Trong thế trước, bên không đi (bên đi ở thế hiện tại) không được đang bị chiếu
+                if (!isKingAttacked(table, squares, opponent(previous), -1)) {
+                    int predecessor = table.index(previousSide, squares);
+                    if (lost) {
+                        improveWin(values, predecessor, distance + 1, maxDistance);
+                    } else if (decrement(remaining, predecessor) == 1) {
+                        int loss = Math.max(distance + 1, load(lossFloor, predecessor));
+                        if (BYTES.compareAndSet(values, predecessor, (byte) 0, (byte) TablebaseIndex.encode(loss))) {
+                            updateMax(maxDistance, loss);
+                        }
+                    }
+                }
+                squares[piece] = to;
+            }
+        }
+    }
+
+    /**
+     * Các ô quân {@code piece} có thể đã đứng trước một nước yên lặng tới {@code to}.
+     */
+    private static long origins(TablebaseIndex table, int piece, int to, long occupied) {
+        Piece.Color color = table.colors[piece];
+        if (table.types[piece] != Piece.Type.PAWN) {
+            return TablebaseIndex.attacks(table.types[piece], color, to, occupied) & ~occupied;
+        }
+        int back = color == Piece.Color.WHITE ? 8 : -8;
+        int row = Bitboards.row(to);
+        long origins = 0L;
+        int single = to + back;
+        boolean singleRowValid = color == Piece.Color.WHITE ? row <= 5 : row >= 2;
+        if (singleRowValid && (occupied & Bitboards.bit(single)) == 0) {
+            origins |= Bitboards.bit(single);
+            int startRow = color == Piece.Color.WHITE ? 4 : 3;
+            int twice = single + back;
+            if (row == startRow && (occupied & Bitboards.bit(twice)) == 0) {
+                origins |= Bitboards.bit(twice);
+            }
+        }
+        return origins;
+    }
+
+    private static void improveWin(byte[] values, int index, int distance, AtomicInteger maxDistance) {
+        byte encoded = (byte) TablebaseIndex.encode(distance);
+        while (true) {
+            byte current = (byte) BYTES.getVolatile(values, index);
+            if (current != 0 && (current & 0xFF) <= TablebaseIndex.encode(distance)) {
+                return;
+            }
+            if (BYTES.compareAndSet(values, index, current, encoded)) {
+                updateMax(maxDistance, distance);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Giảm nguyên tử một ô byte, trả về giá trị cũ. Dùng vòng CAS thay cho
+     * VarHandle.getAndAdd: getAndAdd trên byte[] cho kết quả sai sau khi JIT
+     * biên dịch (đã gặp trên JDK 17.0.9).
+     */
+    private static int decrement(byte[] array, int index) {
+        while (true) {
+            byte current = (byte) BYTES.getVolatile(array, index);
+            if (BYTES.compareAndSet(array, index, current, (byte) (current - 1))) {
+                return current & 0xFF;
+            }
+        }
+    }
+
+    private static int load(byte[] array, int index) {
+        return (byte) BYTES.get(array, index) & 0xFF;
+    }
+
+    private static void setValue(byte[] values, int index, int distance, AtomicInteger maxDistance) {
+        BYTES.set(values, index, (byte) TablebaseIndex.encode(distance));
+        updateMax(maxDistance, distance);
+    }
+
+    private static void updateMax(AtomicInteger maxDistance, int distance) {
+        if (distance > MAX_DISTANCE) {
+            throw new IllegalStateException("DTM vượt quá " + MAX_DISTANCE + " nửa nước");
+        }
+        maxDistance.accumulateAndGet(distance, Math::max);
+    }
+
+    // ===================== POSITION HELPERS =====================
+
+    /**
+     * Thế cờ hợp lệ: không trùng ô, không có tốt ở hàng cuối, bên không đi không bị chiếu.
+     */
+    private static boolean isValid(TablebaseIndex table, int[] squares, int side) {
+        long seen = 0L;
+        for (int i = 0; i < table.pieces; i++) {
+            long bit = Bitboards.bit(squares[i]);
+            if ((seen & bit) != 0) {
+                return false;
+            }
+            seen |= bit;
+            int row = Bitboards.row(squares[i]);
+            if (table.types[i] == Piece.Type.PAWN && (row == 0 || row == 7)) {
+                return false;
+            }
+        }
+        Piece.Color waiting = side == 0 ? Piece.Color.BLACK : Piece.Color.WHITE;
+        return !isKingAttacked(table, squares, waiting, -1);
+    }
+
+    /**
+     * Vua màu {@code color} có bị quân đối phương (trừ quân {@code removed}) tấn công không.
+     */
+    private static boolean isKingAttacked(TablebaseIndex table, int[] squares, Piece.Color color, int removed) {
+        long occupied = occupancy(table, squares, removed);
+        int king = -1;
+        for (int i = 0; i < table.pieces; i++) {
+            if (table.types[i] == Piece.Type.KING && table.colors[i] == color) {
+                king = squares[i];
+            }
+        }
+        long kingBit = Bitboards.bit(king);
+        for (int i = 0; i < table.pieces; i++) {
+            if (i != removed && table.colors[i] != color
+                    && (TablebaseIndex.attacks(table.types[i], table.colors[i], squares[i], occupied) & kingBit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Các ô quân {@code piece} đi tới được (chưa kiểm tra tự chiếu).
+     */
+    private static long targets(TablebaseIndex table, int[] squares, int piece, long occupied) {
+        Piece.Color color = table.colors[piece];
+        int from = squares[piece];
+        long own = 0L;
+        long enemy = 0L;
+        for (int i = 0; i < table.pieces; i++) {
+            if (table.colors[i] == color) {
+                own |= Bitboards.bit(squares[i]);
+            } else {
+                enemy |= Bitboards.bit(squares[i]);
+            }
+        }
+        if (table.types[piece] != Piece.Type.PAWN) {
+            return TablebaseIndex.attacks(table.types[piece], color, from, occupied) & ~own;
+        }
+        int forward = color == Piece.Color.WHITE ? -8 : 8;
+        long targets = Bitboards.pawnAttacks(color, from) & enemy;
+        int single = from + forward;
+        if ((occupied & Bitboards.bit(single)) == 0) {
+            targets |= Bitboards.bit(single);
+            int startRow = color == Piece.Color.WHITE ? 6 : 1;
+            int twice = single + forward;
+            if (Bitboards.row(from) == startRow && (occupied & Bitboards.bit(twice)) == 0) {
+                targets |= Bitboards.bit(twice);
+            }
+        }
+        return targets;
+    }
+
+    private static Piece.Color opponent(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+
+    private static boolean isLastRow(Piece.Color color, int square) {
+        return Bitboards.row(square) == (color == Piece.Color.WHITE ? 0 : 7);
+    }
+
+    private static int pieceAt(TablebaseIndex table, int[] squares, int square) {
+        for (int i = 0; i < table.pieces; i++) {
+            if (squares[i] == square) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long occupancy(TablebaseIndex table, int[] squares, int removed) {
+        long occupied = 0L;
+        for (int i = 0; i < table.pieces; i++) {
+            if (i != removed) {
+                occupied |= Bitboards.bit(squares[i]);
+            }
+        }
+        return occupied;
+    }
+
+    // ===================== FILES =====================
+
+    private static void write(Path file, TablebaseIndex table, byte[] values) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(TablebaseIndex.MAGIC);
+            out.writeInt(table.pieces);
+            out.write(values);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < TablebaseIndex.HEADER_BYTES || buffer.getInt(0) != TablebaseIndex.MAGIC) {
+                throw new IOException("File bảng tàn cuộc không hợp lệ: " + file);
+            }
+            return buffer;
+        }
+    }
+}
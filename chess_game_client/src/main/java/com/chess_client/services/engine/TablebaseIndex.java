@@ -0,0 +1,249 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Bitboards;
+import com.chess_client.models.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Cách đánh số thế cờ và quy ước tên bảng dùng chung cho TablebaseGenerator
+ * (tạo bảng) và Tablebase (tra bảng).
+ *
+ * Tên bảng là quân Trắng rồi quân Đen, mỗi bên bắt đầu bằng vua và các quân
+ * còn lại theo thứ tự Piece.Type (Q, R, B, N, P), ví dụ "KQKR", "KPKP".
+ * Chỉ lưu chiều "chuẩn" (bên mạnh hơn là Trắng); thế cờ ngược màu được tra
+ * bằng cách đổi màu và lật hàng ({@code sq ^ 56}).
+ *
+ * Chỉ số = bên đi * 64^n + ô của từng quân theo thứ tự trong tên (cơ số 64).
+ * Không dùng đối xứng để giảm kích thước: bảng 4 quân là 2 * 64^4 byte (32 MB).
+ *
+ * Giá trị mỗi ô là 1 byte: 0 = hoà (hoặc thế cờ không hợp lệ), v &gt; 0 nghĩa là
+ * chiếu hết sau đúng v - 1 nửa nước (lẻ: bên đi thắng, chẵn: bên đi thua,
+ * 1 = bên đi đang bị chiếu hết).
+ */
+final class TablebaseIndex {
+
+    // ===================== CONSTANTS =====================
+
+    static final int MAX_PIECES = 4;
+
+    static final int MAGIC = 0x43544231;     // "CTB1"
+    static final int HEADER_BYTES = 8;       // MAGIC + số quân
+    static final String EXTENSION = ".tb";
+
+    static final String KINGS_ONLY = "KK";
+
+    private static final String LETTERS = "KQRBNP";  // Theo thứ tự Piece.Type
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+
+    // ===================== FIELDS =====================
+
+    final String name;
+    final int pieces;
+    final Piece.Type[] types;
+    final Piece.Color[] colors;
+    final int size;
+
+    TablebaseIndex(String name) {
+        int blackKing = name.indexOf('K', 1);
+        if (!name.startsWith("K") || blackKing < 0 || name.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Tên bảng không hợp lệ: " + name);
+        }
+        this.name = name;
+        this.pieces = name.length();
+        this.types = new Piece.Type[pieces];
+        this.colors = new Piece.Color[pieces];
+        for (int i = 0; i < pieces; i++) {
+            int letter = LETTERS.indexOf(name.charAt(i));
+            if (letter < 0 || (letter == 0 && i != 0 && i != blackKing)) {
+                throw new IllegalArgumentException("Tên bảng không hợp lệ: " + name);
+            }
+            types[i] = TYPES[letter];
+            colors[i] = i < blackKing ? Piece.Color.WHITE : Piece.Color.BLACK;
+        }
+        this.size = 2 << (6 * pieces);
+    }
+
+    // ===================== INDEXING =====================
+
+    int index(int side, int[] squares) {
+        int index = side;
+        for (int i = 0; i < pieces; i++) {
+            index = (index << 6) | squares[i];
+        }
+        return index;
+    }
+
+    /**
+     * Giải chỉ số: ghi ô của từng quân vào {@code squares}.
+     *
+     * @return Bên đi (0 = Trắng, 1 = Đen)
+     */
+    int decode(int index, int[] squares) {
+        for (int i = pieces - 1; i >= 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        return index;
+    }
+
+    // ===================== LOCATING =====================
+
+    /**
+     * Vị trí của một thế cờ (danh sách quân theo thứ tự bất kỳ) trong bảng chuẩn.
+     */
+    static final class Location {
+        final String name;
+        final int index;
+
+        Location(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Tìm bảng và chỉ số của thế cờ gồm {@code count} quân.
+     *
+     * @param side Bên đi
+     */
+    static Location locate(Piece.Type[] types, Piece.Color[] colors, int[] squares, int count, Piece.Color side) {
+        // Khoá sắp xếp: loại quân ở các bit cao, ô ở bit thấp
+        int[] white = new int[count];
+        int[] black = new int[count];
+        int whiteCount = 0;
+        int blackCount = 0;
+        for (int i = 0; i < count; i++) {
+            int key = types[i].ordinal() << 6 | squares[i];
+            if (colors[i] == Piece.Color.WHITE) {
+                white[whiteCount++] = key;
+            } else {
+                black[blackCount++] = key;
+            }
+        }
+        Arrays.sort(white, 0, whiteCount);
+        Arrays.sort(black, 0, blackCount);
+        String whiteName = letters(white, whiteCount);
+        String blackName = letters(black, blackCount);
+
+        boolean flip = isStronger(blackName, whiteName);
+        int[] first = flip ? black : white;
+        int[] second = flip ? white : black;
+        int firstCount = flip ? blackCount : whiteCount;
+        int secondCount = flip ? whiteCount : blackCount;
+        int mirror = flip ? 56 : 0;
+
+        int index = (side == Piece.Color.WHITE) != flip ? 0 : 1;
+        for (int i = 0; i < firstCount; i++) {
+            index = (index << 6) | ((first[i] & 63) ^ mirror);
+        }
+        for (int i = 0; i < secondCount; i++) {
+            index = (index << 6) | ((second[i] & 63) ^ mirror);
+        }
+        return new Location(flip ? blackName + whiteName : whiteName + blackName, index);
+    }
+
+    /**
+     * Tên bảng chuẩn cho hai bên quân (mỗi bên là chuỗi bắt đầu bằng "K",
+     * các quân còn lại viết theo thứ tự bất kỳ).
+     */
+    static String canonicalName(String white, String black) {
+        white = sortSide(white);
+        black = sortSide(black);
+        return isStronger(black, white) ? black + white : white + black;
+    }
+
+    /**
+     * Chuẩn hoá tên do người dùng nhập ("kqkr", "KRKQ", "KPK"...) thành tên bảng chuẩn.
+     */
+    static String normalize(String signature) {
+        String upper = signature.trim().toUpperCase();
+        int blackKing = upper.indexOf('K', 1);
+        if (!upper.startsWith("K") || blackKing < 0) {
+            throw new IllegalArgumentException("Tên bảng không hợp lệ: " + signature);
+        }
+        return canonicalName(upper.substring(0, blackKing), upper.substring(blackKing));
+    }
+
+    private static String sortSide(String side) {
+        char[] letters = side.substring(1).toCharArray();
+        for (int i = 1; i < letters.length; i++) {
+            for (int j = i; j > 0 && LETTERS.indexOf(letters[j]) < LETTERS.indexOf(letters[j - 1]); j--) {
+                char swap = letters[j];
+                letters[j] = letters[j - 1];
+                letters[j - 1] = swap;
+            }
+        }
+        return "K" + new String(letters);
+    }
+
+    /**
+     * Bên {@code a} được coi là mạnh hơn {@code b}: nhiều vật chất hơn,
+     * bằng nhau thì so theo thứ tự chữ (để mỗi cặp chỉ có một tên chuẩn).
+     */
+    private static boolean isStronger(String a, String b) {
+        int difference = material(a) - material(b);
+        if (difference != 0) {
+            return difference > 0;
+        }
+        if (a.length() != b.length()) {
+            return a.length() > b.length();
+        }
+        return a.compareTo(b) < 0;
+    }
+
+    private static int material(String side) {
+        int total = 0;
+        for (int i = 0; i < side.length(); i++) {
+            total += TYPES[LETTERS.indexOf(side.charAt(i))].getValue();
+        }
+        return total;
+    }
+
+    private static String letters(int[] keys, int count) {
+        StringBuilder letters = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            letters.append(LETTERS.charAt(keys[i] >>> 6));
+        }
+        return letters.toString();
+    }
+
+    static char letter(Piece.Type type) {
+        return LETTERS.charAt(type.ordinal());
+    }
+
+    // ===================== ATTACKS =====================
+
+    /**
+     * Các ô quân {@code type} màu {@code color} đứng ở {@code square} tấn công.
+     */
+    static long attacks(Piece.Type type, Piece.Color color, int square, long occupied) {
+        return switch (type) {
+            case KING -> Bitboards.kingAttacks(square);
+            case QUEEN -> Bitboards.queenAttacks(square, occupied);
+            case ROOK -> Bitboards.rookAttacks(square, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+            case KNIGHT -> Bitboards.knightAttacks(square);
+            case PAWN -> Bitboards.pawnAttacks(color, square);
+        };
+    }
+
+    // ===================== VALUES =====================
+
+    static boolean isWin(int value) {
+        return value > 0 && (value - 1) % 2 == 1;
+    }
+
+    static boolean isLoss(int value) {
+        return value > 0 && (value - 1) % 2 == 0;
+    }
+
+    /** Số nửa nước tới chiếu hết (chỉ có nghĩa khi value &gt; 0). */
+    static int distance(int value) {
+        return value - 1;
+    }
+
+    static int encode(int distance) {
+        return distance + 1;
+    }
+}
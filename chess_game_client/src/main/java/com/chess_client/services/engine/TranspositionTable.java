@@ -0,0 +1,248 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.PackedMove;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bảng băm chuyển vị (transposition table) nằm ngoài heap.
+ *
+ * Bộ nhớ là một direct ByteBuffer cấp phát một lần, nên bảng vài trăm MB
+ * cũng không làm tăng áp lực GC cho client JavaFX. Bảng chia thành các
+ * bucket 32 byte, mỗi bucket 2 ô: ô đầu ưu tiên giữ kết quả tìm sâu, ô sau
+ * luôn được ghi đè.
+ *
+ * Mỗi ô gồm 2 long: {@code key ^ data} và {@code data}. Nhiều luồng tìm kiếm
+ * đọc/ghi cùng lúc mà không khoá; nếu hai lần ghi đan xen nhau thì phép XOR
+ * không còn khớp với khoá và ô đó bị coi như trống (kỹ thuật lockless hashing).
+ *
+ * Dữ liệu một ô (long) được đóng gói như sau:
+ * <pre>
+ *   bit  0-31 : điểm (int)
+ *   bit 32-39 : độ sâu
+ *   bit 40-41 : loại cận (EXACT / LOWER / UPPER, 0 = trống)
+ *   bit 42-56 : nước tốt nhất (PackedMove: ô đi, ô đến, quân phong; 0 = không có)
+ *   bit 57-63 : thế hệ (tăng mỗi lần tìm mới, để thay ô cũ)
+ * </pre>
+ */
+public class TranspositionTable {
+
+    // ===================== CONSTANTS =====================
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;   // điểm >= giá trị lưu (đã cắt beta)
+    public static final int BOUND_UPPER = 3;   // điểm <= giá trị lưu (không nước nào vượt alpha)
+
+    public static final int NO_MOVE = PackedMove.NONE;
+
+    /** Kích thước mặc định (MB), đổi được bằng -Dchess.engine.hashMb=... */
+    public static final int DEFAULT_SIZE_MB = 32;
+    public static final int MAX_SIZE_MB = 1024;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = 2 * ENTRY_BYTES;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // ===================== FIELDS =====================
+
+    private final ByteBuffer buffer;
+    private final int sizeMb;
+    private final long bucketMask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * @param sizeMb Kích thước bảng (MB), làm tròn xuống lũy thừa của 2
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1 || sizeMb > MAX_SIZE_MB) {
+            throw new IllegalArgumentException("Kích thước bảng băm phải từ 1 đến " + MAX_SIZE_MB + " MB");
+        }
+        long buckets = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BUCKET_BYTES);
+        this.sizeMb = sizeMb;
+        this.bucketMask = buckets - 1;
+        // Căn lề 8 byte để truy cập long nguyên tử qua VarHandle
+        this.buffer = ByteBuffer.allocateDirect((int) (buckets * BUCKET_BYTES) + 8)
+                .alignedSlice(8)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Kích thước bảng băm của máy trong ván (MB), lấy từ system property
+     * {@code chess.engine.hashMb} và chặn trong [1, MAX_SIZE_MB].
+     */
+    public static int configuredSizeMb() {
+        int size = Integer.getInteger("chess.engine.hashMb", DEFAULT_SIZE_MB);
+        return Math.max(1, Math.min(MAX_SIZE_MB, size));
+    }
+
+    // ===================== PROBE / STORE =====================
+
+    /**
+     * Tìm thế cờ trong bảng.
+     *
+     * @return Dữ liệu đã đóng gói (giải mã bằng các hàm static bên dưới), 0 nếu không có
+     */
+    public long probe(long key) {
+        probes.increment();
+        int base = bucketOffset(key);
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = base + slot * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(buffer, offset + 8);
+            long check = (long) LONGS.getOpaque(buffer, offset);
+            if (data != 0 && (check ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Lưu kết quả tìm kiếm của một thế cờ.
+     *
+     * @param move Nước tốt nhất (PackedMove, chỉ giữ ô đi, ô đến, quân phong), hoặc NO_MOVE
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        stores.increment();
+        int base = bucketOffset(key);
+        int gen = generation;
+
+        // Ô 0: chỉ thay khi cùng thế cờ, đã cũ hoặc kết quả mới sâu hơn; nếu không thì ghi vào ô 1
+        long old = (long) LONGS.getOpaque(buffer, base + 8);
+        long oldCheck = (long) LONGS.getOpaque(buffer, base);
+        boolean sameKey = old != 0 && (oldCheck ^ old) == key;
+        int offset = base + ENTRY_BYTES;
+        if (old == 0 || sameKey || generation(old) != gen || depth >= depth(old)) {
+            offset = base;
+            if (sameKey && move == NO_MOVE) {
+                move = move(old); // Giữ nước tốt nhất cũ
+            }
+        }
+
+        long data = (score & 0xFFFFFFFFL)
+                | ((long) Math.max(0, Math.min(255, depth)) << 32)
+                | ((long) bound << 40)
+                | ((long) (move & PackedMove.KEY_MASK) << 42)
+                | ((long) gen << 57);
+        LONGS.setOpaque(buffer, offset, key ^ data);
+        LONGS.setOpaque(buffer, offset + 8, data);
+    }
+
+    /**
+     * Bắt đầu một lần tìm mới: các ô từ lần tìm trước trở thành "cũ"
+     * và được ưu tiên thay thế.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0x7F;
+    }
+
+    /**
+     * Xoá toàn bộ bảng (ví dụ khi bắt đầu ván mới).
+     */
+    public void clear() {
+        for (int i = 0; i < buffer.capacity(); i += 8) {
+            LONGS.setOpaque(buffer, i, 0L);
+        }
+        resetCounters();
+    }
+
+    /**
+     * Ghi thẳng hai long của một ô trong bucket của {@code key}, không qua
+     * {@link #store}; chỉ dùng để giả lập lần ghi bị đan xen trong test.
+     */
+    void writeRaw(long key, int slot, long check, long data) {
+        int offset = bucketOffset(key) + slot * ENTRY_BYTES;
+        LONGS.setOpaque(buffer, offset, check);
+        LONGS.setOpaque(buffer, offset + 8, data);
+    }
+
+    private int bucketOffset(long key) {
+        return (int) (key & bucketMask) * BUCKET_BYTES;
+    }
+
+    // ===================== ENTRY DECODING =====================
+
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    /**
+     * @return Nước tốt nhất (PackedMove không kèm cờ phụ), hoặc NO_MOVE nếu ô không lưu nước
+     */
+    public static int move(long data) {
+        return (int) (data >>> 42) & PackedMove.KEY_MASK;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 57) & 0x7F;
+    }
+
+    // ===================== STATISTICS =====================
+
+    public int getSizeMb() {
+        return sizeMb;
+    }
+
+    public long getCapacity() {
+        return (bucketMask + 1) * 2;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Tỉ lệ probe tìm thấy thế cờ trong bảng (0..1).
+     */
+    public double getHitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0.0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Phần nghìn số bucket (trong 1000 bucket đầu) có ô đầu được ghi ở lần tìm hiện tại.
+     */
+    public int getUsagePermille() {
+        int sample = (int) Math.min(1000, bucketMask + 1);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = (long) LONGS.getOpaque(buffer, i * BUCKET_BYTES + 8);
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public void resetCounters() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+}
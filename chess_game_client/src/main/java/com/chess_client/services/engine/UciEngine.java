@@ -0,0 +1,470 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Máy chơi cờ chạy không giao diện theo giao thức UCI qua stdin/stdout,
+ * để đo và kiểm thử bằng các công cụ chuẩn (cutechess-cli, fastchess) hoặc
+ * chạy máy trong một tiến trình riêng.
+ *
+ * Chạy sau khi build:
+ * <pre>
+ *   java -cp target/classes com.chess_client.services.engine.UciEngine
+ * </pre>
+ *
+ * Hỗ trợ: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code setoption name Hash|Threads|Clear Hash|EvalNoise|NoiseSeed},
+ * {@code position startpos|fen ... [moves ...]},
+ * {@code go [depth N] [movetime N] [nodes N] [infinite] [wtime N btime N winc N binc N movestogo N]},
+ * {@code stop}, {@code quit}. Mỗi độ sâu tìm xong in một dòng {@code info} có
+ * depth, score, nodes, nps, time, hashfull và pv (lấy từ bảng băm).
+ *
+ * Lệnh sai bị bỏ cả lệnh, không dùng một phần: {@code position} có FEN hoặc nước đi
+ * không hợp lệ làm mất thế cờ hiện tại, nên mọi {@code go} sau đó (tới lệnh
+ * {@code position} hợp lệ tiếp theo) trả ngay {@code bestmove 0000}; {@code go} có
+ * tham số sai cũng trả ngay {@code bestmove 0000} mà không tìm.
+ *
+ * Lần tìm chạy trên một luồng riêng nên vẫn đọc được {@code stop}/{@code isready}
+ * trong lúc tìm. Chỉ dùng bộ tìm kiếm (không sách khai cuộc/bảng tàn cuộc):
+ * công cụ bên ngoài tự lo sách mở đầu và xử lý kết thúc ván.
+ */
+public final class UciEngine {
+
+    // ===================== CONSTANTS =====================
+
+    public static final String NAME = "chess_client";
+    public static final int DEFAULT_HASH_MB = 16;
+
+    private static final long INFINITE_MILLIS = 365L * 24 * 3_600_000L;
+    private static final int MAX_DEPTH = 64;
+    private static final int MAX_PV_LENGTH = 32;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final long MOVE_OVERHEAD_MILLIS = 30;   // Trừ hao thời gian gửi/nhận qua pipe
+    private static final int MAX_NOISE_CAP = 1000;
+
+    // ===================== FIELDS =====================
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chess-uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TranspositionTable table;
+    private LazySmpSearch search;
+    private int hashMb = DEFAULT_HASH_MB;
+    private int threads = 1;
+    private int noiseCap;       // Nhiễu ở gốc như DifficultyLevel (dùng khi chạy máy trong tiến trình riêng)
+    private long noiseSeed;
+    private Board position = new Board();   // null sau lệnh position sai
+
+    // Lần tìm đang chạy
+    private Future<?> running;
+    private AtomicBoolean stop;
+    private CountDownLatch stopCommand;     // Mở khi nhận "stop" (go infinite chờ cái này)
+    private volatile Board searchRoot;
+    private volatile long searchStartNanos;
+
+    public UciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        createSearch();
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UciEngine(in, new PrintStream(System.out, false, StandardCharsets.UTF_8)).run();
+    }
+
+    /**
+     * Đọc và xử lý lệnh tới khi gặp {@code quit} hoặc hết dữ liệu vào.
+     */
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line.trim())) {
+                    break;
+                }
+            }
+        } finally {
+            stopSearch();
+            searchThread.shutdownNow();
+            search.shutdown();
+        }
+    }
+
+    // ===================== COMMANDS =====================
+
+    /**
+     * @return false nếu là lệnh {@code quit}
+     */
+    boolean handle(String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + NAME);
+                send("option name Hash type spin default " + DEFAULT_HASH_MB
+                        + " min 1 max " + TranspositionTable.MAX_SIZE_MB);
+                send("option name Threads type spin default 1 min 1 max " + LazySmpSearch.MAX_THREADS);
+                send("option name Clear Hash type button");
+                send("option name EvalNoise type spin default 0 min 0 max " + MAX_NOISE_CAP);
+                send("option name NoiseSeed type string default 0");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                search.clear();
+                break;
+            case "setoption":
+                setOption(line);
+                break;
+            case "position":
+                stopSearch();
+                position(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            case "ponderhit":
+            case "debug":
+                break;
+            default:
+                send("info string Lệnh không hỗ trợ: " + tokens[0]);
+        }
+        return true;
+    }
+
+    private void setOption(String line) {
+        int nameAt = line.indexOf(" name ");
+        if (nameAt < 0) {
+            return;
+        }
+        int valueAt = line.indexOf(" value ");
+        String name = (valueAt < 0 ? line.substring(nameAt + 6) : line.substring(nameAt + 6, valueAt)).trim();
+        String value = valueAt < 0 ? "" : line.substring(valueAt + 7).trim();
+
+        stopSearch();
+        try {
+            if ("Hash".equalsIgnoreCase(name)) {
+                hashMb = Math.max(1, Math.min(TranspositionTable.MAX_SIZE_MB, Integer.parseInt(value)));
+                createSearch();
+            } else if ("Threads".equalsIgnoreCase(name)) {
+                threads = Math.max(1, Math.min(LazySmpSearch.MAX_THREADS, Integer.parseInt(value)));
+                createSearch();
+            } else if ("Clear Hash".equalsIgnoreCase(name)) {
+                table.clear();
+            } else if ("EvalNoise".equalsIgnoreCase(name)) {
+                noiseCap = Math.max(0, Math.min(MAX_NOISE_CAP, Integer.parseInt(value)));
+                search.setRootNoise(noiseCap, noiseSeed);
+            } else if ("NoiseSeed".equalsIgnoreCase(name)) {
+                noiseSeed = Long.parseLong(value);
+                search.setRootNoise(noiseCap, noiseSeed);
+            } else {
+                send("info string Tuỳ chọn không hỗ trợ: " + name);
+            }
+        } catch (NumberFormatException e) {
+            send("info string Giá trị không hợp lệ: " + value);
+        }
+    }
+
+    private void position(String[] tokens) {
+        Board board;
+        int i;
+        if (tokens.length > 1 && "startpos".equals(tokens[1])) {
+            board = new Board();
+            i = 2;
+        } else if (tokens.length > 1 && "fen".equals(tokens[1])) {
+            StringBuilder fen = new StringBuilder();
+            for (i = 2; i < tokens.length && !"moves".equals(tokens[i]); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            try {
+                board = Board.fromFen(fen.toString());
+            } catch (RuntimeException e) {
+                rejectPosition("FEN không hợp lệ: " + fen.toString().trim());
+                return;
+            }
+        } else {
+            rejectPosition("Thiếu startpos hoặc fen");
+            return;
+        }
+
+        if (i < tokens.length && "moves".equals(tokens[i])) {
+            for (i++; i < tokens.length; i++) {
+                int move = findMove(board, tokens[i]);
+                if (move == PackedMove.NONE) {
+                    rejectPosition("Nước đi không hợp lệ: " + tokens[i]);
+                    return;
+                }
+                board.movePiece(move);
+            }
+        }
+        position = board;
+    }
+
+    /**
+     * Bỏ cả lệnh position sai: không giữ thế cờ cũ để go sau đó không tìm nhầm thế cờ.
+     */
+    private void rejectPosition(String message) {
+        position = null;
+        send("info string " + message);
+    }
+
+    private void go(String[] tokens) {
+        int depth = MAX_DEPTH;
+        long moveTime = 0;
+        long nodes = 0;
+        boolean infinite = false;
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        int movesToGo = DEFAULT_MOVES_TO_GO;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+                switch (tokens[i]) {
+                    case "depth":
+                        depth = Math.max(1, Math.min(MAX_DEPTH, Integer.parseInt(value)));
+                        i++;
+                        break;
+                    case "movetime":
+                        moveTime = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "wtime":
+                        whiteTime = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "btime":
+                        blackTime = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "winc":
+                        whiteIncrement = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "binc":
+                        blackIncrement = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "movestogo":
+                        movesToGo = Math.max(1, Integer.parseInt(value));
+                        i++;
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string Tham số go không hợp lệ");
+            send("bestmove 0000");
+            return;
+        }
+        if (position == null) {
+            send("info string Chưa có thế cờ hợp lệ");
+            send("bestmove 0000");
+            return;
+        }
+
+        Board board = position.copy();
+        boolean white = board.getSideToMove() == Piece.Color.WHITE;
+        long clock = white ? whiteTime : blackTime;
+        long timeMillis = INFINITE_MILLIS;
+        if (moveTime > 0) {
+            timeMillis = moveTime;
+        } else if (clock >= 0 && !infinite) {
+            timeMillis = allocateTime(clock, white ? whiteIncrement : blackIncrement, movesToGo);
+        }
+
+        AtomicBoolean searchStop = new AtomicBoolean();
+        CountDownLatch stopLatch = new CountDownLatch(1);
+        stop = searchStop;
+        stopCommand = stopLatch;
+        searchRoot = board;
+        searchStartNanos = System.nanoTime();
+        boolean waitForStop = infinite;
+        int maxDepth = depth;
+        long maxNodes = nodes;
+        long time = timeMillis;
+        running = searchThread.submit(() -> {
+            SearchEngine.SearchResult result = search.search(board, board.getSideToMove(), time, maxDepth,
+                    maxNodes, searchStop);
+            if (waitForStop) {
+                // "go infinite": không được trả bestmove trước khi nhận "stop"
+                awaitQuietly(stopLatch);
+            }
+            int best = result.getBestMove() == null ? PackedMove.NONE : PackedMove.fromMove(result.getBestMove());
+            send("bestmove " + (best == PackedMove.NONE ? "0000" : PackedMove.toUci(best)));
+        });
+    }
+
+    /**
+     * Thời gian cho một nước theo đồng hồ còn lại: chia đều cho số nước còn phải đi,
+     * cộng phần lớn thời gian cộng thêm, luôn chừa lại một khoảng an toàn.
+     */
+    static long allocateTime(long clock, long increment, int movesToGo) {
+        long available = Math.max(1, clock - MOVE_OVERHEAD_MILLIS);
+        long share = clock / movesToGo + increment * 3 / 4;
+        return Math.max(1, Math.min(available, share));
+    }
+
+    /**
+     * Dừng lần tìm đang chạy (nếu có) và chờ nó in xong bestmove.
+     */
+    private void stopSearch() {
+        if (running == null) {
+            return;
+        }
+        stop.set(true);
+        stopCommand.countDown();
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        running = null;
+    }
+
+    // ===================== OUTPUT =====================
+
+    private void createSearch() {
+        if (search != null) {
+            search.shutdown();
+        }
+        // Tiến trình UCI riêng: số luồng do công cụ bên ngoài đặt, không qua CpuGovernor
+        table = new TranspositionTable(hashMb);
+        search = new LazySmpSearch(table, threads, null);
+        search.setIterationListener(this::reportIteration);
+        search.setRootNoise(noiseCap, noiseSeed);
+    }
+
+    private void reportIteration(int depth, int score, long nodes, int bestMove) {
+        long elapsed = Math.max(1, (System.nanoTime() - searchStartNanos) / 1_000_000L);
+        send("info depth " + depth + " score " + formatScore(score) + " nodes " + nodes
+                + " nps " + nodes * 1000 / elapsed + " time " + elapsed
+                + " hashfull " + table.getUsagePermille() + " pv " + principalVariation(searchRoot, bestMove));
+    }
+
+    /**
+     * Điểm theo cú pháp UCI: "cp N", hoặc "mate N" (số nước, âm nếu bên đi bị chiếu hết).
+     */
+    static String formatScore(int score) {
+        int mateBound = SearchEngine.MATE_SCORE - MAX_DEPTH;
+        if (score >= mateBound) {
+            return "mate " + (SearchEngine.MATE_SCORE - score + 1) / 2;
+        }
+        if (score <= -mateBound) {
+            return "mate -" + (SearchEngine.MATE_SCORE + score) / 2;
+        }
+        return "cp " + score;
+    }
+
+    /**
+     * Biến chính: nước tốt nhất rồi lần theo nước trong bảng băm, dừng khi gặp lại thế cờ cũ.
+     */
+    private String principalVariation(Board root, int firstMove) {
+        Board board = root.copy();
+        StringBuilder pv = new StringBuilder(PackedMove.toUci(firstMove));
+        board.movePiece(firstMove);
+        Set<Long> seen = new HashSet<>();
+        seen.add(board.getZobristKey());
+        for (int length = 1; length < MAX_PV_LENGTH; length++) {
+            long entry = table.probe(board.getZobristKey());
+            if (entry == 0 || TranspositionTable.move(entry) == TranspositionTable.NO_MOVE) {
+                break;
+            }
+            int move = legalMove(board, TranspositionTable.move(entry));
+            if (move == PackedMove.NONE) {
+                break;
+            }
+            board.movePiece(move);
+            if (!seen.add(board.getZobristKey())) {
+                break;
+            }
+            pv.append(' ').append(PackedMove.toUci(move));
+        }
+        return pv.toString();
+    }
+
+    private static int legalMove(Board board, int hashMove) {
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if ((moves.get(i) & PackedMove.KEY_MASK) == hashMove) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Nước hợp lệ có ký hiệu UCI {@code uci}, hoặc PackedMove.NONE.
+     */
+    static int findMove(Board board, String uci) {
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toUci(moves.get(i)).equals(uci)) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+}
@@ -11,6 +11,7 @@ module com.chessclient.chess_client {
     requires eu.hansolo.tilesfx;
     requires com.almasb.fxgl.all;
     requires java.net.http;
+    requires java.management;
     requires org.json;
 
     opens com.chess_client to javafx.fxml;
@@ -0,0 +1,162 @@
+package com.chess_client.services;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Ponder hit dùng lại kết quả tìm nền (cùng nước như tìm lại), đoán sai thì lần tìm
+ * nền bị dừng và máy tìm lại từ đầu; nước đi không phụ thuộc các lần tìm trước;
+ * sau shutdown máy không đi nữa.
+ */
+class AIPlayerPonderTest {
+
+    @Test
+    void usesPonderResultOnHit() {
+        Board board = Board.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 2, 3L);
+        AIPlayer fresh = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 2, 3L);
+        try {
+            play(board, "f1c4");
+            board.movePiece(ai.makeMove());
+            int reply = ai.expectedReply();
+            ai.startPondering();
+
+            assertNotEquals(PackedMove.NONE, reply);
+            board.movePiece(reply);
+            ai.opponentMoved();
+            Move move = ai.makeMove();
+            assertNotNull(move);
+            assertEquals(1, ai.getPonderHits());
+            assertEquals(0, ai.getPonderMisses());
+            // Ponder hit cho đúng nước của lần tìm lại từ đầu
+            assertEquals(PackedMove.toUci(PackedMove.fromMove(fresh.makeMove(board.copy()))),
+                    PackedMove.toUci(PackedMove.fromMove(move)));
+        } finally {
+            ai.shutdown();
+            fresh.shutdown();
+        }
+    }
+
+    @Test
+    void pondersWithGameNodeBudget() {
+        Board board = Board.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 3, 5L);
+        AIPlayer fresh = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 3, 5L);
+        long gameNodes = 3_000;
+        try {
+            play(board, "f1c4");
+            board.movePiece(ai.makeMove(board.copy(), new AtomicBoolean(), 0, gameNodes));
+            int reply = ai.expectedReply();
+            ai.startPondering();
+
+            assertNotEquals(PackedMove.NONE, reply);
+            board.movePiece(reply);
+            ai.opponentMoved();
+            Move move = ai.makeMove(board.copy(), new AtomicBoolean(), 0, gameNodes);
+            assertEquals(1, ai.getPonderHits());
+            // Ponder cũng dừng ở giới hạn của ván, không phải ở giới hạn của mức khó
+            assertEquals(PackedMove.toUci(PackedMove.fromMove(
+                            fresh.makeMove(board.copy(), new AtomicBoolean(), 0, gameNodes))),
+                    PackedMove.toUci(PackedMove.fromMove(move)));
+        } finally {
+            ai.shutdown();
+            fresh.shutdown();
+        }
+    }
+
+    @Test
+    void usesPonderResultWhenTimeRunsOut() {
+        Board board = Board.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 3, 3L);
+        long timeMillis = 50;
+        try {
+            play(board, "f1c4");
+            board.movePiece(ai.makeMove(board.copy(), new AtomicBoolean(), timeMillis, 0));
+            int reply = ai.expectedReply();
+            ai.startPondering();
+
+            assertNotEquals(PackedMove.NONE, reply);
+            board.movePiece(reply);
+            ai.opponentMoved();
+            // Ponder chưa tìm hết số nút của mức khó khi hết giờ: vẫn dùng, không tìm lại thêm một lượt
+            assertNotNull(ai.makeMove(board.copy(), new AtomicBoolean(), timeMillis, 0));
+            assertEquals(1, ai.getPonderHits());
+        } finally {
+            ai.shutdown();
+        }
+    }
+
+    @Test
+    void stopsPonderingOnMissAndShutdown() {
+        Board board = Board.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 2);
+        play(board, "f1b5");
+        board.movePiece(ai.makeMove());
+        int reply = ai.expectedReply();
+        ai.startPondering();
+
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        int other = moves.get(0) == reply ? moves.get(1) : moves.get(0);
+        board.movePiece(other);
+        ai.opponentMoved();
+        assertEquals(reply == PackedMove.NONE ? 0 : 1, ai.getPonderMisses());
+
+        Move move = ai.makeMove();
+        assertNotNull(move);
+        assertEquals(0, ai.getPonderHits());
+
+        board.movePiece(move);
+        ai.startPondering();
+        ai.shutdown();
+        assertNull(ai.makeMove());
+    }
+
+    @Test
+    void levelMoveDoesNotDependOnEarlierSearches() {
+        Board board = Board.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 2, 7L);
+        AIPlayer fresh = new AIPlayer(board, new GameLogic(board), Piece.Color.BLACK, 2, 7L);
+        try {
+            // Máy đã tìm một thế khác và ponder một nước đoán sai: bảng băm và history đã "nóng"
+            play(board, "f1b5");
+            board.movePiece(ai.makeMove());
+            int reply = ai.expectedReply();
+            ai.startPondering();
+            MoveList moves = new MoveList();
+            new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+            board.movePiece(moves.get(0) == reply ? moves.get(1) : moves.get(0));
+            ai.opponentMoved();
+
+            Board position = board.copy();
+            assertEquals(PackedMove.toUci(PackedMove.fromMove(fresh.makeMove(position))),
+                    PackedMove.toUci(PackedMove.fromMove(ai.makeMove(position))));
+        } finally {
+            ai.shutdown();
+            fresh.shutdown();
+        }
+    }
+
+    private static void play(Board board, String uci) {
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toUci(moves.get(i)).equals(uci)) {
+                board.movePiece(moves.get(i));
+                return;
+            }
+        }
+        throw new AssertionError("Không có nước " + uci);
+    }
+}
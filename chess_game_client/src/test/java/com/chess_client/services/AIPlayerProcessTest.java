@@ -0,0 +1,121 @@
+package com.chess_client.services;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.engine.EngineProcess;
+import com.chess_client.services.engine.FrameTimeStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Máy tìm ở JVM con qua pipe, và tự chuyển về tìm trong tiến trình khi JVM con chết.
+ */
+class AIPlayerProcessTest {
+
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1";
+
+    @BeforeEach
+    void enableOutOfProcess() {
+        System.setProperty("chess.engine.outOfProcess", "true");
+    }
+
+    @AfterEach
+    void disableOutOfProcess() {
+        System.clearProperty("chess.engine.outOfProcess");
+    }
+
+    @Test
+    void fallsBackToInProcessWhenChildDies() throws InterruptedException {
+        Board board = Board.fromFen(MATE_IN_ONE);
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.WHITE, 3, 1L);
+        try {
+            assertEquals("a1a8", uci(ai.makeMove(board.copy())));
+            assertTrue(ai.isOutOfProcess());
+            EngineProcess child = ai.getEngineProcess();
+            assertNotNull(child);
+            assertTrue(child.isAlive());
+
+            ProcessHandle handle = ProcessHandle.of(child.pid()).orElseThrow();
+            handle.destroyForcibly();
+            handle.onExit().orTimeout(10, TimeUnit.SECONDS).join();
+
+            // JVM con đã chết: nước tiếp theo vẫn có, tìm trong tiến trình
+            assertEquals("a1a8", uci(ai.makeMove(board.copy())));
+            assertFalse(ai.isOutOfProcess());
+            assertNull(ai.getEngineProcess());
+        } finally {
+            ai.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownStopsChild() {
+        Board board = new Board();
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.WHITE, 1, 1L);
+        assertNotNull(ai.makeMove(board.copy()));
+        EngineProcess child = ai.getEngineProcess();
+        assertNotNull(child);
+        ProcessHandle handle = ProcessHandle.of(child.pid()).orElseThrow();
+
+        ai.shutdown();
+        handle.onExit().orTimeout(10, TimeUnit.SECONDS).join();
+        assertFalse(child.isAlive());
+        assertNull(ai.makeMove(board.copy()));
+    }
+
+    @Test
+    void shutdownDoesNotWaitForHungChild() throws Exception {
+        assumeFalse(System.getProperty("os.name").startsWith("Windows"), "cần kill -STOP");
+        Board board = Board.fromFen(MATE_IN_ONE);
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.WHITE, 3, 1L);
+        assertEquals("a1a8", uci(ai.makeMove(board.copy())));
+        EngineProcess child = ai.getEngineProcess();
+        assertNotNull(child);
+        ProcessHandle handle = ProcessHandle.of(child.pid()).orElseThrow();
+
+        // Treo JVM con: lần tìm sau chờ bestmove không bao giờ tới
+        Process pause = new ProcessBuilder("kill", "-STOP", Long.toString(child.pid())).start();
+        assertEquals(0, pause.waitFor());
+        CompletableFuture<Move> move = CompletableFuture.supplyAsync(() -> ai.makeMove(board.copy()));
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        ai.shutdown();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 1_000, "shutdown() chờ " + millis + " ms");
+        assertNull(move.get(10, TimeUnit.SECONDS));
+        handle.onExit().orTimeout(10, TimeUnit.SECONDS).join();
+    }
+
+    @Test
+    void frameStatsCountJank() {
+        FrameTimeStats stats = new FrameTimeStats();
+        for (int i = 0; i < 99; i++) {
+            stats.record(16_000_000L);
+        }
+        stats.record(100_000_000L);
+        assertEquals(100, stats.getFrames());
+        assertEquals(1, stats.getJankFrames());
+        assertEquals(16.0, stats.getPercentileMillis(50), 1e-9);
+        assertEquals(100.0, stats.getMaxMillis(), 1e-9);
+        assertEquals(16.84, stats.getAverageMillis(), 1e-9);
+    }
+
+    private static String uci(Move move) {
+        assertNotNull(move);
+        return PackedMove.toUci(PackedMove.fromMove(move));
+    }
+}
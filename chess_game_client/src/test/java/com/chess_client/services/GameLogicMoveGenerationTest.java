@@ -0,0 +1,356 @@
+package com.chess_client.services;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh bộ sinh nước theo từng loại quân với cách cũ:
+ * thử mọi cặp (ô đi, ô đến), lọc bằng isValidMove, rồi đi thử trên
+ * bản sao bàn cờ để bỏ các nước khiến vua mình bị chiếu.
+ */
+class GameLogicMoveGenerationTest {
+
+    private static final Piece.Type[] PROMOTION_TYPES = {
+        Piece.Type.QUEEN, Piece.Type.ROOK, Piece.Type.BISHOP, Piece.Type.KNIGHT
+    };
+
+    @Test
+    void generatorMatchesFilteredBruteForceOnRandomGames() {
+        Random random = new Random(20240601L);
+        int positions = 0;
+
+        for (int game = 0; game < 300; game++) {
+            Board board = new Board();
+            GameLogic logic = new GameLogic(board);
+            Piece.Color side = Piece.Color.WHITE;
+
+            for (int ply = 0; ply < 200; ply++) {
+                if (!logic.hasKing(Piece.Color.WHITE) || !logic.hasKing(Piece.Color.BLACK)) {
+                    break;
+                }
+                List<Move> generated = logic.getAllValidMoves(side);
+                assertEquals(bruteForce(board, side), keys(generated),
+                        "Lệch nước đi ở ván " + game + ", nước " + ply);
+                positions++;
+
+                if (generated.isEmpty()) {
+                    break;
+                }
+                board.movePiece(generated.get(random.nextInt(generated.size())));
+                side = opposite(side);
+            }
+        }
+
+        assertTrue(positions > 10_000);
+    }
+
+    @Test
+    void generatesEnPassantAfterDoublePush() {
+        Board board = emptyBoard();
+        board.setPiece(7, 4, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        board.setPiece(0, 4, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+        board.setPiece(3, 4, Piece.of(Piece.Type.PAWN, Piece.Color.WHITE));
+        board.setPiece(1, 3, Piece.of(Piece.Type.PAWN, Piece.Color.BLACK));
+        board.movePiece(new Move(1, 3, 3, 3, board.getPiece(1, 3)));
+
+        List<Move> moves = new GameLogic(board).getAllValidMoves(Piece.Color.WHITE);
+
+        assertEquals(bruteForce(board, Piece.Color.WHITE), keys(moves));
+        assertTrue(moves.stream().anyMatch(m -> m.isEnPassant() && m.getToRow() == 2 && m.getToCol() == 3));
+    }
+
+    @Test
+    void generatesPromotionsAndCastling() {
+        Board board = emptyBoard();
+        board.setPiece(7, 4, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        board.setPiece(7, 0, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
+        board.setPiece(7, 7, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
+        board.setPiece(1, 1, Piece.of(Piece.Type.PAWN, Piece.Color.WHITE));
+        board.setPiece(0, 2, Piece.of(Piece.Type.KNIGHT, Piece.Color.BLACK));
+        board.setPiece(0, 7, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+
+        List<Move> moves = new GameLogic(board).getAllValidMoves(Piece.Color.WHITE);
+
+        assertEquals(bruteForce(board, Piece.Color.WHITE), keys(moves));
+        assertEquals(8, moves.stream().filter(Move::isPromotion).count());
+        assertEquals(2, moves.stream().filter(Move::isCastling).count());
+    }
+
+    @Test
+    void pinnedPieceMayOnlyMoveAlongPin() {
+        Board board = emptyBoard();
+        board.setPiece(7, 4, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        board.setPiece(5, 4, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
+        board.setPiece(6, 3, Piece.of(Piece.Type.KNIGHT, Piece.Color.WHITE));
+        board.setPiece(1, 4, Piece.of(Piece.Type.ROOK, Piece.Color.BLACK));
+        board.setPiece(3, 0, Piece.of(Piece.Type.BISHOP, Piece.Color.BLACK));
+        board.setPiece(0, 0, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+
+        List<Move> moves = new GameLogic(board).getAllValidMoves(Piece.Color.WHITE);
+
+        assertEquals(bruteForce(board, Piece.Color.WHITE), keys(moves));
+        assertTrue(moves.stream().filter(m -> m.getFromRow() == 5).allMatch(m -> m.getToCol() == 4));
+        assertTrue(moves.stream().noneMatch(m -> m.getFromRow() == 6 && m.getFromCol() == 3));
+    }
+
+    @Test
+    void checkEvasionsAndKingCannotStepAlongCheckRay() {
+        Board board = emptyBoard();
+        board.setPiece(7, 4, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        board.setPiece(7, 0, Piece.of(Piece.Type.ROOK, Piece.Color.WHITE));
+        board.setPiece(6, 6, Piece.of(Piece.Type.KNIGHT, Piece.Color.WHITE));
+        board.setPiece(2, 4, Piece.of(Piece.Type.ROOK, Piece.Color.BLACK));
+        board.setPiece(0, 0, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+
+        List<Move> moves = new GameLogic(board).getAllValidMoves(Piece.Color.WHITE);
+
+        assertEquals(bruteForce(board, Piece.Color.WHITE), keys(moves));
+        assertTrue(moves.stream().noneMatch(m -> m.getToRow() == 6 && m.getToCol() == 4 && m.getFromRow() == 7));
+        assertTrue(moves.stream().noneMatch(Move::isCastling));
+    }
+
+    @Test
+    void enPassantThatExposesKingOnRankIsRejected() {
+        Board board = emptyBoard();
+        board.setPiece(3, 0, Piece.of(Piece.Type.KING, Piece.Color.WHITE));
+        board.setPiece(3, 4, Piece.of(Piece.Type.PAWN, Piece.Color.WHITE));
+        board.setPiece(3, 7, Piece.of(Piece.Type.ROOK, Piece.Color.BLACK));
+        board.setPiece(1, 3, Piece.of(Piece.Type.PAWN, Piece.Color.BLACK));
+        board.setPiece(0, 7, Piece.of(Piece.Type.KING, Piece.Color.BLACK));
+        board.movePiece(new Move(1, 3, 3, 3, board.getPiece(1, 3)));
+
+        List<Move> moves = new GameLogic(board).getAllValidMoves(Piece.Color.WHITE);
+
+        assertEquals(bruteForce(board, Piece.Color.WHITE), keys(moves));
+        assertTrue(moves.stream().noneMatch(Move::isEnPassant));
+    }
+
+    @Test
+    void isSquareAttackedMatchesRayWalkOnRandomGames() {
+        Random random = new Random(20240615L);
+        for (int game = 0; game < 60; game++) {
+            Board board = new Board();
+            GameLogic logic = new GameLogic(board);
+            for (int ply = 0; ply < 150; ply++) {
+                for (int square = 0; square < 64; square++) {
+                    for (Piece.Color color : Piece.Color.values()) {
+                        assertEquals(attackedByRayWalk(board, square, color), board.isSquareAttacked(square, color),
+                                "Lệch tấn công ô " + square + " bởi " + color + " ở ván " + game + ", nước " + ply);
+                    }
+                }
+                List<Move> moves = logic.getAllValidMoves(board.getSideToMove());
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.movePiece(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void generateCapturesMatchesTacticalSubsetOnRandomGames() {
+        Random random = new Random(20240701L);
+        MoveList all = new MoveList();
+        MoveList captures = new MoveList();
+        for (int game = 0; game < 100; game++) {
+            Board board = new Board();
+            GameLogic logic = new GameLogic(board);
+            for (int ply = 0; ply < 150; ply++) {
+                all.clear();
+                captures.clear();
+                logic.generateMoves(board.getSideToMove(), all);
+                logic.generateCaptures(board.getSideToMove(), captures);
+
+                Set<Integer> expected = new TreeSet<>();
+                for (int i = 0; i < all.size(); i++) {
+                    if (PackedMove.isCapture(all.get(i)) || PackedMove.isPromotion(all.get(i))) {
+                        expected.add(all.get(i));
+                    }
+                }
+                Set<Integer> actual = new TreeSet<>();
+                for (int i = 0; i < captures.size(); i++) {
+                    actual.add(captures.get(i));
+                }
+                assertEquals(expected, actual, board.toFen());
+
+                if (all.isEmpty()) {
+                    break;
+                }
+                board.movePiece(all.get(random.nextInt(all.size())));
+            }
+        }
+    }
+
+    @Test
+    void staticExchangeResolvesCaptureSequences() {
+        // Xe ăn tốt không được bảo vệ
+        assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+        // Mã ăn tốt, chuỗi ăn lại có xe/hậu "lộ ra" phía sau: mất mã lấy tốt
+        assertEquals(100 - 320, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+        // Tốt ăn mã được bảo vệ vẫn lời
+        assertEquals(320 - 100, see("4k3/8/3p4/4n3/3P4/8/8/4K3 w - - 0 1", "d4e5"));
+        // Hậu ăn tốt được tốt bảo vệ: lỗ hậu
+        assertEquals(100 - 900, see("4k3/8/3p4/4p3/8/8/4Q3/4K3 w - - 0 1", "e2e5"));
+        // Vua không ăn lại được vì xe d8 "lộ ra" sau xe vừa ăn
+        assertEquals(500, see("3rk3/8/8/3r4/8/8/3R4/4K3 b - - 0 1", "d5d2"));
+        // Nước không ăn quân đi vào ô bị tốt khống chế
+        assertEquals(-320, see("4k3/8/8/8/4p3/8/3N4/4K3 w - - 0 1", "d2f3"));
+    }
+
+    private static int see(String fen, String uci) {
+        Board board = Board.fromFen(fen);
+        GameLogic logic = new GameLogic(board);
+        MoveList moves = new MoveList();
+        logic.generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toUci(moves.get(i)).equals(uci)) {
+                return logic.staticExchange(moves.get(i));
+            }
+        }
+        throw new AssertionError("Không có nước " + uci + " trong " + fen);
+    }
+
+    // ===================== HELPERS =====================
+
+    private static final int[][] KNIGHT_JUMPS = {
+        { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 }
+    };
+    private static final int[][] DIRECTIONS = {
+        { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 }
+    };
+
+    /**
+     * Cách tra tấn công thô: đi từng ô theo bước mã, hướng vua, đường chéo tốt
+     * và các tia trượt cho tới quân chặn đầu tiên (không dùng bitboard).
+     */
+    private static boolean attackedByRayWalk(Board board, int square, Piece.Color byColor) {
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] jump : KNIGHT_JUMPS) {
+            if (is(board.getPiece(row + jump[0], col + jump[1]), Piece.Type.KNIGHT, byColor)) {
+                return true;
+            }
+        }
+        // Tốt trắng tấn công lên trên (hàng nhỏ hơn) nên đứng ở hàng lớn hơn ô bị tấn công
+        int pawnRow = byColor == Piece.Color.WHITE ? row + 1 : row - 1;
+        if (is(board.getPiece(pawnRow, col - 1), Piece.Type.PAWN, byColor)
+                || is(board.getPiece(pawnRow, col + 1), Piece.Type.PAWN, byColor)) {
+            return true;
+        }
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            Piece.Type slider = d < 4 ? Piece.Type.ROOK : Piece.Type.BISHOP;
+            for (int step = 1; step < 8; step++) {
+                int r = row + DIRECTIONS[d][0] * step;
+                int c = col + DIRECTIONS[d][1] * step;
+                if (!board.isValidPosition(r, c)) {
+                    break;
+                }
+                Piece piece = board.getPiece(r, c);
+                if (piece == null) {
+                    continue;
+                }
+                if (piece.getColor() == byColor && (piece.getType() == slider || piece.getType() == Piece.Type.QUEEN
+                        || (step == 1 && piece.getType() == Piece.Type.KING))) {
+                    return true;
+                }
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean is(Piece piece, Piece.Type type, Piece.Color color) {
+        return piece != null && piece.getType() == type && piece.getColor() == color;
+    }
+
+    /**
+     * Đường sinh nước cũ: 64 x 64 ứng viên cho mỗi quân, lọc bằng isValidMove,
+     * sau đó bỏ các nước để vua mình bị chiếu bằng cách đi thử trên bản sao.
+     */
+    private static Set<String> bruteForce(Board board, Piece.Color side) {
+        GameLogic logic = new GameLogic(board);
+        List<Move> moves = new ArrayList<>();
+        for (int fromRow = 0; fromRow < 8; fromRow++) {
+            for (int fromCol = 0; fromCol < 8; fromCol++) {
+                Piece piece = board.getPiece(fromRow, fromCol);
+                if (piece == null || piece.getColor() != side) {
+                    continue;
+                }
+                for (int toRow = 0; toRow < 8; toRow++) {
+                    for (int toCol = 0; toCol < 8; toCol++) {
+                        Move move = new Move(fromRow, fromCol, toRow, toCol, piece);
+                        if (!logic.isValidMove(move, side)) {
+                            continue;
+                        }
+                        // isValidMove chỉ đánh dấu phong cấp, thử đủ 4 quân được phong
+                        for (Piece.Type type : move.isPromotion() ? PROMOTION_TYPES : new Piece.Type[] { null }) {
+                            if (type != null) {
+                                move = copyOf(move, piece);
+                                move.setPromotionType(type);
+                            }
+                            if (!leavesKingInCheck(board, move, side)) {
+                                moves.add(move);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return keys(moves);
+    }
+
+    private static boolean leavesKingInCheck(Board board, Move move, Piece.Color side) {
+        Board copy = board.copy();
+        copy.movePiece(copyOf(move, copy.getPiece(move.getFromRow(), move.getFromCol())));
+        int king = Long.numberOfTrailingZeros(copy.getPieces(Piece.Type.KING, side));
+        return king < 64 && attackedByRayWalk(copy, king, opposite(side));
+    }
+
+    private static Move copyOf(Move move, Piece piece) {
+        Move copy = new Move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol(), piece);
+        copy.setCastling(move.isCastling());
+        copy.setEnPassant(move.isEnPassant());
+        copy.setPromotion(move.isPromotion());
+        copy.setPromotionType(move.getPromotionType());
+        return copy;
+    }
+
+    private static Set<String> keys(List<Move> moves) {
+        Set<String> keys = new TreeSet<>();
+        for (Move m : moves) {
+            keys.add("" + m.getFromRow() + m.getFromCol() + m.getToRow() + m.getToCol()
+                    + (m.isPromotion() ? "=" + m.getPromotionType() : "")
+                    + (m.isCastling() ? " O-O" : "")
+                    + (m.isEnPassant() ? " ep" : ""));
+        }
+        assertEquals(moves.size(), keys.size(), "Sinh trùng nước đi");
+        return keys;
+    }
+
+    private static Board emptyBoard() {
+        Board board = new Board();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                board.setPiece(row, col, null);
+            }
+        }
+        return board;
+    }
+
+    private static Piece.Color opposite(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+}
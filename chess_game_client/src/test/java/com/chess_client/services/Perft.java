@@ -0,0 +1,255 @@
+package com.chess_client.services;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: đếm số nút lá của cây nước đi hợp lệ tới một độ sâu cố định.
+ * So với số liệu chuẩn thì biết ngay bộ sinh nước (GameLogic + Board) có
+ * sai luật ở đâu không; thời gian chạy cho ra con số nodes/sec của bộ sinh nước.
+ *
+ * Chạy song song trên ForkJoinPool chung (mỗi nước ở các tầng trên là một task),
+ * có thể kèm bảng băm lưu số nút theo (khoá Zobrist, độ sâu). Các tầng dưới
+ * sinh nước dạng int vào MoveList riêng của từng luồng và đi/lùi nước trên
+ * cùng một bàn cờ (movePiece/undoMove), không cấp phát theo nước.
+ *
+ * Chạy từ dòng lệnh sau {@code mvn test-compile}:
+ * <pre>
+ *   java -cp target/classes:target/test-classes com.chess_client.services.Perft "&lt;fen&gt;" &lt;depth&gt; [divide] [hash=MB]
+ * </pre>
+ */
+public class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Tách task con khi còn ít nhất từng này tầng, dưới đó đếm tuần tự
+    private static final int SPLIT_DEPTH = 3;
+
+    private static final int MAX_PLY = 64;
+
+    private final Cache cache;  // null = không dùng bảng băm
+
+    // Mỗi luồng một chồng MoveList theo độ sâu còn lại
+    private final ThreadLocal<MoveList[]> moveStacks = ThreadLocal.withInitial(() -> {
+        MoveList[] stack = new MoveList[MAX_PLY + 1];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = new MoveList();
+        }
+        return stack;
+    });
+
+    public Perft() {
+        this(0);
+    }
+
+    /**
+     * @param cacheMb Kích thước bảng băm (MB), 0 để tắt
+     */
+    public Perft(int cacheMb) {
+        this.cache = cacheMb > 0 ? new Cache(cacheMb) : null;
+    }
+
+    // ===================== PERFT =====================
+
+    /**
+     * Đếm tuần tự trên luồng gọi.
+     */
+    public long perft(Board board, int depth) {
+        return count(board, depth, moveStacks.get());
+    }
+
+    /**
+     * Đếm song song trên ForkJoinPool chung.
+     */
+    public long parallelPerft(Board board, int depth) {
+        return ForkJoinPool.commonPool().invoke(new PerftTask(board, depth));
+    }
+
+    /**
+     * Số nút lá dưới từng nước ở gốc (dạng UCI, ví dụ "e2e4", "e7e8n").
+     */
+    public Map<String, Long> divide(Board board, int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        MoveList moves = legalMoves(board, new MoveList());
+        List<PerftTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(new PerftTask(play(board, moves.get(i)), depth - 1));
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (int i = 0; i < moves.size(); i++) {
+            result.put(PackedMove.toUci(moves.get(i)), tasks.get(i).join());
+        }
+        return result;
+    }
+
+    private long count(Board board, int depth, MoveList[] stack) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = legalMoves(board, stack[depth]);
+        if (depth == 1) {
+            return moves.size(); // Đếm gộp: bộ sinh nước đã lọc hợp lệ
+        }
+
+        long key = board.getZobristKey();
+        if (cache != null) {
+            long cached = cache.get(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.movePiece(moves.get(i));
+            nodes += count(board, depth - 1, stack);
+            board.undoMove();
+        }
+        if (cache != null) {
+            cache.put(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Task fork/join: tách mỗi nước thành task con khi còn đủ sâu.
+     */
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+
+        PerftTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) {
+                // Task sở hữu bàn cờ của nó nên đi/lùi nước tại chỗ được
+                return count(board, depth, moveStacks.get());
+            }
+            long key = board.getZobristKey();
+            if (cache != null) {
+                long cached = cache.get(key, depth);
+                if (cached >= 0) {
+                    return cached;
+                }
+            }
+            MoveList moves = legalMoves(board, new MoveList());
+            List<PerftTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                children.add(new PerftTask(play(board, moves.get(i)), depth - 1));
+            }
+            invokeAll(children);
+            long nodes = 0;
+            for (PerftTask child : children) {
+                nodes += child.join();
+            }
+            if (cache != null) {
+                cache.put(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    // ===================== HELPERS =====================
+
+    private static MoveList legalMoves(Board board, MoveList moves) {
+        moves.clear();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        return moves;
+    }
+
+    private static Board play(Board board, int move) {
+        Board child = board.copy();
+        child.movePiece(move);
+        return child;
+    }
+
+    /**
+     * Bảng băm số nút: mỗi ô 2 long ({@code khoá ^ số nút}, số nút), ghi không khoá.
+     * Ô bị ghi đè dở dang sẽ không khớp khoá và bị bỏ qua.
+     */
+    private static final class Cache {
+        private static final long[] DEPTH_KEYS = new long[64];
+
+        static {
+            long seed = 0x2545F4914F6CDD1DL;
+            for (int i = 0; i < DEPTH_KEYS.length; i++) {
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+                DEPTH_KEYS[i] = seed;
+            }
+        }
+
+        private final long[] entries;
+        private final int mask;
+
+        Cache(int sizeMb) {
+            int slots = Integer.highestOneBit(sizeMb * 1024 * 1024 / 16);
+            this.entries = new long[slots * 2];
+            this.mask = slots - 1;
+        }
+
+        long get(long key, int depth) {
+            long k = key ^ DEPTH_KEYS[depth];
+            int index = (int) (k & mask) * 2;
+            long nodes = entries[index + 1];
+            return (entries[index] ^ nodes) == k && nodes > 0 ? nodes : -1;
+        }
+
+        void put(long key, int depth, long nodes) {
+            long k = key ^ DEPTH_KEYS[depth];
+            int index = (int) (k & mask) * 2;
+            entries[index] = k ^ nodes;
+            entries[index + 1] = nodes;
+        }
+    }
+
+    // ===================== COMMAND LINE =====================
+
+    public static void main(String[] args) {
+        String fen = args.length > 0 ? args[0] : START_FEN;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean divide = false;
+        int hashMb = 0;
+        for (int i = 2; i < args.length; i++) {
+            if ("divide".equals(args[i])) {
+                divide = true;
+            } else if (args[i].startsWith("hash=")) {
+                hashMb = Integer.parseInt(args[i].substring(5));
+            }
+        }
+
+        Perft perft = new Perft(hashMb);
+        Board board = Board.fromFen(fen);
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            Map<String, Long> counts = perft.divide(board, depth);
+            counts.forEach((move, count) -> System.out.println(move + ": " + count));
+            nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+        } else {
+            nodes = perft.parallelPerft(board, depth);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Nodes: %d%nTime: %.3f s%nNPS: %.0f%n", nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
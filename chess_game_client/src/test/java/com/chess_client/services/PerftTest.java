@@ -0,0 +1,188 @@
+package com.chess_client.services;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cổng kiểm tra luật đi: số nút perft phải khớp số liệu chuẩn cho các thế cờ
+ * quen thuộc (khai cuộc, Kiwipete, các bẫy en passant / phong cấp / nhập thành).
+ * Mọi thay đổi ở GameLogic hoặc Board phải giữ được bộ số này.
+ */
+class PerftTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    /** FEN | độ sâu | số nút chuẩn */
+    private static final Object[][] POSITIONS = {
+        { Perft.START_FEN, 4, 197_281L },
+        { KIWIPETE, 3, 97_862L },
+        { "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674_624L },
+        { "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422_333L },
+        { "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62_379L },
+        // En passant hợp lệ / không hợp lệ
+        { "8/5bk1/8/2Pp4/8/1K6/8/8 w - d6 0 1", 6, 824_064L },
+        { "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1_134_888L },
+        { "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1_015_133L },
+        // Phong cấp (kể cả phong quân khác hậu), thoát chiếu bằng phong cấp
+        { "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217_342L },
+        { "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92_683L },
+        { "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2_217L },
+        { "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567_584L },
+        { "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3_821_001L },
+        // Chiếu mở, nhập thành chiếu, quyền nhập thành
+        { "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1_004_658L },
+        { "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23_527L },
+        { "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661_072L },
+        { "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803_711L },
+        { "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1_274_206L },
+        { "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1_720_476L },
+    };
+
+    @Test
+    void parallelPerftMatchesReferenceCounts() {
+        Perft perft = new Perft();
+        for (Object[] position : POSITIONS) {
+            String fen = (String) position[0];
+            int depth = (Integer) position[1];
+            assertEquals((long) (Long) position[2], perft.parallelPerft(Board.fromFen(fen), depth),
+                    "Sai số nút perft(" + depth + ") cho " + fen);
+        }
+    }
+
+    @Test
+    void sequentialAndCachedPerftAgree() {
+        Board board = Board.fromFen(KIWIPETE);
+        long expected = 97_862L;
+
+        assertEquals(expected, new Perft().perft(board, 3));
+        Perft cached = new Perft(16);
+        assertEquals(expected, cached.parallelPerft(board, 3));
+        // Lần hai đọc từ bảng băm
+        assertEquals(expected, cached.parallelPerft(board, 3));
+        assertEquals(4_865_609L, new Perft(16).parallelPerft(Board.fromFen(Perft.START_FEN), 5));
+    }
+
+    @Test
+    void divideSumsToPerftAndNamesUnderpromotions() {
+        Board board = Board.fromFen("8/P1k5/K7/8/8/8/8/8 w - - 0 1");
+        Map<String, Long> divide = new Perft().divide(board, 3);
+
+        assertEquals(new Perft().perft(board, 3), divide.values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(divide.keySet().containsAll(List.of("a7a8q", "a7a8r", "a7a8b", "a7a8n")));
+    }
+
+    @Test
+    void fenRoundTrip() {
+        for (Object[] position : POSITIONS) {
+            String fen = (String) position[0];
+            assertEquals(fen, Board.fromFen(fen).toFen());
+        }
+    }
+
+    @Test
+    void undoMoveRestoresPositionExactly() {
+        for (Object[] position : POSITIONS) {
+            Board board = Board.fromFen((String) position[0]);
+            GameLogic logic = new GameLogic(board);
+            MoveList moves = new MoveList();
+            MoveList replies = new MoveList();
+            logic.generateMoves(board.getSideToMove(), moves);
+            String before = snapshot(board);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                board.movePiece(move);
+                String afterMove = snapshot(board);
+                replies.clear();
+                logic.generateMoves(board.getSideToMove(), replies);
+                for (int j = 0; j < replies.size(); j++) {
+                    board.movePiece(replies.get(j));
+                    board.undoMove();
+                    assertEquals(afterMove, snapshot(board), "Sai sau khi lùi " + PackedMove.toUci(replies.get(j)));
+                }
+                board.undoMove();
+                assertEquals(before, snapshot(board), "Sai sau khi lùi " + PackedMove.toUci(move));
+            }
+        }
+    }
+
+    @Test
+    void undoStaleMoveThrows() {
+        Board board = new Board();
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        Move first = PackedMove.toMove(moves.get(0), board);
+        Move second = PackedMove.toMove(moves.get(1), board);
+        assertThrows(IllegalStateException.class, () -> board.undoMove(first));
+
+        board.movePiece(first);
+        String afterMove = snapshot(board);
+        assertThrows(IllegalStateException.class, () -> board.undoMove(second));
+        assertEquals(afterMove, snapshot(board));
+        board.undoMove(first);
+        assertEquals(new Board().toFen(), board.toFen());
+    }
+
+    @Test
+    void copyKeepsLongHistory() {
+        // Lịch sử dài hơn sức chứa ban đầu (128 nước): bản sao vẫn lùi được về đầu ván
+        String[] shuffle = { "g1f3", "g8f6", "f3g1", "f6g8" };
+        Board board = new Board();
+        GameLogic logic = new GameLogic(board);
+        MoveList moves = new MoveList();
+        List<String> snapshots = new ArrayList<>();
+        for (int ply = 0; ply < 150; ply++) {
+            snapshots.add(snapshot(board));
+            moves.clear();
+            logic.generateMoves(board.getSideToMove(), moves);
+            String uci = shuffle[ply % shuffle.length];
+            for (int i = 0; i < moves.size(); i++) {
+                if (PackedMove.toUci(moves.get(i)).equals(uci)) {
+                    board.movePiece(moves.get(i));
+                    break;
+                }
+            }
+        }
+        assertEquals(150, board.getHistorySize());
+
+        Board copy = board.copy();
+        String original = snapshot(board);
+        assertEquals(original, snapshot(copy));
+        for (int ply = 149; ply >= 0; ply--) {
+            copy.undoMove();
+            assertEquals(snapshots.get(ply), snapshot(copy), "Sai sau khi lùi về nửa nước " + ply);
+        }
+        assertEquals(original, snapshot(board));
+    }
+
+    /** FEN, khoá Zobrist, nước cuối và các bộ đếm của Board */
+    private static String snapshot(Board board) {
+        StringBuilder result = new StringBuilder(board.toFen())
+                .append(' ').append(board.getZobristKey())
+                .append(' ').append(board.getLastMove() == null ? "-" : PackedMove.toUci(PackedMove.fromMove(board.getLastMove())))
+                .append(' ').append(board.getPhase());
+        for (Piece.Color color : Piece.Color.values()) {
+            // Danh sách quân phải trùng bitboard (thứ tự thì được phép khác)
+            long listed = 0L;
+            for (int i = 0; i < board.getPieceCount(color); i++) {
+                listed |= 1L << board.getPieceSquare(color, i);
+            }
+            assertEquals(board.getPieces(color), listed);
+            assertEquals(Long.bitCount(listed), board.getPieceCount(color));
+            result.append(' ').append(board.getKingSquare(color)).append(' ').append(board.getMaterial(color));
+        }
+        return result.toString();
+    }
+}
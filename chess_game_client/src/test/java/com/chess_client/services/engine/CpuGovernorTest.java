@@ -0,0 +1,79 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Số suất luôn chừa một nhân cho UI; luồng phụ chỉ lấy suất rảnh,
+ * lần tìm nước đang chờ suất thì dừng lần tìm nền để lấy lại suất;
+ * lần tìm bị lỗi vẫn trả đủ suất.
+ */
+class CpuGovernorTest {
+
+    @Test
+    void reservesOneCoreForRendering() {
+        assertEquals(1, CpuGovernor.slotsFor(1, 100));
+        assertEquals(1, CpuGovernor.slotsFor(2, 100));
+        assertEquals(7, CpuGovernor.slotsFor(8, 100));
+        assertEquals(6, CpuGovernor.slotsFor(8, 75));
+        assertEquals(1, CpuGovernor.slotsFor(8, 0));
+    }
+
+    @Test
+    void helpersOnlyTakeFreeSlots() {
+        CpuGovernor governor = new CpuGovernor(3);
+        assertTrue(governor.acquire(new AtomicBoolean()));
+        assertEquals(2, governor.acquireExtra(5));
+        assertEquals(0, governor.getAvailableSlots());
+        governor.release(3);
+        assertEquals(3, governor.getAvailableSlots());
+    }
+
+    @Test
+    void foregroundSearchPreemptsBackground() throws InterruptedException {
+        CpuGovernor governor = new CpuGovernor(1);
+        AtomicBoolean ponderStop = new AtomicBoolean();
+        assertTrue(governor.acquireBackground(ponderStop));
+        assertFalse(governor.acquireBackground(new AtomicBoolean()));
+
+        // Lần tìm nền nhả suất khi thấy cờ dừng
+        Thread ponder = new Thread(() -> {
+            while (!ponderStop.get()) {
+                Thread.onSpinWait();
+            }
+            governor.releaseBackground(ponderStop);
+        });
+        ponder.start();
+        assertTrue(governor.acquire(new AtomicBoolean()));
+        assertTrue(ponderStop.get());
+        assertEquals(1, governor.getPreemptions());
+        governor.release(1);
+        ponder.join();
+
+        // Lần tìm nước bị huỷ trong lúc chờ thì bỏ cuộc
+        assertTrue(governor.acquire(new AtomicBoolean()));
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        assertFalse(governor.acquire(cancelled));
+    }
+
+    @Test
+    void failedSearchReturnsAllSlots() {
+        CpuGovernor governor = new CpuGovernor(4);
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(1), LazySmpSearch.MAX_THREADS, governor);
+        try {
+            // Bàn cờ null làm luồng chính (hoặc việc chép bàn cờ cho luồng phụ) ném lỗi
+            assertThrows(NullPointerException.class, () ->
+                    search.search(null, Piece.Color.WHITE, 1_000, 4, 0, new AtomicBoolean()));
+            assertEquals(4, governor.getAvailableSlots());
+        } finally {
+            search.shutdown();
+        }
+    }
+}
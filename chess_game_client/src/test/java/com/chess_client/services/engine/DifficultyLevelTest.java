@@ -0,0 +1,102 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mỗi mức độ khó dừng theo số nút: cùng seed thì cùng số nút và cùng nước, kể cả
+ * với bộ tìm đã dùng (sau clear); nhiễu ở gốc đổi nước theo seed nhưng không bỏ qua chiếu hết.
+ */
+class DifficultyLevelTest {
+
+    private static final String MIDDLEGAME = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R1BQKB1R w KQ - 0 8";
+
+    @Test
+    void mapsDifficultyToLevels() {
+        assertEquals(DifficultyLevel.EASY, DifficultyLevel.of(0));
+        assertEquals(DifficultyLevel.MEDIUM, DifficultyLevel.of(2));
+        assertEquals(DifficultyLevel.HARD, DifficultyLevel.of(5));
+    }
+
+    @Test
+    void nodeBudgetIsReproducible() {
+        DifficultyLevel level = DifficultyLevel.HARD;
+        SearchEngine.SearchResult first = search(level, 1L);
+        SearchEngine.SearchResult second = search(level, 1L);
+
+        assertEquals(first.getNodes(), second.getNodes());
+        assertEquals(first.getBestMove().toString(), second.getBestMove().toString());
+        // Sai số tối đa một khoảng kiểm tra (1024 nút)
+        assertTrue(first.getNodes() <= level.getNodeBudget() + 1024);
+    }
+
+    @Test
+    void clearedSearchIgnoresEarlierSearches() {
+        DifficultyLevel level = DifficultyLevel.MEDIUM;
+        SearchEngine.SearchResult expected = search(level, 1L);
+
+        // Một bộ tìm dùng suốt như của AIPlayer: đã tìm thế khác, bảng băm và history "nóng"
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(1), 1);
+        search.setRootNoise(level.getNoiseCap(), 1L);
+        try {
+            Board other = Board.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            search.search(other, other.getSideToMove(), DifficultyLevel.SAFETY_TIME_MILLIS,
+                    level.getMaxDepth(), level.getNodeBudget(), new AtomicBoolean());
+
+            search.clear();
+            Board board = Board.fromFen(MIDDLEGAME);
+            SearchEngine.SearchResult result = search.search(board, board.getSideToMove(),
+                    DifficultyLevel.SAFETY_TIME_MILLIS, level.getMaxDepth(), level.getNodeBudget(), new AtomicBoolean());
+            assertEquals(expected.getNodes(), result.getNodes());
+            assertEquals(expected.getBestMove().toString(), result.getBestMove().toString());
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    @Test
+    void noiseVariesMovesBySeed() {
+        Set<String> moves = new HashSet<>();
+        for (long seed = 0; seed < 8; seed++) {
+            Move move = search(DifficultyLevel.EASY, seed).getBestMove();
+            assertEquals(move.toString(), search(DifficultyLevel.EASY, seed).getBestMove().toString());
+            moves.add(move.toString());
+        }
+        assertTrue(moves.size() > 1);
+    }
+
+    @Test
+    void noiseKeepsMates() {
+        Board board = Board.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        for (long seed = 0; seed < 4; seed++) {
+            LazySmpSearch search = new LazySmpSearch(new TranspositionTable(1), 1, null);
+            search.setRootNoise(DifficultyLevel.EASY.getNoiseCap(), seed);
+            Move move = search.search(board, board.getSideToMove(), DifficultyLevel.SAFETY_TIME_MILLIS,
+                    DifficultyLevel.EASY.getMaxDepth(), DifficultyLevel.EASY.getNodeBudget(),
+                    new AtomicBoolean()).getBestMove();
+            search.shutdown();
+            assertEquals("a1a8", PackedMove.toUci(PackedMove.fromMove(move)));
+        }
+    }
+
+    private static SearchEngine.SearchResult search(DifficultyLevel level, long seed) {
+        Board board = Board.fromFen(MIDDLEGAME);
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(1), 1, null);
+        search.setRootNoise(level.getNoiseCap(), seed);
+        try {
+            return search.search(board, board.getSideToMove(), DifficultyLevel.SAFETY_TIME_MILLIS,
+                    level.getMaxDepth(), level.getNodeBudget(), new AtomicBoolean());
+        } finally {
+            search.shutdown();
+        }
+    }
+}
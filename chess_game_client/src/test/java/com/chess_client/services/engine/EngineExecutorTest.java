@@ -0,0 +1,178 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.AIPlayer;
+import com.chess_client.services.GameLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tìm trên luồng nền với bản sao bàn cờ: bàn cờ gốc không bị đụng tới,
+ * lần tìm bị huỷ thì dừng sớm và không bao giờ giao kết quả; các ván được
+ * phục vụ lần lượt theo vòng và nhận giới hạn thời gian/số nút của mình.
+ */
+class EngineExecutorTest {
+
+    @Test
+    void deliversResultFromSnapshotSearch() throws InterruptedException {
+        Board board = new Board();
+        String fen = board.toFen();
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.WHITE, 1);
+        EngineExecutor.Game game = new EngineExecutor(1).openGame("test");
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Move> result = new AtomicReference<>();
+
+        Board snapshot = board.copy();
+        game.submit((stop, millis, nodes) -> ai.makeMove(snapshot, stop), move -> {
+            result.set(move);
+            done.countDown();
+        }, ai::cancel);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNotNull(result.get());
+        assertEquals(fen, board.toFen());
+        ai.shutdown();
+        game.close();
+    }
+
+    @Test
+    void cancelledSearchStopsEarlyWithoutResult() throws InterruptedException {
+        Board board = new Board();
+        AIPlayer ai = new AIPlayer(board, new GameLogic(board), Piece.Color.WHITE, 3);
+        EngineExecutor.Game game = new EngineExecutor(1).openGame("test");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Move> delivered = new AtomicReference<>();
+
+        Board snapshot = board.copy();
+        EngineExecutor.Task running = game.submit((stop, millis, nodes) -> {
+            started.countDown();
+            try {
+                return ai.makeMove(snapshot, stop);
+            } finally {
+                finished.countDown();
+            }
+        }, delivered::set, ai::cancel);
+        // Công việc xếp sau bị huỷ khi còn trong hàng đợi: không bao giờ chạy
+        EngineExecutor.Task queued = game.submit((stop, millis, nodes) -> {
+            throw new AssertionError("Không được chạy");
+        }, delivered::set, null);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        queued.cancel();
+        long start = System.nanoTime();
+        running.cancel();
+        // Mức khó tìm tới 1500 ms; huỷ phải dừng sớm hơn nhiều
+        assertTrue(finished.await(1000, TimeUnit.MILLISECONDS));
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 1000);
+        assertTrue(running.isCancelled());
+
+        Thread.sleep(50);
+        assertNull(delivered.get());
+        ai.shutdown();
+    }
+
+    @Test
+    void schedulesGamesRoundRobin() throws InterruptedException {
+        EngineExecutor executor = new EngineExecutor(1);
+        EngineExecutor.Game busy = executor.openGame("busy");
+        EngineExecutor.Game other = executor.openGame("other");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        // Giữ luồng nền duy nhất để các việc sau phải xếp hàng
+        busy.submit((stop, millis, nodes) -> {
+            started.countDown();
+            return await(release);
+        }, r -> done.countDown(), null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 3; i++) {
+            String name = "busy" + i;
+            busy.submit((stop, millis, nodes) -> order.add(name), r -> done.countDown(), null);
+        }
+        other.submit((stop, millis, nodes) -> order.add("other1"), r -> done.countDown(), null);
+        assertEquals(4, executor.getQueuedTasks());
+        assertEquals(3, busy.getQueuedTasks());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // onResult chạy trước khi việc được tính xong: chờ luồng nền rảnh rồi mới đọc số liệu
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getActiveTasks() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // Ván "other" không phải chờ hết việc của ván "busy"
+        assertEquals(List.of("busy1", "other1", "busy2", "busy3"), order);
+        assertEquals(0, executor.getQueuedTasks());
+        assertEquals(4, executor.getPeakQueuedTasks());
+        assertEquals(4, busy.getCompletedMoves());
+        assertTrue(other.getAverageQueueMillis() > 0);
+        assertTrue(other.getAverageLatencyMillis() >= other.getAverageQueueMillis());
+    }
+
+    @Test
+    void passesGameBudgetsAndStopsOnNodeLimit() throws InterruptedException {
+        EngineExecutor.Game game = new EngineExecutor(1).openGame("budget", 5_000, 20_000);
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(1), 1, null);
+        Board board = new Board();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<SearchEngine.SearchResult> result = new AtomicReference<>();
+
+        game.submit((stop, millis, nodes) -> {
+            assertEquals(5_000, millis);
+            assertEquals(20_000, nodes);
+            return search.search(board, Piece.Color.WHITE, millis, 64, nodes, stop);
+        }, r -> {
+            result.set(r);
+            done.countDown();
+        }, null);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNotNull(result.get().getBestMove());
+        // Sai số tối đa một khoảng kiểm tra (1024 nút)
+        assertTrue(result.get().getNodes() <= 20_000 + 1024);
+        assertTrue(result.get().getTimeMillis() < 5_000);
+        search.shutdown();
+    }
+
+    @Test
+    void closedGameCancelsAllWork() {
+        EngineExecutor executor = new EngineExecutor(1);
+        EngineExecutor.Game game = executor.openGame("closed");
+        CountDownLatch release = new CountDownLatch(1);
+        EngineExecutor.Task running = game.submit((stop, millis, nodes) -> await(release), r -> { }, null);
+        EngineExecutor.Task queued = game.submit((stop, millis, nodes) -> true, r -> { }, null);
+
+        game.close();
+        release.countDown();
+        assertTrue(queued.isCancelled());
+        assertEquals(0, executor.getQueuedTasks());
+        assertTrue(executor.getGames().isEmpty());
+        assertTrue(game.submit((stop, millis, nodes) -> true, r -> { }, null).isCancelled());
+        assertTrue(running.isCancelled());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đánh giá phải đối xứng giữa hai màu, và tổng PST cộng dồn trong Board
+ * phải khớp với tổng tính lại từ đầu sau bất kỳ chuỗi đi/lùi nước nào.
+ */
+class EvaluatorTest {
+
+    @Test
+    void evaluationIsColorSymmetricAndIncrementalScoresMatchFreshBoard() {
+        Evaluator evaluator = new Evaluator();
+        Random random = new Random(20240701L);
+        for (int game = 0; game < 40; game++) {
+            Board board = new Board();
+            for (int ply = 0; ply < 120; ply++) {
+                Board fresh = Board.fromFen(board.toFen());
+                Board mirrored = Board.fromFen(mirror(board.toFen()));
+                for (Piece.Color color : Piece.Color.values()) {
+                    assertEquals(fresh.getMidgameSquareScore(color), board.getMidgameSquareScore(color));
+                    assertEquals(fresh.getEndgameSquareScore(color), board.getEndgameSquareScore(color));
+                    assertEquals(fresh.getMaterial(color), board.getMaterial(color));
+                }
+                assertEquals(evaluator.evaluate(board, Piece.Color.WHITE),
+                        evaluator.evaluate(mirrored, Piece.Color.BLACK), board.toFen());
+
+                List<Move> moves = new GameLogic(board).getAllValidMoves(board.getSideToMove());
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.movePiece(moves.get(random.nextInt(moves.size())));
+                // Thỉnh thoảng lùi lại để kiểm tra cả đường undoMove
+                if (random.nextInt(4) == 0) {
+                    board.undoMove();
+                }
+            }
+        }
+    }
+
+    @Test
+    void prefersDevelopedAndPassedPieces() {
+        Evaluator evaluator = new Evaluator();
+        // Mã ở trung tâm hơn mã ở góc
+        Board centre = Board.fromFen("4k3/8/8/8/4N3/8/8/4K3 w - - 0 1");
+        Board corner = Board.fromFen("4k3/8/8/8/8/8/8/N3K3 w - - 0 1");
+        assertTrue(evaluator.evaluate(centre, Piece.Color.WHITE) > evaluator.evaluate(corner, Piece.Color.WHITE));
+
+        // Tốt thông ở hàng 6 hơn tốt bị chặn
+        Board passed = Board.fromFen("4k3/8/1P6/8/8/8/8/4K3 w - - 0 1");
+        Board blocked = Board.fromFen("4k3/1p6/1P6/8/8/8/8/4K3 w - - 0 1");
+        assertTrue(evaluator.evaluate(passed, Piece.Color.WHITE)
+                > evaluator.evaluate(blocked, Piece.Color.WHITE) + Evaluator.PAWN_VALUE);
+    }
+
+    /** Lật bàn cờ theo chiều dọc và đổi màu mọi quân, lượt đi, quyền nhập thành */
+    private static String mirror(String fen) {
+        String[] parts = fen.split(" ");
+        String[] ranks = parts[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = 7; i >= 0; i--) {
+            placement.append(swapCase(ranks[i]));
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        String side = "w".equals(parts[1]) ? "b" : "w";
+        String castling = "-".equals(parts[2]) ? "-" : sortCastling(swapCase(parts[2]));
+        String enPassant = "-".equals(parts[3]) ? "-" : parts[3].charAt(0) + String.valueOf(9 - (parts[3].charAt(1) - '0'));
+        return placement + " " + side + " " + castling + " " + enPassant + " " + parts[4] + " " + parts[5];
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder result = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            result.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return result.toString();
+    }
+
+    private static String sortCastling(String castling) {
+        StringBuilder result = new StringBuilder();
+        for (char c : "KQkq".toCharArray()) {
+            if (castling.indexOf(c) >= 0) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Thứ tự nước: nước băm, ăn quân theo MVV-LVA, killer rồi mới tới nước yên lặng;
+ * và sắp xếp nước chỉ đổi số nút, không đổi kết quả alpha-beta.
+ */
+class MoveOrderingTest {
+
+    @Test
+    void ordersHashMoveCapturesKillersThenQuietMoves() {
+        // Tốt e4 và hậu d1 cùng ăn được hậu d5
+        Board board = Board.fromFen("4k3/8/8/3q4/4P3/8/8/3QK3 w - - 0 1");
+        MoveList moves = new MoveList();
+        GameLogic logic = new GameLogic(board);
+        logic.generateMoves(Piece.Color.WHITE, moves);
+        int[] scores = new int[MoveList.CAPACITY];
+
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.score(board, logic, Piece.Color.WHITE, moves, scores, 3, PackedMove.NONE);
+        MoveOrdering.sort(moves, scores);
+        assertEquals("e4d5", PackedMove.toUci(moves.get(0)));
+        assertEquals("d1d5", PackedMove.toUci(moves.get(1)));
+
+        // Nước yên lặng gây cắt tỉa trở thành killer của tầng đó, xếp ngay sau các nước ăn quân
+        int killer = moves.indexOf(PackedMove.of(59, 51));  // d1d2
+        ordering.recordCutoff(Piece.Color.WHITE, moves, killer, 4, 3);
+        ordering.score(board, logic, Piece.Color.WHITE, moves, scores, 3, PackedMove.NONE);
+        MoveOrdering.sort(moves, scores);
+        assertEquals("d1d2", PackedMove.toUci(moves.get(2)));
+
+        // Nước băm luôn đứng đầu
+        int hashMove = moves.get(moves.size() - 1);
+        ordering.score(board, logic, Piece.Color.WHITE, moves, scores, 3, hashMove);
+        assertEquals(hashMove, MoveOrdering.pickNext(moves, scores, 0));
+    }
+
+    @Test
+    void orderingDoesNotChangeSearchScore() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "2r3k1/pp3ppp/2n1b3/3pP3/3P4/P1N2N2/1P3PPP/2R3K1 b - - 0 20"
+        };
+        for (String fen : fens) {
+            Board board = Board.fromFen(fen);
+            // Không dùng bảng băm: alpha-beta thuần cho cùng điểm với mọi thứ tự nước
+            // (SEE bật ở cả hai vì nó còn cắt tỉa trong quiescence, không chỉ sắp xếp)
+            int plain = new SearchEngine(null, MoveOrdering.SEE)
+                    .search(board, board.getSideToMove(), 3_600_000L, 3).getScore();
+            int ordered = new SearchEngine(null, MoveOrdering.ALL)
+                    .search(board, board.getSideToMove(), 3_600_000L, 3).getScore();
+            assertEquals(plain, ordered, fen);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.MoveList;
+import com.chess_client.models.PackedMove;
+import com.chess_client.services.GameLogic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sách tạo từ PGN phải tra lại được đúng các nước đã ghi (kể cả nhập thành),
+ * bỏ nước của bên thua và chỉ ánh xạ mỗi file một lần; khoá phải trùng khoá
+ * Polyglot chuẩn để đọc được sách .bin tạo bằng công cụ khác.
+ */
+class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "A"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {chú thích} Nc6 3. Bb5 a6 (3... Nf6 4. O-O) 4. Ba4 Nf6 5. O-O Be7 1-0
+
+            [Event "B"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 4. Ba4 Nf6 5. O-O b5 1-0
+
+            [Event "C"]
+            [Result "0-1"]
+
+            1. d4 d5 2. c4 e6 0-1
+            """;
+
+    // Khoá mẫu trong mô tả định dạng Polyglot: các nước đi từ thế ban đầu -> khoá
+    private static final Object[][] POLYGLOT_KEYS = {
+        { "", 0x463B96181691FC9CL },
+        { "e2e4", 0x823C9B50FD114196L },
+        { "e2e4 d7d5", 0x0756B94461C50FB0L },
+        { "e2e4 d7d5 e4e5", 0x662FAFB965DB29D4L },
+        { "e2e4 d7d5 e4e5 f7f5", 0x22A48B5A8E47FF78L },
+        { "e2e4 d7d5 e4e5 f7f5 e1e2", 0x652A607CA3F242C1L },
+        { "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7", 0x00FDD303C946BDD9L },
+        { "a2a4 b7b5 h2h4 b5b4 c2c4", 0x3C8123EA7B067637L },
+        { "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3", 0x5C3F9B829B279560L }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keysMatchPolyglotReference() {
+        for (Object[] line : POLYGLOT_KEYS) {
+            Board board = new Board();
+            for (String uci : ((String) line[0]).split(" ")) {
+                if (!uci.isEmpty()) {
+                    board.movePiece(UciEngine.findMove(board, uci));
+                }
+            }
+            assertEquals((long) line[1], board.getZobristKey(), "Sai khoá sau: " + line[0]);
+            // Khoá tính lại từ FEN phải trùng khoá cập nhật dần
+            assertEquals((long) line[1], Board.fromFen(board.toFen()).getZobristKey(), board.toFen());
+        }
+    }
+
+    @Test
+    void probesPolyglotBookWrittenElsewhere() throws IOException {
+        // Một mục viết tay theo định dạng Polyglot: thế ban đầu -> e2e4
+        int e2e4 = 4 | 3 << 3 | 4 << 6 | 1 << 9;
+        ByteBuffer entry = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES)
+                .putLong(0x463B96181691FC9CL).putShort((short) e2e4).putShort((short) 1).putInt(0);
+        Path file = dir.resolve("polyglot.bin");
+        Files.write(file, entry.array());
+
+        Board board = new Board();
+        int move = OpeningBook.open(file).probe(board, new Random(1));
+        assertEquals("e2e4", PackedMove.toUci(move));
+    }
+
+    @Test
+    void probesMovesBuiltFromPgn() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_PLIES, 1);
+        builder.addGames(new StringReader(PGN));
+        Path file = dir.resolve("book.bin");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            builder.write(out);
+        }
+        assertEquals(3, builder.getGames());
+        assertEquals(0, builder.getSkippedGames());
+
+        OpeningBook book = OpeningBook.open(file);
+        assertSame(book, OpeningBook.open(file));
+        Random random = new Random(1);
+
+        // Nước của bên thua (1. d4 trong ván Đen thắng) có trọng số 0 nên bị bỏ
+        Board board = new Board();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            seen.add(PackedMove.toUci(book.probe(board, random)));
+        }
+        assertEquals(Set.of("e2e4"), seen);
+
+        // Đi theo sách tới thế có nhập thành
+        for (String uci : new String[] { "e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6", "b5a4", "g8f6" }) {
+            board.movePiece(find(board, uci));
+        }
+        int castle = book.probe(board, random);
+        assertTrue(PackedMove.isCastling(castle));
+        assertEquals("e1g1", PackedMove.toUci(castle));
+
+        // Thế cờ ngoài sách
+        board.movePiece(castle);
+        board.movePiece(find(board, "h7h6"));
+        assertEquals(PackedMove.NONE, book.probe(board, random));
+        assertEquals(0, book.count(board));
+    }
+
+    @Test
+    void parsesSanWithDisambiguationAndPromotion() {
+        Board rooks = Board.fromFen("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        MoveList moves = new MoveList();
+        new GameLogic(rooks).generateMoves(rooks.getSideToMove(), moves);
+        assertEquals("a1d1", PackedMove.toUci(OpeningBookBuilder.parseSan(rooks, moves, "Rad1")));
+        assertEquals("h1d1", PackedMove.toUci(OpeningBookBuilder.parseSan(rooks, moves, "Rhd1+")));
+        assertEquals(PackedMove.NONE, OpeningBookBuilder.parseSan(rooks, moves, "Rd1"));
+
+        Board board = Board.fromFen("4k3/1P6/8/8/8/8/8/R3K2R w KQ - 0 1");
+        moves.clear();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        assertEquals("b7b8n", PackedMove.toUci(OpeningBookBuilder.parseSan(board, moves, "b8=N")));
+        assertEquals("e1c1", PackedMove.toUci(OpeningBookBuilder.parseSan(board, moves, "O-O-O")));
+    }
+
+    private static int find(Board board, String uci) {
+        MoveList moves = new MoveList();
+        new GameLogic(board).generateMoves(board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toUci(moves.get(i)).equals(uci)) {
+                return moves.get(i);
+            }
+        }
+        throw new AssertionError("Không có nước " + uci);
+    }
+}
@@ -0,0 +1,100 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.PackedMove;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bảng 3 quân tạo bằng phân tích ngược phải khớp các giá trị đã biết:
+ * KQK dài nhất 10 nước (19 nửa nước), KRK 16 nước (31 nửa nước), KPK thắng/hoà đúng.
+ */
+class TablebaseTest {
+
+    @TempDir
+    static Path dir;
+
+    private static TablebaseGenerator generator;
+    private static Tablebase tablebase;
+    private static final List<String> generated = new ArrayList<>();
+
+    @BeforeAll
+    static void generate() throws IOException {
+        generator = new TablebaseGenerator(dir, 2);
+        generator.setProgressListener((name, positions, millis) -> generated.add(name + ":" + positions));
+        for (String name : new String[] { "KQK", "KRK", "kkp" }) {
+            generator.generate(name);
+        }
+        tablebase = Tablebase.open(dir);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        generator.shutdown();
+    }
+
+    @Test
+    void reportsEachGeneratedTableOnce() throws IOException {
+        // Bảng con được báo trước bảng cha, mỗi bảng một lần; tạo lại bảng đã có thì không báo
+        assertEquals(new HashSet<>(generated).size(), generated.size());
+        assertEquals("KQK:" + new TablebaseIndex("KQK").size, generated.get(0));
+        assertEquals(TablebaseIndex.normalize("kkp") + ":" + new TablebaseIndex(TablebaseIndex.normalize("kkp")).size,
+                generated.get(generated.size() - 1));
+        int count = generated.size();
+        generator.generate("KQK");
+        assertEquals(count, generated.size());
+    }
+
+    @Test
+    void longestMatesMatchKnownValues() throws IOException {
+        assertEquals(19, longestWin("KQK"));
+        assertEquals(31, longestWin("KRK"));
+    }
+
+    @Test
+    void probesWinsDrawsAndMirroredColours() {
+        // Vua đứng trước tốt, Trắng đi: thắng
+        assertTrue(Tablebase.isWin(tablebase.probe(Board.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"))));
+        // Đen đi nhưng hết nước: hoà
+        assertEquals(Tablebase.DRAW, tablebase.probe(Board.fromFen("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")));
+        // Cùng thế cờ khi đổi màu (tra qua bảng đã lật)
+        assertTrue(Tablebase.isWin(tablebase.probe(Board.fromFen("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"))));
+        // Chỉ còn hai vua
+        assertEquals(Tablebase.DRAW, tablebase.probe(Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+        // Còn quyền nhập thành hoặc chưa có bảng: không tra
+        assertEquals(Tablebase.UNKNOWN, tablebase.probe(Board.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")));
+        assertEquals(Tablebase.UNKNOWN, tablebase.probe(Board.fromFen("3rk3/8/8/8/8/8/8/Q3K3 w - - 0 1")));
+    }
+
+    @Test
+    void bestMoveFindsMate() {
+        Board board = Board.fromFen("6k1/8/6K1/8/8/8/8/1Q6 w - - 0 1");
+        assertTrue(Tablebase.isWin(tablebase.probe(board)));
+        assertEquals(1, Tablebase.distance(tablebase.probe(board)));
+        assertEquals("b1b8", PackedMove.toUci(tablebase.bestMove(board)));
+    }
+
+    private static int longestWin(String name) throws IOException {
+        ByteBuffer table = TablebaseGenerator.map(dir.resolve(name + TablebaseIndex.EXTENSION));
+        int longest = 0;
+        for (int i = TablebaseIndex.HEADER_BYTES; i < table.limit(); i++) {
+            int value = table.get(i) & 0xFF;
+            if (TablebaseIndex.isWin(value)) {
+                longest = Math.max(longest, TablebaseIndex.distance(value));
+            }
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,139 @@
+package com.chess_client.services.engine;
+
+import com.chess_client.models.PackedMove;
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Bảng băm: lưu/đọc đủ độ sâu, cận, điểm và nước; thay ô trong bucket theo độ sâu
+ * và thế hệ; ô ghi đan xen bị coi như trống; xoá bảng và bộ đếm.
+ */
+class TranspositionTableTest {
+
+    private static final long KEY = 0x463B96181691FC9CL;
+    // Cùng bucket với KEY ở mọi kích thước bảng (bit thấp giống nhau)
+    private static final long SAME_BUCKET = 1L << 40;
+
+    @Test
+    void storesAndProbesEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.promotion(12, 4, Piece.Type.QUEEN, PackedMove.CAPTURE);
+        table.store(KEY, 7, TranspositionTable.BOUND_LOWER, -12_345, move);
+
+        long entry = table.probe(KEY);
+        assertNotEquals(0, entry);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+        assertEquals(-12_345, TranspositionTable.score(entry));
+        assertEquals(move & PackedMove.KEY_MASK, TranspositionTable.move(entry));
+        assertEquals(0, table.probe(KEY + 1));
+
+        // Lưu lại cùng thế cờ không kèm nước thì giữ nước tốt nhất cũ
+        table.store(KEY, 8, TranspositionTable.BOUND_EXACT, 50, TranspositionTable.NO_MOVE);
+        entry = table.probe(KEY);
+        assertEquals(8, TranspositionTable.depth(entry));
+        assertEquals(move & PackedMove.KEY_MASK, TranspositionTable.move(entry));
+    }
+
+    @Test
+    void replacesByDepthAndGeneration() {
+        TranspositionTable table = new TranspositionTable(1);
+        long a = KEY;
+        long b = KEY + SAME_BUCKET;
+        long c = KEY + 2 * SAME_BUCKET;
+        long d = KEY + 3 * SAME_BUCKET;
+        long e = KEY + 4 * SAME_BUCKET;
+
+        table.store(a, 10, TranspositionTable.BOUND_EXACT, 1, TranspositionTable.NO_MOVE);
+        table.store(b, 2, TranspositionTable.BOUND_EXACT, 2, TranspositionTable.NO_MOVE);
+        // Kết quả nông hơn vào ô sau, ô đầu vẫn giữ kết quả sâu
+        assertNotEquals(0, table.probe(a));
+        assertNotEquals(0, table.probe(b));
+
+        // Ô sau luôn bị ghi đè
+        table.store(c, 3, TranspositionTable.BOUND_EXACT, 3, TranspositionTable.NO_MOVE);
+        assertNotEquals(0, table.probe(a));
+        assertEquals(0, table.probe(b));
+        assertNotEquals(0, table.probe(c));
+
+        // Kết quả sâu hơn thay ô đầu
+        table.store(d, 12, TranspositionTable.BOUND_EXACT, 4, TranspositionTable.NO_MOVE);
+        assertEquals(0, table.probe(a));
+        assertNotEquals(0, table.probe(d));
+
+        // Sang lần tìm mới, ô đầu của lần trước bị thay dù nông hơn
+        table.newSearch();
+        table.store(e, 1, TranspositionTable.BOUND_EXACT, 5, TranspositionTable.NO_MOVE);
+        assertEquals(0, table.probe(d));
+        assertEquals(5, TranspositionTable.score(table.probe(e)));
+    }
+
+    @Test
+    void rejectsTornEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 5, TranspositionTable.BOUND_EXACT, 100, TranspositionTable.NO_MOVE);
+        long data = table.probe(KEY);
+        assertNotEquals(0, data);
+
+        // Nửa đầu của lần ghi này, nửa sau của lần ghi khác: key ^ data không còn khớp
+        table.writeRaw(KEY, 0, KEY ^ data, data + 1);
+        assertEquals(0, table.probe(KEY));
+
+        table.writeRaw(KEY, 0, KEY ^ data, data);
+        assertEquals(data, table.probe(KEY));
+    }
+
+    @Test
+    void clearEmptiesTableAndCounters() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 3, TranspositionTable.BOUND_UPPER, -7, TranspositionTable.NO_MOVE);
+        table.store(KEY + SAME_BUCKET, 1, TranspositionTable.BOUND_UPPER, -8, TranspositionTable.NO_MOVE);
+        table.probe(KEY);
+
+        table.clear();
+        assertEquals(0, table.getProbes());
+        assertEquals(0, table.getStores());
+        assertEquals(0, table.probe(KEY));
+        assertEquals(0, table.probe(KEY + SAME_BUCKET));
+        assertEquals(0, table.getUsagePermille());
+    }
+
+    @Test
+    void countsProbesHitsAndStores() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 4, TranspositionTable.BOUND_EXACT, 0, TranspositionTable.NO_MOVE);
+        table.store(KEY + 1, 4, TranspositionTable.BOUND_EXACT, 0, TranspositionTable.NO_MOVE);
+        table.probe(KEY);
+        table.probe(KEY + 1);
+        table.probe(KEY + 2);
+        table.probe(KEY + 3);
+
+        assertEquals(2, table.getStores());
+        assertEquals(4, table.getProbes());
+        assertEquals(2, table.getHits());
+        assertEquals(0.5, table.getHitRate(), 1e-9);
+
+        table.resetCounters();
+        assertEquals(0, table.getProbes());
+        assertEquals(0.0, table.getHitRate(), 1e-9);
+        assertNotEquals(0, table.probe(KEY));
+    }
+
+    @Test
+    void sizeComesFromHashMbProperty() {
+        try {
+            System.setProperty("chess.engine.hashMb", "4");
+            assertEquals(4, TranspositionTable.configuredSizeMb());
+            System.setProperty("chess.engine.hashMb", "100000");
+            assertEquals(TranspositionTable.MAX_SIZE_MB, TranspositionTable.configuredSizeMb());
+            System.clearProperty("chess.engine.hashMb");
+            assertEquals(TranspositionTable.DEFAULT_SIZE_MB, TranspositionTable.configuredSizeMb());
+        } finally {
+            System.clearProperty("chess.engine.hashMb");
+        }
+        assertEquals(1L << 16, new TranspositionTable(1).getCapacity());
+    }
+}
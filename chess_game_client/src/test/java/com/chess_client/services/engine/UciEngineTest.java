@@ -0,0 +1,169 @@
+package com.chess_client.services.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nói chuyện với UciEngine qua pipe như một GUI/công cụ thi đấu:
+ * bắt tay, đặt thế cờ, tìm theo độ sâu/số nút/vô hạn và dừng.
+ */
+class UciEngineTest {
+
+    private PrintStream commands;
+    private BufferedReader replies;
+    private Thread engineThread;
+
+    @BeforeEach
+    void start() throws IOException {
+        PipedOutputStream toEngine = new PipedOutputStream();
+        BufferedReader engineIn = new BufferedReader(new InputStreamReader(
+                new PipedInputStream(toEngine, 1 << 16), StandardCharsets.UTF_8));
+        PipedOutputStream fromEngine = new PipedOutputStream();
+        replies = new BufferedReader(new InputStreamReader(
+                new PipedInputStream(fromEngine, 1 << 16), StandardCharsets.UTF_8));
+        commands = new PrintStream(toEngine, true, StandardCharsets.UTF_8);
+
+        UciEngine engine = new UciEngine(engineIn, new PrintStream(fromEngine, true, StandardCharsets.UTF_8));
+        engineThread = new Thread(() -> {
+            try {
+                engine.run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "uci-test-engine");
+        engineThread.start();
+    }
+
+    @AfterEach
+    void quit() throws InterruptedException {
+        commands.println("quit");
+        engineThread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(engineThread.isAlive());
+    }
+
+    @Test
+    void handshakeAndOptions() throws IOException {
+        commands.println("uci");
+        List<String> lines = readUntil("uciok");
+        assertTrue(lines.contains("id name " + UciEngine.NAME));
+        assertTrue(lines.stream().anyMatch(l -> l.startsWith("option name Hash type spin")));
+        assertTrue(lines.stream().anyMatch(l -> l.startsWith("option name Threads type spin")));
+
+        commands.println("setoption name Hash value 2");
+        commands.println("setoption name Threads value 1");
+        commands.println("ucinewgame");
+        commands.println("isready");
+        assertEquals(List.of("readyok"), readUntil("readyok"));
+    }
+
+    @Test
+    void searchesToDepthWithInfoLines() throws IOException {
+        commands.println("position startpos moves e2e4 e7e5 g1f3");
+        commands.println("go depth 4");
+        List<String> lines = readUntil("bestmove");
+
+        String last = lines.get(lines.size() - 2);
+        assertTrue(last.startsWith("info depth 4 score cp "), last);
+        assertTrue(last.contains(" nodes ") && last.contains(" nps ") && last.contains(" pv "), last);
+        String bestMove = lines.get(lines.size() - 1).split(" ")[1];
+        // Biến chính bắt đầu bằng nước tốt nhất
+        assertTrue(last.contains(" pv " + bestMove), last);
+    }
+
+    @Test
+    void reportsMateFromFen() throws IOException {
+        commands.println("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        commands.println("go depth 3");
+        List<String> lines = readUntil("bestmove");
+        assertEquals("bestmove a1a8", lines.get(lines.size() - 1));
+        assertTrue(lines.stream().anyMatch(l -> l.contains("score mate 1")));
+    }
+
+    @Test
+    void respectsNodeLimit() throws IOException {
+        commands.println("position startpos");
+        commands.println("go nodes 20000");
+        List<String> lines = readUntil("bestmove");
+        for (String line : lines) {
+            if (line.startsWith("info depth")) {
+                long nodes = Long.parseLong(line.replaceAll(".* nodes (\\d+) .*", "$1"));
+                assertTrue(nodes <= 20_000 + 1024, line);
+            }
+        }
+    }
+
+    @Test
+    void infiniteSearchWaitsForStop() throws IOException, InterruptedException {
+        commands.println("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        commands.println("go infinite");
+        // Chiếu hết tìm ra ngay nhưng chưa được trả bestmove
+        Thread.sleep(300);
+        commands.println("isready");
+        List<String> before = readUntil("readyok");
+        assertFalse(before.stream().anyMatch(l -> l.startsWith("bestmove")));
+
+        commands.println("stop");
+        List<String> after = readUntil("bestmove");
+        assertEquals("bestmove a1a8", after.get(after.size() - 1));
+    }
+
+    @Test
+    void rejectsBadPositionAndGoParameters() throws IOException {
+        // Nước đi sai giữa danh sách: bỏ cả lệnh, không tìm thế cờ cũ hay thế cờ dở dang
+        commands.println("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        commands.println("position startpos moves e2e4 e2e4");
+        commands.println("go depth 3");
+        List<String> lines = readUntil("bestmove");
+        assertEquals("bestmove 0000", last(lines));
+        assertFalse(lines.stream().anyMatch(l -> l.startsWith("info depth")));
+
+        commands.println("position fen not a fen");
+        commands.println("go depth 3");
+        assertEquals("bestmove 0000", last(readUntil("bestmove")));
+
+        // Tham số go sai: không tìm với giới hạn đọc được một nửa
+        commands.println("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        commands.println("go depth 3 nodes many");
+        lines = readUntil("bestmove");
+        assertEquals("bestmove 0000", last(lines));
+        assertFalse(lines.stream().anyMatch(l -> l.startsWith("info depth")));
+
+        // Lệnh position hợp lệ tiếp theo dùng lại được
+        commands.println("go depth 3");
+        assertEquals("bestmove a1a8", last(readUntil("bestmove")));
+    }
+
+    private static String last(List<String> lines) {
+        return lines.get(lines.size() - 1);
+    }
+
+    private List<String> readUntil(String prefix) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = replies.readLine()) != null) {
+            lines.add(line);
+            if (line.startsWith(prefix)) {
+                return lines;
+            }
+        }
+        assertNotNull(line, "Máy đóng kết nối trước khi trả " + prefix);
+        return lines;
+    }
+}